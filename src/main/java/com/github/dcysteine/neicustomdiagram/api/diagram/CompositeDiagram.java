@@ -3,12 +3,16 @@ package com.github.dcysteine.neicustomdiagram.api.diagram;
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactable;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Layout;
 import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
+import com.github.dcysteine.neicustomdiagram.api.draw.FluidBatch;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Abstract extension of {@link Diagram} that supports showing and hiding sub-diagrams based on
@@ -20,34 +24,136 @@ import java.util.List;
  * {@code activeDiagrams(DiagramState)}.
  */
 public abstract class CompositeDiagram extends Diagram {
+    /** Must be a power of 2. */
+    protected static final int CACHE_SIZE = 16;
+
+    /**
+     * Map of sub-diagram to its index, assigned the first time that it is active. Indices are used
+     * as bit positions in the keys of {@link #cache}, so at most {@link Long#SIZE} sub-diagrams are
+     * assigned indices; combinations including any other sub-diagram are not cached.
+     */
+    private final Map<Diagram, Integer> subDiagramIndices;
+
+    /**
+     * Direct-mapped cache of the bitmask of active sub-diagram indices to the resulting dimension
+     * and interactables.
+     *
+     * <p>Sub-diagrams are immutable, so these only depend on which of them are active. The
+     * exception is nested composite diagrams, so combinations including those are not cached.
+     */
+    private final CacheEntry[] cache;
+
+    /** Struct class holding the cached data for a combination of active sub-diagrams. */
+    private static final class CacheEntry {
+        private final long activeMask;
+        private final Dimension dimension;
+        private final ImmutableList<Interactable> interactables;
+
+        private CacheEntry(
+                long activeMask, Dimension dimension, ImmutableList<Interactable> interactables) {
+            this.activeMask = activeMask;
+            this.dimension = dimension;
+            this.interactables = interactables;
+        }
+    }
+
     /** The passed-in layout and interactables will always be shown. */
     public CompositeDiagram(Layout layout, ImmutableList<? extends Interactable> interactables) {
         super(layout, interactables);
+        this.subDiagramIndices = new IdentityHashMap<>();
+        this.cache = new CacheEntry[CACHE_SIZE];
     }
 
     /** The passed-in diagram will always be shown. */
     public CompositeDiagram(Diagram diagram) {
         super(diagram.layout, diagram.slotInsertions, diagram.interactables);
+        this.subDiagramIndices = new IdentityHashMap<>();
+        this.cache = new CacheEntry[CACHE_SIZE];
     }
 
     @Override
     public Iterable<Interactable> interactables(DiagramState diagramState) {
+        Collection<Diagram> activeDiagrams = activeDiagrams(diagramState);
+        CacheEntry entry = getCacheEntry(activeDiagrams, diagramState);
+        if (entry != null) {
+            return entry.interactables;
+        }
+
+        return computeInteractables(activeDiagrams, diagramState);
+    }
+
+    @Override
+    public Dimension dimension(DiagramState diagramState) {
+        Collection<Diagram> activeDiagrams = activeDiagrams(diagramState);
+        CacheEntry entry = getCacheEntry(activeDiagrams, diagramState);
+        if (entry != null) {
+            return entry.dimension;
+        }
+
+        return computeDimension(activeDiagrams, diagramState);
+    }
+
+    /**
+     * Returns the cache entry for {@code activeDiagrams}, computing it if necessary, or
+     * {@code null} if this combination of sub-diagrams cannot be cached.
+     */
+    @Nullable
+    private CacheEntry getCacheEntry(
+            Collection<Diagram> activeDiagrams, DiagramState diagramState) {
+        long activeMask = 0L;
+        for (Diagram diagram : activeDiagrams) {
+            if (diagram instanceof CompositeDiagram) {
+                return null;
+            }
+
+            Integer index = subDiagramIndices.get(diagram);
+            if (index == null) {
+                if (subDiagramIndices.size() >= Long.SIZE) {
+                    return null;
+                }
+                index = subDiagramIndices.size();
+                subDiagramIndices.put(diagram, index);
+            }
+            activeMask |= 1L << index;
+        }
+
+        int cacheIndex = Long.hashCode(activeMask) & (CACHE_SIZE - 1);
+        CacheEntry entry = cache[cacheIndex];
+        if (entry == null || entry.activeMask != activeMask) {
+            entry =
+                    new CacheEntry(
+                            activeMask,
+                            computeDimension(activeDiagrams, diagramState),
+                            ImmutableList.copyOf(
+                                    computeInteractables(activeDiagrams, diagramState)));
+            cache[cacheIndex] = entry;
+        }
+        return entry;
+    }
+
+    private Iterable<Interactable> computeInteractables(
+            Collection<Diagram> activeDiagrams, DiagramState diagramState) {
         List<Iterable<Interactable>> iterables = new ArrayList<>();
 
         iterables.add(super.interactables(diagramState));
-        activeDiagrams(diagramState)
-                .forEach(diagram -> iterables.add(diagram.interactables(diagramState)));
+        activeDiagrams.forEach(diagram -> iterables.add(diagram.interactables(diagramState)));
 
         return Iterables.concat(iterables);
     }
 
-    @Override
-    public Dimension dimension(DiagramState diagramState) {
-        return activeDiagrams(diagramState).stream()
+    private Dimension computeDimension(
+            Collection<Diagram> activeDiagrams, DiagramState diagramState) {
+        return activeDiagrams.stream()
                 .map(diagram -> diagram.dimension(diagramState))
                 .reduce(super.dimension(diagramState), Dimension::max);
     }
 
+    /** The set of active sub-diagrams depends on diagram state. */
+    @Override
+    public boolean hasStaticBackground() {
+        return false;
+    }
+
     @Override
     public void drawBackground(DiagramState diagramState) {
         super.drawBackground(diagramState);
@@ -57,7 +163,11 @@ public abstract class CompositeDiagram extends Diagram {
     @Override
     public void drawForeground(DiagramState diagramState) {
         super.drawForeground(diagramState);
-        activeDiagrams(diagramState).forEach(diagram -> diagram.drawForeground(diagramState));
+        for (Diagram diagram : activeDiagrams(diagramState)) {
+            // Sub-diagrams may overlap this diagram, so preserve painter's order.
+            FluidBatch.drawQueued();
+            diagram.drawForeground(diagramState);
+        }
     }
 
     /** Returns a list of diagrams that should be shown, based on the diagram state. */
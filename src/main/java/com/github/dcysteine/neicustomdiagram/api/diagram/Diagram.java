@@ -1,13 +1,16 @@
 package com.github.dcysteine.neicustomdiagram.api.diagram;
 
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponentSequence;
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactable;
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.InteractiveComponentGroup;
+import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.ScrollableComponentGroup;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Layout;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Slot;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.SlotGroup;
 import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
 import com.github.dcysteine.neicustomdiagram.api.draw.Drawable;
+import com.github.dcysteine.neicustomdiagram.api.draw.FluidBatch;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMultiset;
@@ -15,10 +18,10 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Multiset;
 
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
-import java.util.stream.StreamSupport;
 
 public class Diagram {
     protected final Layout layout;
@@ -35,12 +38,35 @@ public class Diagram {
 
     protected final ImmutableList<? extends Interactable> interactables;
 
+    /**
+     * {@link #interactables} followed by all layout slots, in hit test priority order.
+     *
+     * <p>Precomputed so that hit tests don't need to build a new view each time.
+     */
+    protected final ImmutableList<Interactable> allInteractables;
+
+    /**
+     * The maximum extent of the layout and interactables.
+     *
+     * <p>Diagrams are immutable, so we compute this once at construction time, rather than walking
+     * the whole layout every time the scroll area gets sized.
+     */
+    protected final Dimension dimension;
+
     public Diagram(
             Layout layout, Multiset<Layout.Key> slotInsertions,
             ImmutableList<? extends Interactable> interactables) {
         this.layout = layout;
         this.slotInsertions = ImmutableMultiset.copyOf(slotInsertions);
         this.interactables = interactables;
+        // Slots go at the end so that they get last priority.
+        this.allInteractables =
+                ImmutableList.<Interactable>builder()
+                        .addAll(interactables)
+                        .addAll(layout.allSlots())
+                        .build();
+        this.dimension =
+                Dimension.max(layout.maxDimension(), Drawable.computeMaxDimension(interactables));
     }
 
     public Diagram(Layout layout, ImmutableList<? extends Interactable> interactables) {
@@ -60,12 +86,22 @@ public class Diagram {
     }
 
     public Iterable<Interactable> interactables(DiagramState diagramState) {
-        // Slots go at the end so that they get last priority.
-        return Iterables.concat(interactables, layout.allSlots());
+        return allInteractables;
     }
 
     public Dimension dimension(DiagramState diagramState) {
-        return Dimension.max(layout.maxDimension(), Drawable.computeMaxDimension(interactables));
+        return dimension;
+    }
+
+    /**
+     * Returns whether {@link #drawBackground(DiagramState)} always draws the same thing, regardless
+     * of diagram state. If so, the background may be rendered once and cached by
+     * {@link FramebufferCache}.
+     *
+     * <p>Subclasses whose background changes with diagram state should override this.
+     */
+    public boolean hasStaticBackground() {
+        return true;
     }
 
     public void drawBackground(DiagramState diagramState) {
@@ -73,7 +109,22 @@ public class Diagram {
     }
 
     public void drawForeground(DiagramState diagramState) {
-        interactables.forEach(interactable -> interactable.draw(diagramState));
+        // Indexed loop, to avoid allocating an iterator every frame.
+        for (int i = 0; i < interactables.size(); i++) {
+            Interactable interactable = interactables.get(i);
+
+            // Component groups are drawn into non-overlapping slots, so their fluids can be batched
+            // together. Anything else might overlap a fluid, so draw queued fluids before and
+            // after it, to preserve painter's order.
+            boolean batchable = interactable instanceof InteractiveComponentGroup;
+            if (!batchable) {
+                FluidBatch.drawQueued();
+            }
+            interactable.draw(diagramState);
+            if (!batchable) {
+                FluidBatch.drawQueued();
+            }
+        }
     }
 
     public static Builder builder() {
@@ -277,13 +328,17 @@ public class Diagram {
         public final class SlotGroupAutoSubBuilder {
             private final Layout layout;
             private final Layout.SlotGroupKey slotGroupKey;
-            private final Iterator<Slot> slotIterator;
+            private final SlotGroup slotGroup;
+
+            /** The index in {@code slotGroup.slots()} of the next slot to insert into. */
+            private int nextSlot;
 
             private SlotGroupAutoSubBuilder(
                     Layout layout, Layout.SlotGroupKey slotGroupKey, SlotGroup slotGroup) {
                 this.layout = layout;
                 this.slotGroupKey = slotGroupKey;
-                this.slotIterator = slotGroup.slots().iterator();
+                this.slotGroup = slotGroup;
+                this.nextSlot = 0;
             }
 
             /**
@@ -294,7 +349,7 @@ public class Diagram {
                     return this;
                 }
 
-                insertIntoSlot(slotIterator.next(), components);
+                insertIntoSlot(nextSlot(), components);
                 return this;
             }
 
@@ -307,7 +362,7 @@ public class Diagram {
                     return this;
                 }
 
-                insertIntoSlot(slotIterator.next(), components);
+                insertIntoSlot(nextSlot(), components);
                 return this;
             }
 
@@ -324,23 +379,25 @@ public class Diagram {
             /**
              * Inserts components one at a time into this slot group's slots, without overfilling.
              *
-             * <p>If there are more components than there are remaining slots, will put all excess
-             * components together into the very last slot.
-             *
-             * @throws java.util.NoSuchElementException if this slot group is already full.
+             * <p>If there are more components than there are remaining slots, the remaining slots
+             * will instead show a {@link ScrollableComponentGroup} containing all of the
+             * components, which can be scrolled through with the mouse wheel.
              */
             public SlotGroupAutoSubBuilder insertEachSafe(Iterable<DisplayComponent> components) {
-                Iterator<DisplayComponent> iterator = components.iterator();
-
-                while (slotIterator.hasNext() && iterator.hasNext()) {
-                    Slot slot = slotIterator.next();
+                DisplayComponentSequence sequence = DisplayComponentSequence.of(components);
+                List<Slot> remainingSlots = remainingSlots();
+                if (remainingSlots.isEmpty() || sequence.isEmpty()) {
+                    return this;
+                }
 
-                    if (slotIterator.hasNext()) {
-                        insertIntoSlot(slot, iterator.next());
-                    } else {
-                        // This is the last slot, so put all remaining components into it.
-                        insertIntoSlot(slot, () -> iterator);
+                if (sequence.size() <= remainingSlots.size()) {
+                    for (int i = 0; i < sequence.size(); i++) {
+                        insertIntoSlot(nextSlot(), sequence.get(i));
                     }
+                } else {
+                    insertScrollable(
+                            ScrollableComponentGroup.create(
+                                    remainingSlots, slotGroup.width(), sequence));
                 }
 
                 return this;
@@ -359,35 +416,63 @@ public class Diagram {
 
             /**
              * Inserts components one group at a time into this slot group's slots, without
-             * overfilling.
-             *
-             * <p>If there are more component groups than there are remaining slots, will flatten
-             * all excess components groups into a single group, and insert it into the very last
-             * slot.
+             * overfilling. Empty component groups are skipped.
              *
-             * @throws java.util.NoSuchElementException if this slot group is already full.
+             * <p>If there are more component groups than there are remaining slots, the remaining
+             * slots will instead show a {@link ScrollableComponentGroup} containing all of the
+             * component groups, which can be scrolled through with the mouse wheel.
              */
             public <T extends Iterable<DisplayComponent>> SlotGroupAutoSubBuilder
                     insertEachGroupSafe(Iterable<T> components) {
-                Iterator<T> iterator =
-                        StreamSupport.stream(components.spliterator(), false)
-                                .filter(iter -> !Iterables.isEmpty(iter))
-                                .iterator();
-
-                while (slotIterator.hasNext() && iterator.hasNext()) {
-                    Slot slot = slotIterator.next();
-
-                    if (slotIterator.hasNext()) {
-                        insertIntoSlot(slot, iterator.next());
-                    } else {
-                        // This is the last slot, so put all remaining components into it.
-                        insertIntoSlot(slot, Iterables.concat((Iterable<T>) () -> iterator));
+                ImmutableList<T> componentGroups =
+                        ImmutableList.copyOf(
+                                Iterables.filter(components, iter -> !Iterables.isEmpty(iter)));
+                List<Slot> remainingSlots = remainingSlots();
+                if (remainingSlots.isEmpty() || componentGroups.isEmpty()) {
+                    return this;
+                }
+
+                if (componentGroups.size() <= remainingSlots.size()) {
+                    for (int i = 0; i < componentGroups.size(); i++) {
+                        insertIntoSlot(nextSlot(), componentGroups.get(i));
                     }
+                } else {
+                    insertScrollable(
+                            ScrollableComponentGroup.createGrouped(
+                                    remainingSlots, slotGroup.width(), componentGroups));
                 }
 
                 return this;
             }
 
+            /**
+             * Consumes and returns the next slot.
+             *
+             * @throws java.util.NoSuchElementException if this slot group is full.
+             */
+            private Slot nextSlot() {
+                ImmutableList<Slot> slots = slotGroup.slots();
+                if (nextSlot >= slots.size()) {
+                    throw new NoSuchElementException("Slot group is full: " + slotGroupKey);
+                }
+                return slots.get(nextSlot++);
+            }
+
+            /** Returns all slots that haven't been inserted into yet, without consuming them. */
+            private List<Slot> remainingSlots() {
+                ImmutableList<Slot> slots = slotGroup.slots();
+                return slots.subList(nextSlot, slots.size());
+            }
+
+            /** Inserts {@code group}, consuming all remaining slots. */
+            private void insertScrollable(ScrollableComponentGroup group) {
+                int numSlots = remainingSlots().size();
+                interactablesBuilder.add(group);
+                layouts.put(layout, true);
+                slotInsertions.add(slotGroupKey, numSlots);
+                nextSlot = slotGroup.slots().size();
+            }
+
             private void insertIntoSlot(Slot slot, DisplayComponent... components) {
                 interactablesBuilder.add(new InteractiveComponentGroup(slot, components));
                 layouts.put(layout, true);
@@ -17,6 +17,9 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactab
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.InteractiveComponentGroup;
 import com.github.dcysteine.neicustomdiagram.api.diagram.matcher.DiagramMatcher;
 import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
+import com.github.dcysteine.neicustomdiagram.api.draw.FluidBatch;
+import com.github.dcysteine.neicustomdiagram.api.draw.GlStateTracker;
+import com.github.dcysteine.neicustomdiagram.api.draw.RenderProfiler;
 import com.github.dcysteine.neicustomdiagram.api.draw.scroll.MouseButton;
 import com.github.dcysteine.neicustomdiagram.api.draw.scroll.ScrollDirection;
 import com.github.dcysteine.neicustomdiagram.api.draw.scroll.ScrollManager;
@@ -43,7 +46,66 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
 
     protected final ScrollManager scrollManager;
     protected final DiagramState diagramState;
-    protected final ImmutableList<Diagram> diagrams;
+    /** Either an {@link ImmutableList}, or a {@link LazyDiagramList}. */
+    protected final List<Diagram> diagrams;
+
+    /** Must be a power of 2. */
+    protected static final int HOVER_CACHE_SIZE = 8;
+
+    /**
+     * Direct-mapped cache of recipe index to the most recent result of
+     * {@link #findHoveredInteractable(int)}.
+     *
+     * <p>The hovered interactable gets looked up several times per frame (when drawing the
+     * foreground, when drawing the tooltip, and when NEI asks for the stack under the mouse), so
+     * we only redo the hit test if the mouse position or scroll offset has changed. This is an
+     * array rather than a map, so that lookups don't need to box the recipe index.
+     */
+    protected final HoverCacheEntry[] hoverCache;
+
+    /**
+     * Struct class holding a cached hit test result, along with the inputs it was computed from.
+     *
+     * <p>Entries are allocated once, and updated in place, since the cache is cleared every tick.
+     */
+    protected static final class HoverCacheEntry {
+        private boolean valid;
+        private int recipe;
+        private Point mousePos;
+        private int horizontalScroll;
+        private int verticalScroll;
+        private Optional<Interactable> interactable;
+
+        private HoverCacheEntry() {
+            this.valid = false;
+        }
+
+        private boolean matches(
+                int recipe, Point mousePos, int horizontalScroll, int verticalScroll) {
+            return valid
+                    && this.recipe == recipe
+                    && this.mousePos.equals(mousePos)
+                    && this.horizontalScroll == horizontalScroll
+                    && this.verticalScroll == verticalScroll;
+        }
+
+        private void set(
+                int recipe, Point mousePos, int horizontalScroll, int verticalScroll,
+                Optional<Interactable> interactable) {
+            this.valid = true;
+            this.recipe = recipe;
+            this.mousePos = mousePos;
+            this.horizontalScroll = horizontalScroll;
+            this.verticalScroll = verticalScroll;
+            this.interactable = interactable;
+        }
+
+        private void invalidate() {
+            valid = false;
+            // Don't keep the interactable alive.
+            interactable = null;
+        }
+    }
 
     public DiagramGroup(
             DiagramGroupInfo info, DiagramMatcher matcher,
@@ -55,6 +117,7 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
         this.scrollManager = new ScrollManager();
         this.diagramState = diagramStateSupplier.get();
         this.diagrams = ImmutableList.of();
+        this.hoverCache = newHoverCache();
     }
 
     public DiagramGroup(DiagramGroupInfo info, DiagramMatcher matcher) {
@@ -68,7 +131,19 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
 
         this.scrollManager = new ScrollManager();
         this.diagramState = this.diagramStateSupplier.get();
-        this.diagrams = ImmutableList.copyOf(diagrams);
+        // Copying a lazy list would build all of its diagrams.
+        this.diagrams =
+                diagrams instanceof LazyDiagramList
+                        ? (LazyDiagramList) diagrams : ImmutableList.copyOf(diagrams);
+        this.hoverCache = newHoverCache();
+    }
+
+    private static HoverCacheEntry[] newHoverCache() {
+        HoverCacheEntry[] hoverCache = new HoverCacheEntry[HOVER_CACHE_SIZE];
+        for (int i = 0; i < HOVER_CACHE_SIZE; i++) {
+            hoverCache[i] = new HoverCacheEntry();
+        }
+        return hoverCache;
     }
 
     public DiagramGroupInfo info() {
@@ -100,11 +175,21 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
         return diagrams.size();
     }
 
+    /**
+     * Returns the diagram at index {@code recipe}, and selects it in {@link #diagramState}, so that
+     * per-diagram state such as scroll offsets is looked up for the right diagram.
+     */
+    protected Diagram diagram(int recipe) {
+        diagramState.selectDiagram(recipe);
+        return diagrams.get(recipe);
+    }
+
     public DiagramGroup loadDiagrams(
             String id, Interactable.RecipeType recipeType, Object... stacks) {
         Collection<Diagram> matchingDiagrams = matchDiagrams(id, recipeType, stacks);
 
-        if (!ConfigOptions.SHOW_EMPTY_DIAGRAMS.get()) {
+        if (!ConfigOptions.SHOW_EMPTY_DIAGRAMS.get()
+                && !(matchingDiagrams instanceof LazyDiagramList)) {
             matchingDiagrams =
                     matchingDiagrams.stream()
                             .filter(diagram -> !info.emptyDiagramPredicate().test(diagram))
@@ -169,54 +254,146 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
     public void onUpdate() {
         scrollManager.tick();
         diagramState.tick();
+
+        // Diagram state may have changed, which may change the set of interactables.
+        invalidateHoverCache();
     }
 
     @Override
     public void drawBackground(int recipe) {
-        Diagram diagram = diagrams.get(recipe);
+        RenderProfiler.beginPhase(info, recipe, RenderProfiler.Phase.BACKGROUND);
+        Diagram diagram = diagram(recipe);
         Dimension diagramDimension = diagram.dimension(diagramState);
         scrollManager.refreshState(diagramDimension);
+        // This must be done before setting up the scissor region and scroll transformation.
+        boolean cached = FramebufferCache.prepare(diagram, diagramState);
         scrollManager.beforeDraw();
 
-        diagram.drawBackground(diagramState);
-
-        scrollManager.afterDraw();
+        try {
+            if (cached) {
+                FramebufferCache.draw(diagram);
+            } else {
+                diagram.drawBackground(diagramState);
+            }
+        } finally {
+            scrollManager.afterDraw();
+            RenderProfiler.endPhase();
+        }
     }
 
     @Override
     public void drawForeground(int recipe) {
+        RenderProfiler.beginPhase(info, recipe, RenderProfiler.Phase.FOREGROUND);
         scrollManager.beforeDraw();
 
-        diagrams.get(recipe).drawForeground(diagramState);
-        Optional<Interactable> interactable = findHoveredInteractable(recipe);
-        interactable.ifPresent(i -> i.drawOverlay(diagramState));
-
-        scrollManager.afterDraw();
+        try {
+            FluidBatch.begin();
+            try {
+                diagram(recipe).drawForeground(diagramState);
+            } finally {
+                FluidBatch.flush();
+            }
+            Optional<Interactable> interactable = findHoveredInteractable(recipe);
+            if (interactable.isPresent()) {
+                interactable.get().drawOverlay(diagramState);
+            }
+        } finally {
+            scrollManager.afterDraw();
+            RenderProfiler.endPhase();
+        }
     }
 
     public void drawTooltip(GuiRecipe<?> gui, int recipe) {
-        scrollManager.drawScrollbars();
-
-        Optional<Interactable> interactable = findHoveredInteractable(recipe);
-        interactable.ifPresent(
-                i -> i.drawTooltip(diagramState, scrollManager.getAbsoluteMousePosition()));
+        RenderProfiler.beginPhase(info, recipe, RenderProfiler.Phase.TOOLTIP);
+        GlStateTracker.beginPass();
+
+        // A tooltip that throws must not leave the pass open, or the state tracker would keep
+        // skipping GL calls for state that other renderers have since changed.
+        try {
+            scrollManager.drawScrollbars();
+
+            Optional<Interactable> interactable = findHoveredInteractable(recipe);
+            if (interactable.isPresent()) {
+                interactable.get().drawTooltip(
+                        diagramState, scrollManager.getAbsoluteMousePosition());
+            }
+        } finally {
+            GlStateTracker.endPass();
+            RenderProfiler.endPhase();
+        }
     }
 
+    /**
+     * Returns the interactable under the mouse, if any.
+     *
+     * <p>Results are cached per recipe index, and will be re-used until the mouse moves, the
+     * diagram is scrolled, or the cache is cleared by {@link #onUpdate()} or an interaction.
+     */
     protected Optional<Interactable> findHoveredInteractable(int recipe) {
+        Point mousePos = scrollManager.getAbsoluteMousePosition();
+        int horizontalScroll = scrollManager.getHorizontalScroll();
+        int verticalScroll = scrollManager.getVerticalScroll();
+
+        int index = recipe & (HOVER_CACHE_SIZE - 1);
+        HoverCacheEntry entry = hoverCache[index];
+        if (entry.matches(recipe, mousePos, horizontalScroll, verticalScroll)) {
+            return entry.interactable;
+        }
+
+        Optional<Interactable> interactable = computeHoveredInteractable(recipe);
+        entry.set(recipe, mousePos, horizontalScroll, verticalScroll, interactable);
+        return interactable;
+    }
+
+    protected void invalidateHoverCache() {
+        for (HoverCacheEntry entry : hoverCache) {
+            entry.invalidate();
+        }
+    }
+
+    /** Performs the actual hit test for {@link #findHoveredInteractable(int)}. */
+    protected Optional<Interactable> computeHoveredInteractable(int recipe) {
+        RenderProfiler.countHitTest(info, recipe);
         if (!mouseInBounds()) {
             return Optional.empty();
         }
 
         Point mousePos = scrollManager.getRelativeMousePosition(recipe);
-        for (Interactable interactable : diagrams.get(recipe).interactables(diagramState)) {
+        for (Interactable interactable : diagram(recipe).interactables(diagramState)) {
             if (interactable.checkBoundingBox(mousePos)) {
-                return Optional.of(interactable);
+                Optional<Interactable> hit = interactable.hitTest(diagramState, mousePos);
+                if (hit.isPresent()) {
+                    return hit;
+                }
             }
         }
 
         return Optional.empty();
     }
 
+    /**
+     * Gives each top-level interactable under the mouse a chance to handle a mouse wheel scroll.
+     *
+     * @return Whether the scroll was handled.
+     */
+    protected boolean scrollInteractables(int recipe, ScrollDirection direction) {
+        if (!mouseInBounds()) {
+            return false;
+        }
+
+        Point mousePos = scrollManager.getRelativeMousePosition(recipe);
+        for (Interactable interactable : diagram(recipe).interactables(diagramState)) {
+            if (interactable.checkBoundingBox(mousePos)
+                    && interactable.mouseScrolled(diagramState, direction)) {
+                // Scrolling may have changed which interactable is under the mouse.
+                invalidateHoverCache();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public boolean mouseInBounds() {
         return scrollManager.mouseInBounds();
     }
@@ -225,6 +402,8 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
         Optional<Interactable> interactable = findHoveredInteractable(recipe);
         if (interactable.isPresent()) {
             interactable.get().interact(diagramState, recipeType);
+            // Interacting may have changed diagram state.
+            invalidateHoverCache();
             return true;
         } else {
             return false;
@@ -244,7 +423,7 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
             return interact(recipe, Interactable.RecipeType.USAGE);
         }
 
-        Dimension diagramDimension = diagrams.get(recipe).dimension(diagramState);
+        Dimension diagramDimension = diagram(recipe).dimension(diagramState);
         switch (keyCode) {
             case Keyboard.KEY_UP:
                 return scrollManager.keyboardScroll(diagramDimension, ScrollDirection.UP);
@@ -290,10 +469,13 @@ public class DiagramGroup implements ICraftingHandler, IUsageHandler {
 
         if (mouseInBounds() && NEIClientUtils.shiftKey()) {
             diagramState.scroll(direction);
+            invalidateHoverCache();
             return true;
         }
 
-        if (scrollManager.mouseScroll(direction)) {
+        if (scrollInteractables(recipe, direction)) {
+            return true;
+        } else if (scrollManager.mouseScroll(direction)) {
             return true;
         } else {
             return ConfigOptions.DISABLE_PAGE_SCROLL.get();
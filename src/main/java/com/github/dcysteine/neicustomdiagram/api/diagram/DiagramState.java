@@ -1,14 +1,19 @@
 package com.github.dcysteine.neicustomdiagram.api.diagram;
 
 import codechicken.nei.NEIClientUtils;
+import com.github.dcysteine.neicustomdiagram.api.draw.Point;
 import com.github.dcysteine.neicustomdiagram.api.draw.scroll.ScrollDirection;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Class that keeps track of any mutable state for diagrams.
  *
- * <p>The base implementation just keeps track of the tick count, for cycling through groups of
- * components or animations. However, this class can be extended to include custom state.
+ * <p>The base implementation keeps track of the tick count, for cycling through groups of
+ * components or animations, and of the scroll offsets of scrollable interactables. However, this
+ * class can be extended to include custom state.
  */
 public class DiagramState {
     /**
@@ -22,8 +27,24 @@ public class DiagramState {
     /** Due to backwards scrolling, {@code ticks} may be negative! */
     private int ticks;
 
+    /**
+     * The index of the diagram currently being drawn or interacted with, within its diagram group.
+     */
+    private int diagramIndex;
+
+    /**
+     * Map of diagram index to map of interactable position to scroll offset. Only non-zero offsets
+     * are stored.
+     *
+     * <p>This is keyed by diagram index rather than by diagram, so that scroll offsets are kept
+     * even if a {@link LazyDiagramList} re-builds the diagram.
+     */
+    private final Map<Integer, Map<Point, Integer>> scrollOffsets;
+
     public DiagramState() {
         ticks = 0;
+        diagramIndex = 0;
+        scrollOffsets = new HashMap<>();
     }
 
     public void tick() {
@@ -54,6 +75,52 @@ public class DiagramState {
         return ticks / TICKS_PER_CYCLE;
     }
 
+    /**
+     * Sets the diagram that subsequent calls to {@link #scrollOffset(Point)} and
+     * {@link #setScrollOffset(Point, int)} apply to. {@link DiagramGroup} calls this before
+     * drawing or interacting with each diagram.
+     */
+    public void selectDiagram(int diagramIndex) {
+        this.diagramIndex = diagramIndex;
+    }
+
+    /**
+     * Returns the scroll offset of the scrollable interactable at {@code position}, in the
+     * currently-selected diagram.
+     */
+    public int scrollOffset(Point position) {
+        if (scrollOffsets.isEmpty()) {
+            return 0;
+        }
+
+        Map<Point, Integer> diagramScrollOffsets = scrollOffsets.get(diagramIndex);
+        if (diagramScrollOffsets == null) {
+            return 0;
+        }
+        return diagramScrollOffsets.getOrDefault(position, 0);
+    }
+
+    /**
+     * Sets the scroll offset of the scrollable interactable at {@code position}, in the
+     * currently-selected diagram.
+     */
+    public void setScrollOffset(Point position, int scrollOffset) {
+        if (scrollOffset == 0) {
+            Map<Point, Integer> diagramScrollOffsets = scrollOffsets.get(diagramIndex);
+            if (diagramScrollOffsets != null) {
+                diagramScrollOffsets.remove(position);
+                if (diagramScrollOffsets.isEmpty()) {
+                    scrollOffsets.remove(diagramIndex);
+                }
+            }
+            return;
+        }
+
+        scrollOffsets
+                .computeIfAbsent(diagramIndex, k -> new HashMap<>())
+                .put(position, scrollOffset);
+    }
+
     public int cycleIndex(int maxIndex) {
         // Because cycle() can be negative, we must not use the modulus (%) operator here.
         //
@@ -0,0 +1,308 @@
+package com.github.dcysteine.neicustomdiagram.api.diagram;
+
+import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
+import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
+import com.github.dcysteine.neicustomdiagram.api.draw.GlStateTracker;
+import com.github.dcysteine.neicustomdiagram.api.draw.RenderProfiler;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
+import com.github.dcysteine.neicustomdiagram.main.Logger;
+import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.ScaledResolution;
+import net.minecraft.client.renderer.OpenGlHelper;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.shader.Framebuffer;
+import org.lwjgl.opengl.GL11;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Optional render path which draws the static background layer of a diagram once into an
+ * off-screen framebuffer, and then just draws that framebuffer's texture every frame.
+ *
+ * <p>Only diagrams whose {@link Diagram#hasStaticBackground()} returns {@code true} are cached.
+ * Interactables, including animated component cycles and the hover highlight, are still drawn live
+ * on top.
+ *
+ * <p>The framebuffer holds premultiplied alpha: colours are blended into it as usual, but alpha is
+ * accumulated separately, so that semi-transparent pixels aren't darkened when the texture is
+ * drawn. The texture is then drawn with premultiplied-alpha blending.
+ *
+ * <p>If framebuffers are unavailable or disabled, or if anything goes wrong while setting one up,
+ * {@link #prepare(Diagram, DiagramState)} will return {@code false} and the caller should fall back
+ * to drawing the background directly.
+ *
+ * <p>This class is not thread-safe, and should only be used from the render thread.
+ */
+public final class FramebufferCache {
+    /**
+     * The maximum number of framebuffers to keep around. NEI shows a handful of diagrams per page,
+     * so this only needs to be large enough to hold a page's worth.
+     */
+    private static final int MAX_ENTRIES = 4;
+
+    /**
+     * Extra space on each side of the diagram, to make sure that nothing drawn just past its edges
+     * gets cut off. The diagram is drawn offset by this much into the framebuffer, and the texture
+     * is drawn offset by the same amount back.
+     */
+    private static final int PADDING = 2;
+
+    /** Struct class holding a framebuffer, along with the inputs it was rendered from. */
+    private static final class Entry {
+        private final Framebuffer framebuffer;
+        private final Dimension dimension;
+        private final int scaleFactor;
+        private final int epoch;
+
+        private Entry(Framebuffer framebuffer, Dimension dimension, int scaleFactor, int epoch) {
+            this.framebuffer = framebuffer;
+            this.dimension = dimension;
+            this.scaleFactor = scaleFactor;
+            this.epoch = epoch;
+        }
+
+        private boolean matches(Dimension dimension, int scaleFactor, int epoch) {
+            return this.dimension.equals(dimension)
+                    && this.scaleFactor == scaleFactor
+                    && this.epoch == epoch;
+        }
+    }
+
+    /**
+     * Least-recently-used map of diagram to its cached background. Keyed on diagram identity,
+     * since diagrams are immutable.
+     */
+    private static final Map<Diagram, Entry> entries =
+            new LinkedHashMap<Diagram, Entry>(MAX_ENTRIES, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Diagram, Entry> eldest) {
+                    if (size() > MAX_ENTRIES) {
+                        eldest.getValue().framebuffer.deleteFramebuffer();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    /** Set if we ever fail to create a framebuffer, so that we don't keep retrying every frame. */
+    private static boolean failed = false;
+
+    // Cached GUI scale factor, along with the inputs it was computed from.
+    private static int scaleFactor = 1;
+    private static int lastDisplayWidth = -1;
+    private static int lastDisplayHeight = -1;
+    private static int lastGuiScale = -1;
+
+    // Static class.
+    private FramebufferCache() {}
+
+    /** Returns whether this render path is both enabled and supported. */
+    public static boolean isEnabled() {
+        if (!ConfigOptions.FRAMEBUFFER_CACHE.get() || failed
+                || !OpenGlHelper.isFramebufferEnabled()) {
+            if (!entries.isEmpty()) {
+                clear();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Makes sure that an up-to-date cached background exists for the given diagram, rendering it
+     * if necessary.
+     *
+     * <p>This must be called with no scissor test or scroll transformation active, so it should be
+     * called before {@link com.github.dcysteine.neicustomdiagram.api.draw.scroll.ScrollManager
+     * #beforeDraw()}.
+     *
+     * @return Whether a cached background is available. If not, the caller should fall back to
+     *     calling {@link Diagram#drawBackground(DiagramState)}.
+     */
+    public static boolean prepare(Diagram diagram, DiagramState diagramState) {
+        if (!isEnabled() || !diagram.hasStaticBackground()) {
+            return false;
+        }
+
+        Minecraft minecraft = Minecraft.getMinecraft();
+        Dimension dimension = diagram.dimension(diagramState);
+        int scaleFactor = scaleFactor(minecraft);
+        int epoch = TextMetrics.epoch();
+
+        Entry entry = entries.get(diagram);
+        if (entry != null && entry.matches(dimension, scaleFactor, epoch)) {
+            return true;
+        }
+
+        int width = (dimension.width() + 2 * PADDING) * scaleFactor;
+        int height = (dimension.height() + 2 * PADDING) * scaleFactor;
+        if (width > Minecraft.getGLMaximumTextureSize()
+                || height > Minecraft.getGLMaximumTextureSize()) {
+            // Too big to fit in a texture; just draw this one directly.
+            return false;
+        }
+
+        Framebuffer framebuffer;
+        if (entry != null) {
+            framebuffer = entry.framebuffer;
+        } else {
+            try {
+                framebuffer = new Framebuffer(width, height, true);
+            } catch (RuntimeException e) {
+                Logger.MOD.warn(
+                        "Could not create framebuffer; disabling framebuffer cache.", e);
+                failed = true;
+                return false;
+            }
+        }
+
+        try {
+            if (framebuffer.framebufferWidth != width
+                    || framebuffer.framebufferHeight != height) {
+                framebuffer.createBindFramebuffer(width, height);
+            }
+            render(minecraft, framebuffer, diagram, diagramState, dimension);
+        } catch (RuntimeException e) {
+            Logger.MOD.warn("Could not render to framebuffer; disabling framebuffer cache.", e);
+            framebuffer.deleteFramebuffer();
+            entries.remove(diagram);
+            minecraft.getFramebuffer().bindFramebuffer(true);
+            failed = true;
+            return false;
+        }
+
+        entries.put(diagram, new Entry(framebuffer, dimension, scaleFactor, epoch));
+        return true;
+    }
+
+    /**
+     * Draws the cached background for the given diagram, which must have been successfully
+     * prepared by {@link #prepare(Diagram, DiagramState)} this frame.
+     *
+     * <p>This should be called in the same coordinate context as
+     * {@link Diagram#drawBackground(DiagramState)}. The whole texture is drawn, and the scroll
+     * manager's scissor region clips it to the visible area.
+     */
+    public static void draw(Diagram diagram) {
+        Entry entry = entries.get(diagram);
+        if (entry == null) {
+            return;
+        }
+
+        int left = -PADDING;
+        int top = -PADDING;
+        int right = entry.dimension.width() + PADDING;
+        int bottom = entry.dimension.height() + PADDING;
+
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
+        GlStateTracker.setColour(Draw.Colour.WHITE);
+        GL11.glEnable(GL11.GL_BLEND);
+        // The texture's colours have already been multiplied by alpha.
+        OpenGlHelper.glBlendFunc(
+                GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        entry.framebuffer.bindFramebufferTexture();
+
+        // Framebuffer textures are upside-down, because OpenGL measures from the bottom-left.
+        RenderProfiler.countDrawCall();
+        Tessellator tessellator = Tessellator.instance;
+        tessellator.startDrawingQuads();
+        tessellator.addVertexWithUV(left, bottom, 0, 0, 0);
+        tessellator.addVertexWithUV(right, bottom, 0, 1, 0);
+        tessellator.addVertexWithUV(right, top, 0, 1, 1);
+        tessellator.addVertexWithUV(left, top, 0, 0, 1);
+        tessellator.draw();
+
+        entry.framebuffer.unbindFramebufferTexture();
+        restoreBlendFunc();
+        GL11.glDisable(GL11.GL_BLEND);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
+    }
+
+    /** Deletes all cached framebuffers. */
+    public static void clear() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().framebuffer.deleteFramebuffer();
+            iterator.remove();
+        }
+    }
+
+    private static void render(
+            Minecraft minecraft, Framebuffer framebuffer, Diagram diagram,
+            DiagramState diagramState, Dimension dimension) {
+        boolean scissor = GL11.glIsEnabled(GL11.GL_SCISSOR_TEST);
+        boolean blend = GL11.glIsEnabled(GL11.GL_BLEND);
+        GL11.glDisable(GL11.GL_SCISSOR_TEST);
+
+        framebuffer.setFramebufferColor(0, 0, 0, 0);
+        framebuffer.framebufferClear();
+        framebuffer.bindFramebuffer(true);
+
+        // Same projection as Minecraft uses for GUIs, but sized to the diagram.
+        GL11.glMatrixMode(GL11.GL_PROJECTION);
+        GL11.glPushMatrix();
+        GL11.glLoadIdentity();
+        GL11.glOrtho(
+                0, dimension.width() + 2 * PADDING, dimension.height() + 2 * PADDING, 0,
+                1000, 3000);
+        GL11.glMatrixMode(GL11.GL_MODELVIEW);
+        GL11.glPushMatrix();
+        GL11.glLoadIdentity();
+        GL11.glTranslatef(PADDING, PADDING, -2000);
+
+        // Blend colours as usual, but accumulate alpha with ONE rather than SRC_ALPHA, so that the
+        // framebuffer ends up holding premultiplied colours with the correct coverage. Anything
+        // which sets its own blend function will override this for its own draws, so it's only a
+        // best effort for those.
+        GL11.glEnable(GL11.GL_BLEND);
+        OpenGlHelper.glBlendFunc(
+                GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA,
+                GL11.GL_ONE, GL11.GL_ONE_MINUS_SRC_ALPHA);
+
+        try {
+            GlStateTracker.beginPass();
+            GlStateTracker.setColour(Draw.Colour.WHITE);
+            diagram.drawBackground(diagramState);
+        } finally {
+            GlStateTracker.endPass();
+
+            GL11.glMatrixMode(GL11.GL_PROJECTION);
+            GL11.glPopMatrix();
+            GL11.glMatrixMode(GL11.GL_MODELVIEW);
+            GL11.glPopMatrix();
+
+            restoreBlendFunc();
+            if (!blend) {
+                GL11.glDisable(GL11.GL_BLEND);
+            }
+
+            minecraft.getFramebuffer().bindFramebuffer(true);
+            if (scissor) {
+                GL11.glEnable(GL11.GL_SCISSOR_TEST);
+            }
+        }
+    }
+
+    /** Restores Minecraft's usual blend function. */
+    private static void restoreBlendFunc() {
+        OpenGlHelper.glBlendFunc(
+                GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA, GL11.GL_ONE, GL11.GL_ZERO);
+    }
+
+    private static int scaleFactor(Minecraft minecraft) {
+        if (minecraft.displayWidth != lastDisplayWidth
+                || minecraft.displayHeight != lastDisplayHeight
+                || minecraft.gameSettings.guiScale != lastGuiScale) {
+            lastDisplayWidth = minecraft.displayWidth;
+            lastDisplayHeight = minecraft.displayHeight;
+            lastGuiScale = minecraft.gameSettings.guiScale;
+            scaleFactor =
+                    new ScaledResolution(minecraft, lastDisplayWidth, lastDisplayHeight)
+                            .getScaleFactor();
+        }
+        return scaleFactor;
+    }
+}
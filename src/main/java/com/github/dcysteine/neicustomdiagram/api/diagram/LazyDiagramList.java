@@ -0,0 +1,62 @@
+package com.github.dcysteine.neicustomdiagram.api.diagram;
+
+import com.google.common.base.Preconditions;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * List of diagrams which are only built when they are first displayed.
+ *
+ * <p>This is intended for diagram generators which can produce a very large number of diagrams,
+ * most of which will never be looked at. Only the most recently accessed diagrams are kept; others
+ * will be rebuilt if they are needed again.
+ *
+ * <p>{@link DiagramGroup} keeps lists of this type as-is, rather than copying them. For the same
+ * reason, the empty diagram filter is not applied to them, so {@code diagramBuilder} should not
+ * return empty diagrams.
+ */
+public final class LazyDiagramList extends AbstractList<Diagram> implements RandomAccess {
+    private final int size;
+    private final IntFunction<Diagram> diagramBuilder;
+    private final int maxCachedDiagrams;
+
+    /** Least-recently-used map of index to diagram. */
+    private final Map<Integer, Diagram> cache;
+
+    /**
+     * @param size the number of diagrams in this list.
+     * @param diagramBuilder builds the diagram at the given index.
+     * @param maxCachedDiagrams the maximum number of built diagrams to keep.
+     */
+    public LazyDiagramList(int size, IntFunction<Diagram> diagramBuilder, int maxCachedDiagrams) {
+        Preconditions.checkArgument(size >= 0, "Negative size: %s", size);
+        Preconditions.checkArgument(
+                maxCachedDiagrams > 0, "Cache size must be positive: %s", maxCachedDiagrams);
+
+        this.size = size;
+        this.diagramBuilder = diagramBuilder;
+        this.maxCachedDiagrams = maxCachedDiagrams;
+        this.cache =
+                new LinkedHashMap<Integer, Diagram>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Integer, Diagram> eldest) {
+                        return size() > LazyDiagramList.this.maxCachedDiagrams;
+                    }
+                };
+    }
+
+    @Override
+    public Diagram get(int index) {
+        Preconditions.checkElementIndex(index, size);
+        return cache.computeIfAbsent(index, diagramBuilder::apply);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
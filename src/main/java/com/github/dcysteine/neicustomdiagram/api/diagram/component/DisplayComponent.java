@@ -5,7 +5,10 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactab
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.TextFormatting;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
 import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
+import com.github.dcysteine.neicustomdiagram.api.draw.FluidBatch;
 import com.github.dcysteine.neicustomdiagram.api.draw.Point;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
+import com.github.dcysteine.neicustomdiagram.api.draw.Vector;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
 import com.google.auto.value.AutoValue;
@@ -35,6 +38,89 @@ public abstract class DisplayComponent implements Comparable<DisplayComponent> {
     /** NBT strings will be split if they are too long. */
     private static final Splitter NBT_SPLITTER = Splitter.fixedLength(64);
 
+    /**
+     * Struct class holding pre-computed text and positions for the stack size and additional info
+     * drawn over this component.
+     */
+    private static final class OverlayRenderData {
+        private final int epoch;
+        private final boolean showStackSizeOne;
+
+        @Nullable private final String stackSizeText;
+        private final boolean stackSizeSmall;
+        private final int stackSizeOffsetX;
+        private final int stackSizeOffsetY;
+
+        @Nullable private final String additionalInfoText;
+        private final int additionalInfoOffsetX;
+        private final int additionalInfoOffsetY;
+
+        private OverlayRenderData(
+                DisplayComponent displayComponent, int epoch, boolean showStackSizeOne) {
+            this.epoch = epoch;
+            this.showStackSizeOne = showStackSizeOne;
+
+            Optional<Integer> stackSizeOptional = displayComponent.stackSize();
+            int stackSize = stackSizeOptional.orElse(0);
+            if (stackSizeOptional.isPresent()
+                    && shouldDrawStackSize(displayComponent.type(), stackSize, showStackSizeOne)) {
+                stackSizeText = Draw.formatStackSize(stackSize);
+                stackSizeSmall = Draw.isStackSizeSmall(stackSize);
+                Vector offset =
+                        Draw.textOverIconOffset(
+                                stackSizeText, Draw.STACK_SIZE_DIRECTION, stackSizeSmall);
+                stackSizeOffsetX = offset.x();
+                stackSizeOffsetY = offset.y();
+            } else {
+                stackSizeText = null;
+                stackSizeSmall = false;
+                stackSizeOffsetX = 0;
+                stackSizeOffsetY = 0;
+            }
+
+            additionalInfoText = displayComponent.additionalInfo().orElse(null);
+            if (additionalInfoText != null) {
+                Vector offset =
+                        Draw.textOverIconOffset(
+                                additionalInfoText, Draw.ADDITIONAL_INFO_DIRECTION, true);
+                additionalInfoOffsetX = offset.x();
+                additionalInfoOffsetY = offset.y();
+            } else {
+                additionalInfoOffsetX = 0;
+                additionalInfoOffsetY = 0;
+            }
+        }
+
+        private boolean matches(int epoch, boolean showStackSizeOne) {
+            return this.epoch == epoch && this.showStackSizeOne == showStackSizeOne;
+        }
+
+        private static boolean shouldDrawStackSize(
+                Component.ComponentType type, int stackSize, boolean showStackSizeOne) {
+            switch (type) {
+                case ITEM:
+                    // Special handling of stack size 1, where we'll not show the stack size unless
+                    // it is enabled by config.
+                    //
+                    // Not showing stack size 1 is consistent with Minecraft's default behavior, and
+                    // also avoids covering up display of things like Tinker's Construct tools with
+                    // ammo counts.
+                    return showStackSizeOne || stackSize != 1;
+
+                case FLUID:
+                    return true;
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Lazily computed overlay render data. Not part of the value of this class, so it is excluded
+     * from {@code equals()} and {@code hashCode()}.
+     */
+    @Nullable private OverlayRenderData overlayRenderData;
+
     public abstract Component component();
     public abstract Optional<Integer> stackSize();
 
@@ -92,29 +178,42 @@ public abstract class DisplayComponent implements Comparable<DisplayComponent> {
     public void draw(Point pos) {
         component().draw(pos);
 
-        if (stackSize().isPresent()) {
-            int stackSize = stackSize().get();
-            switch (type()) {
-                case ITEM:
-                    // Special handling of stack size 1, where we'll not show the stack size unless
-                    // it is enabled by config.
-                    //
-                    // Not showing stack size 1 is consistent with Minecraft's default behavior, and
-                    // also avoids covering up display of things like Tinker's Construct tools with
-                    // ammo counts.
-                    if (ConfigOptions.SHOW_STACK_SIZE_ONE.get() || stackSize != 1) {
-                        Draw.drawStackSize(stackSize, pos);
-                    }
-                    break;
+        if (type() == Component.ComponentType.FLUID && FluidBatch.isActive()) {
+            // The fluid icon won't be drawn until the batch is flushed, so our text must wait too.
+            FluidBatch.deferOverlays(this, pos);
+        } else {
+            drawOverlays(pos);
+        }
+    }
 
-                case FLUID:
-                    Draw.drawStackSize(stackSize, pos);
-                    break;
-            }
+    /** Draws the stack size and additional info text on top of the component. */
+    public void drawOverlays(Point pos) {
+        OverlayRenderData data = overlayRenderData();
+        if (data.stackSizeText != null) {
+            Draw.drawText(
+                    data.stackSizeText,
+                    pos.x() + data.stackSizeOffsetX, pos.y() + data.stackSizeOffsetY,
+                    Draw.STACK_SIZE_COLOUR, data.stackSizeSmall, true);
+        }
+        if (data.additionalInfoText != null) {
+            Draw.drawText(
+                    data.additionalInfoText,
+                    pos.x() + data.additionalInfoOffsetX, pos.y() + data.additionalInfoOffsetY,
+                    Draw.ADDITIONAL_INFO_COLOUR, true, true);
         }
+    }
 
-        additionalInfo().ifPresent(
-                additionalInfo -> Draw.drawAdditionalInfo(additionalInfo, pos, true));
+    /**
+     * Returns overlay render data, re-computing it only if the text metrics or the
+     * {@link ConfigOptions#SHOW_STACK_SIZE_ONE} option have changed.
+     */
+    private OverlayRenderData overlayRenderData() {
+        int epoch = TextMetrics.epoch();
+        boolean showStackSizeOne = ConfigOptions.SHOW_STACK_SIZE_ONE.get();
+        if (overlayRenderData == null || !overlayRenderData.matches(epoch, showStackSizeOne)) {
+            overlayRenderData = new OverlayRenderData(this, epoch, showStackSizeOne);
+        }
+        return overlayRenderData;
     }
 
     @ToPrettyString
@@ -0,0 +1,178 @@
+package com.github.dcysteine.neicustomdiagram.api.diagram.component;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * An indexed sequence of display components, such as the components cycled through in a slot.
+ *
+ * <p>Component cycles can get very large (for example, ore dictionary entries or wildcard items
+ * with many sub-items), but only one element is displayed at a time. Sequences created with
+ * {@link #lazy(List, Function)} only build each display component when it is requested, and keep
+ * a small cache of the most recently requested ones.
+ */
+public abstract class DisplayComponentSequence implements Iterable<DisplayComponent> {
+    public abstract int size();
+
+    /** @throws IndexOutOfBoundsException if {@code index} is out of range. */
+    public abstract DisplayComponent get(int index);
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** Returns an unmodifiable list view of this sequence. */
+    public List<DisplayComponent> asList() {
+        return new AbstractList<DisplayComponent>() {
+            @Override
+            public DisplayComponent get(int index) {
+                return DisplayComponentSequence.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return DisplayComponentSequence.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<DisplayComponent> iterator() {
+        return new Iterator<DisplayComponent>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public DisplayComponent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(index++);
+            }
+        };
+    }
+
+    /**
+     * Returns a sequence containing the given components.
+     *
+     * <p>If {@code components} is already a sequence, it is returned as-is, without evaluating
+     * any lazy elements. Otherwise, the components are copied.
+     */
+    public static DisplayComponentSequence of(Iterable<DisplayComponent> components) {
+        if (components instanceof DisplayComponentSequence) {
+            return (DisplayComponentSequence) components;
+        }
+        return new EagerSequence(ImmutableList.copyOf(components));
+    }
+
+    public static DisplayComponentSequence of(DisplayComponent... components) {
+        return new EagerSequence(ImmutableList.copyOf(components));
+    }
+
+    /**
+     * Returns a sequence which transforms elements of {@code sources} into display components on
+     * demand.
+     *
+     * <p>{@code transformer} should be a pure function, as it may be called more than once for the
+     * same element.
+     */
+    public static <T> DisplayComponentSequence lazy(
+            List<T> sources, Function<? super T, DisplayComponent> transformer) {
+        return new LazySequence<>(ImmutableList.copyOf(sources), transformer);
+    }
+
+    private static final class EagerSequence extends DisplayComponentSequence {
+        private final ImmutableList<DisplayComponent> components;
+
+        private EagerSequence(ImmutableList<DisplayComponent> components) {
+            this.components = components;
+        }
+
+        @Override
+        public int size() {
+            return components.size();
+        }
+
+        @Override
+        public DisplayComponent get(int index) {
+            return components.get(index);
+        }
+
+        @Override
+        public List<DisplayComponent> asList() {
+            return components;
+        }
+
+        @Override
+        public Iterator<DisplayComponent> iterator() {
+            return components.iterator();
+        }
+    }
+
+    private static final class LazySequence<T> extends DisplayComponentSequence {
+        /**
+         * Must be a power of 2.
+         *
+         * <p>Only the displayed element and the one for the tooltip are usually needed at any one
+         * time, with the next element becoming needed when the cycle advances.
+         */
+        private static final int CACHE_SIZE = 4;
+
+        /**
+         * Struct class holding a cached display component, along with its index. Immutable, so that
+         * cache reads can't see a partially-updated entry.
+         */
+        private static final class CacheEntry {
+            private final int index;
+            private final DisplayComponent component;
+
+            private CacheEntry(int index, DisplayComponent component) {
+                this.index = index;
+                this.component = component;
+            }
+        }
+
+        private final ImmutableList<T> sources;
+        private final Function<? super T, DisplayComponent> transformer;
+
+        /** Direct-mapped cache of index to display component. */
+        private final CacheEntry[] cache;
+
+        private LazySequence(
+                ImmutableList<T> sources, Function<? super T, DisplayComponent> transformer) {
+            this.sources = sources;
+            this.transformer = transformer;
+            this.cache = new CacheEntry[CACHE_SIZE];
+        }
+
+        @Override
+        public int size() {
+            return sources.size();
+        }
+
+        @Override
+        public DisplayComponent get(int index) {
+            Preconditions.checkElementIndex(index, sources.size());
+
+            int cacheIndex = index & (CACHE_SIZE - 1);
+            CacheEntry entry = cache[cacheIndex];
+            if (entry != null && entry.index == index) {
+                return entry.component;
+            }
+
+            DisplayComponent component = transformer.apply(sources.get(index));
+            cache[cacheIndex] = new CacheEntry(index, component);
+            return component;
+        }
+    }
+}
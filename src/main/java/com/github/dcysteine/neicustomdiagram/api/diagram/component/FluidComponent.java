@@ -4,6 +4,7 @@ import codechicken.nei.recipe.GuiCraftingRecipe;
 import codechicken.nei.recipe.GuiUsageRecipe;
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactable;
 import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
+import com.github.dcysteine.neicustomdiagram.api.draw.FluidBatch;
 import com.github.dcysteine.neicustomdiagram.api.draw.Point;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
 import com.google.auto.value.AutoValue;
@@ -13,6 +14,7 @@ import net.minecraftforge.fluids.Fluid;
 import net.minecraftforge.fluids.FluidRegistry;
 import net.minecraftforge.fluids.FluidStack;
 
+import javax.annotation.Nullable;
 import java.util.Comparator;
 import java.util.Optional;
 
@@ -26,6 +28,12 @@ public abstract class FluidComponent implements Component {
 
     public static final int DEFAULT_STACK_SIZE = 1_000;
 
+    /**
+     * Lazily resolved fluid icon and colour. Not part of the value of this class, so it is excluded
+     * from {@code equals()} and {@code hashCode()}.
+     */
+    @Nullable private FluidBatch.RenderData renderData;
+
     public static FluidComponent create(Fluid fluid, Optional<NBTTagCompound> nbt) {
         return new AutoValue_FluidComponent(fluid, nbt.map(ImmutableNbtWrapper::create));
     }
@@ -117,7 +125,10 @@ public abstract class FluidComponent implements Component {
 
     @Override
     public void draw(Point pos) {
-        Draw.drawFluid(fluid(), pos);
+        if (renderData == null || !renderData.isValid()) {
+            renderData = FluidBatch.RenderData.create(fluid());
+        }
+        Draw.drawFluid(renderData, pos);
     }
 
     @Override
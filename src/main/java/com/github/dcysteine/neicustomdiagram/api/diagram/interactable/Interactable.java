@@ -3,6 +3,9 @@ package com.github.dcysteine.neicustomdiagram.api.diagram.interactable;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramState;
 import com.github.dcysteine.neicustomdiagram.api.draw.BoundedDrawable;
 import com.github.dcysteine.neicustomdiagram.api.draw.Point;
+import com.github.dcysteine.neicustomdiagram.api.draw.scroll.ScrollDirection;
+
+import java.util.Optional;
 
 /**
  * This interface represents anything that is drawn on the screen and can be moused over or clicked
@@ -37,6 +40,27 @@ public interface Interactable extends BoundedDrawable {
         // Default implementation is to do nothing.
     }
 
+    /**
+     * Method that is called when the mouse wheel is scrolled over an interactable.
+     *
+     * @return Whether the scroll was handled. If not, the scroll will be handled as usual.
+     */
+    default boolean mouseScrolled(DiagramState diagramState, ScrollDirection direction) {
+        return false;
+    }
+
+    /**
+     * Returns the interactable at the specified point, which is only called if the point is within
+     * this interactable's bounding box.
+     *
+     * <p>Interactables which contain other interactables, such as
+     * {@link ScrollableComponentGroup}, should override this to return the one under the point,
+     * or empty if there is none.
+     */
+    default Optional<Interactable> hitTest(DiagramState diagramState, Point target) {
+        return Optional.of(this);
+    }
+
     /** Returns whether the specified point is inside this interactable's bounding box. */
     default boolean checkBoundingBox(Point target) {
         boolean withinX = (target.x() >= position().x() - dimension().width() / 2)
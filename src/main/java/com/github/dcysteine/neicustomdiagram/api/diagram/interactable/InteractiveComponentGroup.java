@@ -4,6 +4,7 @@ import codechicken.nei.NEIClientUtils;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramState;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponentSequence;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Slot;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
 import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
@@ -12,26 +13,74 @@ import com.github.dcysteine.neicustomdiagram.api.draw.Point;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import net.minecraft.client.Minecraft;
 import net.minecraft.item.ItemStack;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 /**
  * An interactive component group.
  *
- * <p>If the component group contains multiple components, they will be cycled through.
+ * <p>If the component group contains multiple components, they will be cycled through. Only the
+ * current component is needed at any one time, so the components may be a lazily-evaluated
+ * {@link DisplayComponentSequence}.
  */
 public class InteractiveComponentGroup implements Interactable {
+    /**
+     * How long a built tooltip will be re-used for, in milliseconds.
+     *
+     * <p>Some item tooltips are dynamic, so we can't cache them forever, but rebuilding them every
+     * frame is expensive for items with long tooltips.
+     */
+    public static final long TOOLTIP_CACHE_MILLIS = 500;
+
     protected final Point position;
 
     /** Guaranteed to be non-empty. */
-    protected final ImmutableList<DisplayComponent> components;
+    protected final DisplayComponentSequence components;
 
     /** Tooltip which will be drawn before annotated component tooltips. Meant for slot tooltips. */
     protected final Tooltip slotTooltip;
 
+    /** The most recently built tooltip, if any. See {@link #buildTooltip(DiagramState)}. */
+    @Nullable
+    protected CachedTooltip cachedTooltip;
+
+    /** Struct class holding a built tooltip, along with the state that it was built for. */
+    protected static final class CachedTooltip {
+        private final int index;
+        private final boolean shiftKey;
+        private final boolean controlKey;
+        private final boolean showIds;
+        private final boolean advancedItemTooltips;
+        private final long expiryTime;
+        private final Tooltip tooltip;
+
+        private CachedTooltip(
+                int index, boolean shiftKey, boolean controlKey, boolean showIds,
+                boolean advancedItemTooltips, long expiryTime, Tooltip tooltip) {
+            this.index = index;
+            this.shiftKey = shiftKey;
+            this.controlKey = controlKey;
+            this.showIds = showIds;
+            this.advancedItemTooltips = advancedItemTooltips;
+            this.expiryTime = expiryTime;
+            this.tooltip = tooltip;
+        }
+
+        private boolean matches(
+                int index, boolean shiftKey, boolean controlKey, boolean showIds,
+                boolean advancedItemTooltips, long time) {
+            return this.index == index
+                    && this.shiftKey == shiftKey
+                    && this.controlKey == controlKey
+                    && this.showIds == showIds
+                    && this.advancedItemTooltips == advancedItemTooltips
+                    && time < expiryTime;
+        }
+    }
+
     /**
      * This class is really intended to be used with slots. If you're calling this constructor,
      * consider using {@link CustomInteractable} instead.
@@ -39,7 +88,7 @@ public class InteractiveComponentGroup implements Interactable {
     public InteractiveComponentGroup(
             Point pos, Iterable<DisplayComponent> components, Tooltip slotTooltip) {
         this.position = pos;
-        this.components = ImmutableList.copyOf(components);
+        this.components = DisplayComponentSequence.of(components);
         this.slotTooltip = slotTooltip;
 
         Preconditions.checkState(
@@ -47,7 +96,7 @@ public class InteractiveComponentGroup implements Interactable {
     }
 
     public InteractiveComponentGroup(Slot slot, DisplayComponent... components) {
-        this(slot.position(), ImmutableList.copyOf(components), slot.tooltip());
+        this(slot.position(), DisplayComponentSequence.of(components), slot.tooltip());
     }
 
     public InteractiveComponentGroup(Slot slot, Iterable<DisplayComponent> components) {
@@ -80,7 +129,7 @@ public class InteractiveComponentGroup implements Interactable {
         }
 
         int numComponents = Math.min(components.size(), maxComponents);
-        List<DisplayComponent> tooltipComponents = components.subList(0, numComponents);
+        List<DisplayComponent> tooltipComponents = components.asList().subList(0, numComponents);
         Tooltip.Builder builder =
                 Tooltip.builder()
                         .setFormatting(Tooltip.INFO_FORMATTING)
@@ -127,6 +176,39 @@ public class InteractiveComponentGroup implements Interactable {
 
     @Override
     public void drawTooltip(DiagramState diagramState, Point mousePos) {
+        buildTooltip(diagramState).draw(mousePos);
+    }
+
+    /**
+     * Returns the full tooltip for the current component.
+     *
+     * <p>The tooltip will be re-used for up to {@link #TOOLTIP_CACHE_MILLIS}, as long as the
+     * current component and any other state that affects the tooltip's contents stay the same.
+     */
+    protected Tooltip buildTooltip(DiagramState diagramState) {
+        int index = currentIndex(diagramState);
+        boolean shiftKey = NEIClientUtils.shiftKey();
+        boolean controlKey = NEIClientUtils.controlKey();
+        boolean showIds = ConfigOptions.SHOW_IDS.get();
+        boolean advancedItemTooltips = Minecraft.getMinecraft().gameSettings.advancedItemTooltips;
+        long time = Minecraft.getSystemTime();
+
+        if (cachedTooltip != null
+                && cachedTooltip.matches(
+                        index, shiftKey, controlKey, showIds, advancedItemTooltips, time)) {
+            return cachedTooltip.tooltip;
+        }
+
+        Tooltip tooltip = computeTooltip(diagramState);
+        cachedTooltip =
+                new CachedTooltip(
+                        index, shiftKey, controlKey, showIds, advancedItemTooltips,
+                        time + TOOLTIP_CACHE_MILLIS, tooltip);
+        return tooltip;
+    }
+
+    /** Builds the full tooltip for the current component, without any caching. */
+    protected Tooltip computeTooltip(DiagramState diagramState) {
         DisplayComponent component = currentComponent(diagramState);
 
         Tooltip itemStackTooltip = Tooltip.EMPTY_TOOLTIP;
@@ -146,9 +228,8 @@ public class InteractiveComponentGroup implements Interactable {
                             .build();
         }
 
-        Tooltip.concat(
-                        component.descriptionTooltip(), slotTooltip, component.additionalTooltip(),
-                        itemStackTooltip, cycleTooltip(diagramState))
-                .draw(mousePos);
+        return Tooltip.concat(
+                component.descriptionTooltip(), slotTooltip, component.additionalTooltip(),
+                itemStackTooltip, cycleTooltip(diagramState));
     }
 }
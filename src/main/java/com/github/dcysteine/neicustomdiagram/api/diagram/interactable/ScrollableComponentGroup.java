@@ -0,0 +1,260 @@
+package com.github.dcysteine.neicustomdiagram.api.diagram.interactable;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramState;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponentSequence;
+import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Slot;
+import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
+import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
+import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
+import com.github.dcysteine.neicustomdiagram.api.draw.Point;
+import com.github.dcysteine.neicustomdiagram.api.draw.scroll.ScrollDirection;
+import com.github.dcysteine.neicustomdiagram.main.Lang;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A group of slots showing a window onto an arbitrarily long sequence of entries, which can be
+ * scrolled through with the mouse wheel. Each entry is a {@link DisplayComponentSequence}, which
+ * will be cycled through just like {@link InteractiveComponentGroup}.
+ *
+ * <p>Only the entries currently in view are laid out, drawn, and hit-tested, so the per-frame cost
+ * depends only on the number of slots, not on the number of entries.
+ *
+ * <p>Scrolling moves the window by one row at a time. The scroll offset is kept in
+ * {@link DiagramState}, keyed by this group's position, as diagrams may be shared between several
+ * NEI windows.
+ */
+public class ScrollableComponentGroup implements Interactable {
+    /** The slots to display entries in, ordered left-to-right, then top-to-bottom. */
+    protected final ImmutableList<Slot> slots;
+
+    /** The number of slots per row. */
+    protected final int columns;
+
+    /** May be a lazily-evaluated view, so elements should only be fetched when needed. */
+    protected final List<DisplayComponentSequence> entries;
+
+    protected final Point position;
+    protected final Dimension dimension;
+
+    /**
+     * Cache of lazily-built interactables for the entries most recently shown, indexed by slot.
+     * Entries are only re-built once they have been scrolled out of their slot.
+     *
+     * <p>This is only a cache: the interactable for an entry depends only on the entry and the
+     * slot, not on any diagram state.
+     */
+    protected final InteractiveComponentGroup[] visibleGroups;
+    protected final int[] visibleEntries;
+
+    /** Endpoints of the scroll indicator's track, which only depend on our position and size. */
+    protected final Point trackStart;
+    protected final Point trackEnd;
+
+    /**
+     * Endpoints of the scroll indicator's thumb, cached for the first entry that they were last
+     * computed for, so that they are only re-built when the group is scrolled.
+     */
+    private int thumbFirstEntry;
+    private Point thumbStart;
+    private Point thumbEnd;
+
+    protected ScrollableComponentGroup(
+            List<Slot> slots, int columns, List<DisplayComponentSequence> entries) {
+        Preconditions.checkArgument(!slots.isEmpty(), "Must contain at least one slot!");
+        Preconditions.checkArgument(columns > 0, "Columns too small: %d", columns);
+
+        this.slots = ImmutableList.copyOf(slots);
+        this.columns = columns;
+        this.entries = entries;
+
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (Slot slot : this.slots) {
+            int halfWidth = slot.slotWidth() / 2;
+            minX = Math.min(minX, slot.position().x() - halfWidth);
+            minY = Math.min(minY, slot.position().y() - halfWidth);
+            maxX = Math.max(maxX, slot.position().x() + halfWidth);
+            maxY = Math.max(maxY, slot.position().y() + halfWidth);
+        }
+        this.position = Point.create((minX + maxX) / 2, (minY + maxY) / 2);
+        this.dimension = Dimension.create(maxX - minX, maxY - minY);
+
+        this.visibleGroups = new InteractiveComponentGroup[this.slots.size()];
+        this.visibleEntries = new int[this.slots.size()];
+        Arrays.fill(visibleEntries, -1);
+
+        int x = position.x() + dimension.width() / 2 + 1;
+        int top = position.y() - dimension.height() / 2 + 1;
+        this.trackStart = Point.create(x, top);
+        this.trackEnd = Point.create(x, top + trackLength());
+        this.thumbFirstEntry = -1;
+    }
+
+    /** Creates a scrollable group where each component is its own entry. */
+    public static ScrollableComponentGroup create(
+            List<Slot> slots, int columns, Iterable<DisplayComponent> components) {
+        return new ScrollableComponentGroup(
+                slots, columns,
+                Lists.transform(
+                        DisplayComponentSequence.of(components).asList(),
+                        DisplayComponentSequence::of));
+    }
+
+    /**
+     * Creates a scrollable group where each group of components is its own entry. Empty groups are
+     * skipped.
+     */
+    public static ScrollableComponentGroup createGrouped(
+            List<Slot> slots, int columns,
+            Iterable<? extends Iterable<DisplayComponent>> componentGroups) {
+        ImmutableList.Builder<DisplayComponentSequence> entriesBuilder = ImmutableList.builder();
+        for (Iterable<DisplayComponent> group : componentGroups) {
+            if (!Iterables.isEmpty(group)) {
+                entriesBuilder.add(DisplayComponentSequence.of(group));
+            }
+        }
+
+        return new ScrollableComponentGroup(slots, columns, entriesBuilder.build());
+    }
+
+    public int entryCount() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the index of the entry shown in the first slot. Always a multiple of
+     * {@link #columns}.
+     */
+    protected int firstEntry(DiagramState diagramState) {
+        // Clamp, in case the stored offset has somehow become out of range.
+        return Math.min(diagramState.scrollOffset(position), maxFirstEntry());
+    }
+
+    /** Returns the largest valid value of {@link #firstEntry(DiagramState)}. */
+    protected int maxFirstEntry() {
+        int hiddenEntries = entryCount() - slots.size();
+        if (hiddenEntries <= 0) {
+            return 0;
+        }
+
+        // Round up to a whole number of rows.
+        return (hiddenEntries + columns - 1) / columns * columns;
+    }
+
+    /**
+     * Returns the interactable for the entry currently shown in the slot with the given index, or
+     * {@code null} if that slot is past the end of the entries.
+     */
+    @Nullable
+    protected InteractiveComponentGroup visibleGroup(int firstEntry, int slotIndex) {
+        int entry = firstEntry + slotIndex;
+        if (entry >= entryCount()) {
+            return null;
+        }
+
+        if (visibleEntries[slotIndex] != entry) {
+            Slot slot = slots.get(slotIndex);
+            Tooltip slotTooltip =
+                    Tooltip.concat(
+                            slot.tooltip(),
+                            Tooltip.builder()
+                                    .setFormatting(Tooltip.INFO_FORMATTING)
+                                    .addTextLine(
+                                            Lang.API.transf(
+                                                    "scrollindex", entry + 1, entryCount()))
+                                    .build());
+            visibleGroups[slotIndex] =
+                    new InteractiveComponentGroup(slot.position(), entries.get(entry), slotTooltip);
+            visibleEntries[slotIndex] = entry;
+        }
+        return visibleGroups[slotIndex];
+    }
+
+    @Override
+    public Point position() {
+        return position;
+    }
+
+    @Override
+    public Dimension dimension() {
+        return dimension;
+    }
+
+    @Override
+    public Optional<Interactable> hitTest(DiagramState diagramState, Point target) {
+        int firstEntry = firstEntry(diagramState);
+        for (int i = 0; i < slots.size(); i++) {
+            if (slots.get(i).checkBoundingBox(target)) {
+                return Optional.ofNullable(visibleGroup(firstEntry, i));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean mouseScrolled(DiagramState diagramState, ScrollDirection direction) {
+        int firstEntry = firstEntry(diagramState);
+        int newFirstEntry =
+                Math.max(0, Math.min(maxFirstEntry(), firstEntry + direction.yFactor * columns));
+        if (newFirstEntry == firstEntry) {
+            return false;
+        }
+
+        diagramState.setScrollOffset(position, newFirstEntry);
+        return true;
+    }
+
+    @Override
+    public void draw(DiagramState diagramState) {
+        int firstEntry = firstEntry(diagramState);
+        for (int i = 0; i < slots.size(); i++) {
+            InteractiveComponentGroup group = visibleGroup(firstEntry, i);
+            if (group == null) {
+                break;
+            }
+            group.draw(diagramState);
+        }
+
+        drawScrollIndicator(firstEntry);
+    }
+
+    /** Draws a scrollbar-like indicator just to the right of the slots. */
+    protected void drawScrollIndicator(int firstEntry) {
+        int maxFirstEntry = maxFirstEntry();
+        if (maxFirstEntry == 0) {
+            return;
+        }
+
+        if (thumbFirstEntry != firstEntry) {
+            int trackLength = trackLength();
+
+            // The thumb's size is proportional to the fraction of rows that are visible.
+            int totalRows = maxFirstEntry / columns + (slots.size() + columns - 1) / columns;
+            int visibleRows = totalRows - maxFirstEntry / columns;
+            int thumbLength = Math.max(2, trackLength * visibleRows / totalRows);
+            int thumbOffset = (trackLength - thumbLength) * firstEntry / maxFirstEntry;
+
+            thumbStart = trackStart.translate(0, thumbOffset);
+            thumbEnd = trackStart.translate(0, thumbOffset + thumbLength);
+            thumbFirstEntry = firstEntry;
+        }
+
+        Draw.drawLine(trackStart, trackEnd, Draw.Colour.SLOT_BG);
+        Draw.drawLine(thumbStart, thumbEnd, Draw.Colour.GREY);
+    }
+
+    private int trackLength() {
+        return dimension.height() - 2;
+    }
+}
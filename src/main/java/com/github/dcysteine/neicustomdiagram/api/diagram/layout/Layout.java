@@ -6,13 +6,12 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactab
 import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
 import com.github.dcysteine.neicustomdiagram.api.draw.Drawable;
 import com.google.auto.value.AutoValue;
+import com.google.auto.value.extension.memoized.Memoized;
 import com.google.auto.value.extension.toprettystring.ToPrettyString;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -65,13 +64,15 @@ public abstract class Layout implements Drawable {
         return Optional.ofNullable(slotGroups().get(key));
     }
 
-    public Iterable<Slot> allSlots() {
-        List<Iterable<Slot>> allSlots = new ArrayList<>(slotGroups().size() + 1);
+    /** Memoized, as this gets iterated over for hit tests. */
+    @Memoized
+    public ImmutableList<Slot> allSlots() {
+        ImmutableList.Builder<Slot> allSlots = ImmutableList.builder();
 
-        allSlots.add(slots().values());
-        slotGroups().values().forEach(slotGroup -> allSlots.add(slotGroup.slots()));
+        allSlots.addAll(slots().values());
+        slotGroups().values().forEach(slotGroup -> allSlots.addAll(slotGroup.slots()));
 
-        return Iterables.concat(allSlots);
+        return allSlots.build();
     }
 
     @Override
@@ -81,7 +82,11 @@ public abstract class Layout implements Drawable {
 
     @Override
     public void draw(DiagramState diagramState) {
-        drawables().forEach(drawable -> drawable.draw(diagramState));
+        // Indexed loop, to avoid allocating an iterator every frame.
+        ImmutableList<Drawable> drawables = drawables();
+        for (int i = 0; i < drawables.size(); i++) {
+            drawables.get(i).draw(diagramState);
+        }
     }
 
     /**
@@ -90,8 +95,10 @@ public abstract class Layout implements Drawable {
      * <p>This means that interactables <b>will not be included</b> in the calculations for
      * {@link #maxDimension()}!
      */
-    private Iterable<Drawable> drawables() {
-        return Iterables.concat(lines(), slotGroups().values(), slots().values(), labels());
+    @Memoized
+    ImmutableList<Drawable> drawables() {
+        return ImmutableList.copyOf(
+                Iterables.concat(lines(), slotGroups().values(), slots().values(), labels()));
     }
 
     @ToPrettyString
@@ -69,8 +69,15 @@ public abstract class Lines implements Drawable {
 
     @Override
     public void draw(DiagramState diagramState) {
-        segments().forEach(segment -> segment.drawSegment(colour()));
-        arrows().forEach(segment -> segment.drawArrow(colour()));
+        // Indexed loops, to avoid allocating iterators or lambdas every frame.
+        ImmutableList<Segment> segments = segments();
+        for (int i = 0; i < segments.size(); i++) {
+            segments.get(i).drawSegment(colour());
+        }
+        ImmutableList<Segment> arrows = arrows();
+        for (int i = 0; i < arrows.size(); i++) {
+            arrows.get(i).drawArrow(colour());
+        }
     }
 
     @ToPrettyString
@@ -52,7 +52,11 @@ public abstract class SlotGroup implements Drawable {
 
     @Override
     public void draw(DiagramState diagramState) {
-        slots().forEach(slot -> slot.draw(diagramState));
+        // Indexed loop, to avoid allocating an iterator or lambda every frame.
+        ImmutableList<Slot> slots = slots();
+        for (int i = 0; i < slots.size(); i++) {
+            slots.get(i).draw(diagramState);
+        }
     }
 
     @ToPrettyString
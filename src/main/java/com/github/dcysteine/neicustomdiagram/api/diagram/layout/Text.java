@@ -1,11 +1,11 @@
 package com.github.dcysteine.neicustomdiagram.api.diagram.layout;
 
-import codechicken.lib.gui.GuiDraw;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramState;
 import com.github.dcysteine.neicustomdiagram.api.draw.BoundedDrawable;
 import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
 import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
 import com.github.dcysteine.neicustomdiagram.api.draw.Point;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.toprettystring.ToPrettyString;
 import com.google.common.base.Preconditions;
@@ -43,8 +43,11 @@ public abstract class Text implements BoundedDrawable {
 
     @Override
     public void draw(DiagramState diagramState) {
-        Point topLeft = position().translate(-dimension().width() / 2, -dimension().height() / 2);
-        Draw.drawText(text(), topLeft, colour(), small(), shadow());
+        Draw.drawText(
+                text(),
+                position().x() - dimension().width() / 2,
+                position().y() - dimension().height() / 2,
+                colour(), small(), shadow());
     }
 
     @ToPrettyString
@@ -106,12 +109,8 @@ public abstract class Text implements BoundedDrawable {
         }
 
         public Text build() {
-            int width = GuiDraw.getStringWidth(text);
-            int height = Draw.TEXT_HEIGHT;
-            if (small) {
-                width /= 2;
-                height /= 2;
-            }
+            int width = TextMetrics.stringWidth(text, small);
+            int height = small ? Draw.TEXT_HEIGHT / 2 : Draw.TEXT_HEIGHT;
             Dimension dimension = Dimension.create(width, height);
 
             Point center =
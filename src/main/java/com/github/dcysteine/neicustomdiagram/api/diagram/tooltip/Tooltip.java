@@ -4,12 +4,14 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
 import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
 import com.github.dcysteine.neicustomdiagram.api.draw.Point;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.toprettystring.ToPrettyString;
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import net.minecraft.util.EnumChatFormatting;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
 
 /** Class holding a tooltip, with options for using a default colour. */
@@ -37,20 +39,51 @@ public abstract class Tooltip {
     /** The default horizontal space between tooltip lines. */
     public static final int ELEMENT_SPACING = 4;
 
+    /**
+     * Immutable measured size of a tooltip.
+     *
+     * <p>Line measurements are cached by {@link TooltipLine} itself; this just saves us from
+     * re-aggregating them, since the tooltip size is queried several times per draw.
+     */
+    private static final class Metrics {
+        private final int epoch;
+        private final int width;
+        private final int height;
+
+        private Metrics(Tooltip tooltip, int epoch) {
+            int width = 0;
+            int height = Tooltip.LINE_SPACING * (tooltip.lines().size() - 1);
+            for (TooltipLine line : tooltip.lines()) {
+                width = Math.max(width, line.width());
+                height += line.height();
+            }
+
+            this.epoch = epoch;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    /** Lazily computed; use {@link #metrics()} rather than reading this directly. */
+    @Nullable
+    private Metrics metrics;
+
     public abstract ImmutableList<TooltipLine> lines();
 
     public int width() {
-        return lines().stream()
-                .mapToInt(TooltipLine::width)
-                .max()
-                .orElse(0);
+        return metrics().width;
     }
 
     public int height() {
-        return Tooltip.LINE_SPACING * (lines().size() - 1)
-                + lines().stream()
-                        .mapToInt(TooltipLine::height)
-                        .sum();
+        return metrics().height;
+    }
+
+    private Metrics metrics() {
+        int epoch = TextMetrics.epoch();
+        if (metrics == null || metrics.epoch != epoch) {
+            metrics = new Metrics(this, epoch);
+        }
+        return metrics;
     }
 
     /**
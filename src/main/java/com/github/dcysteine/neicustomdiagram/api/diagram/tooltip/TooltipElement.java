@@ -1,11 +1,11 @@
 package com.github.dcysteine.neicustomdiagram.api.diagram.tooltip;
 
-import codechicken.lib.gui.GuiDraw;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Grid;
 import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
 import com.github.dcysteine.neicustomdiagram.api.draw.Point;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
 import com.google.auto.value.AutoOneOf;
 
 /**
@@ -68,17 +68,13 @@ public abstract class TooltipElement {
                 return spacing();
 
             case TEXT:
-                if (formatting.small()) {
-                    return GuiDraw.getStringWidth(formatting.format(text())) / 2;
-                } else {
-                    return GuiDraw.getStringWidth(formatting.format(text()));
-                }
+                return TextMetrics.stringWidth(formatting.format(text()), formatting.small());
 
             case DISPLAY_COMPONENT_ICON:
                 return Grid.SLOT_WIDTH;
 
             case COMPONENT_DESCRIPTION:
-                return GuiDraw.getStringWidth(componentDescription().description());
+                return TextMetrics.stringWidth(componentDescription().description());
 
             case FORMATTING:
                 return 0;
@@ -114,8 +110,16 @@ public abstract class TooltipElement {
      * to facilitate our custom tooltip drawing code.
      */
     public void draw(int x, int y, TextFormatting formatting) {
+        draw(x, y, width(formatting), height(formatting), formatting);
+    }
+
+    /**
+     * Same as {@link #draw(int, int, TextFormatting)}, but takes this element's already-measured
+     * width and height, to avoid measuring text again.
+     */
+    public void draw(int x, int y, int width, int height, TextFormatting formatting) {
         Point topLeft = Point.create(x, y);
-        Point center = Point.create(x + width(formatting) / 2, y + height(formatting) / 2);
+        Point center = Point.create(x + width / 2, y + height / 2);
 
         switch (type()) {
             case TEXT:
@@ -2,51 +2,100 @@ package com.github.dcysteine.neicustomdiagram.api.diagram.tooltip;
 
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
 import com.google.auto.value.AutoValue;
 import com.google.auto.value.extension.toprettystring.ToPrettyString;
 import com.google.common.collect.ImmutableList;
 import net.minecraft.util.EnumChatFormatting;
 
+import javax.annotation.Nullable;
+
 @AutoValue
 public abstract class TooltipLine {
-    public abstract ImmutableList<TooltipElement> elements();
-    public abstract int additionalSpacing();
+    /**
+     * Immutable measured layout of a tooltip line.
+     *
+     * <p>Measuring text has to go through the font renderer, so we measure each line once and then
+     * re-use the results until {@link TextMetrics#epoch()} changes. Arrays are indexed the same as
+     * {@link #elements()}; entries for formatting elements are unused.
+     */
+    static final class Metrics {
+        private final int epoch;
+        private final int width;
+        private final int height;
+
+        private final TextFormatting[] elementFormatting;
+        private final int[] elementX;
+        private final int[] elementY;
+        private final int[] elementWidth;
+        private final int[] elementHeight;
+
+        private Metrics(TooltipLine line, int epoch) {
+            ImmutableList<TooltipElement> elements = line.elements();
+            int size = elements.size();
+
+            this.epoch = epoch;
+            this.elementFormatting = new TextFormatting[size];
+            this.elementX = new int[size];
+            this.elementY = new int[size];
+            this.elementWidth = new int[size];
+            this.elementHeight = new int[size];
+
+            TextFormatting currFormatting = Tooltip.DEFAULT_FORMATTING;
+            int currX = 0;
+            int maxHeight = 0;
+            boolean first = true;
+            for (int i = 0; i < size; i++) {
+                TooltipElement element = elements.get(i);
+                if (element.type() == TooltipElement.ElementType.FORMATTING) {
+                    currFormatting = element.formatting();
+                    continue;
+                } else if (!first) {
+                    currX += Tooltip.ELEMENT_SPACING;
+                } else {
+                    first = false;
+                }
+
+                elementFormatting[i] = currFormatting;
+                elementWidth[i] = element.width(currFormatting);
+                elementHeight[i] = element.height(currFormatting);
+                elementX[i] = currX;
+
+                currX += elementWidth[i];
+                maxHeight = Math.max(maxHeight, elementHeight[i]);
+            }
 
-    public int width() {
-        int width = 0;
-        TextFormatting currFormatting = Tooltip.DEFAULT_FORMATTING;
-        boolean first = true;
+            this.width = currX;
+            this.height = maxHeight + line.additionalSpacing();
 
-        for (TooltipElement element : elements()) {
-            if (element.type() == TooltipElement.ElementType.FORMATTING) {
-                currFormatting = element.formatting();
-                continue;
-            } else if (!first) {
-                width += Tooltip.ELEMENT_SPACING;
-            } else {
-                first = false;
+            for (int i = 0; i < size; i++) {
+                elementY[i] = (height - elementHeight[i]) / 2;
             }
-
-            width += element.width(currFormatting);
         }
+    }
 
-        return width;
+    /** Lazily computed; use {@link #metrics()} rather than reading this directly. */
+    @Nullable
+    private Metrics metrics;
+
+    public abstract ImmutableList<TooltipElement> elements();
+    public abstract int additionalSpacing();
+
+    public int width() {
+        return metrics().width;
     }
 
     public int height() {
-        int maxHeight = 0;
-        TextFormatting currFormatting = Tooltip.DEFAULT_FORMATTING;
-
-        for (TooltipElement element : elements()) {
-            if (element.type() == TooltipElement.ElementType.FORMATTING) {
-                currFormatting = element.formatting();
-                continue;
-            }
+        return metrics().height;
+    }
 
-            maxHeight = Math.max(maxHeight, element.height(currFormatting));
+    /** Returns this line's measured layout, re-measuring only if text metrics have changed. */
+    Metrics metrics() {
+        int epoch = TextMetrics.epoch();
+        if (metrics == null || metrics.epoch != epoch) {
+            metrics = new Metrics(this, epoch);
         }
-
-        return maxHeight + additionalSpacing();
+        return metrics;
     }
 
     @ToPrettyString
@@ -58,18 +107,19 @@ public abstract class TooltipLine {
      * to facilitate our custom tooltip drawing code.
      */
     public void draw(int x, int y) {
-        int currX = x;
-        TextFormatting currFormatting = Tooltip.DEFAULT_FORMATTING;
+        Metrics metrics = metrics();
+        ImmutableList<TooltipElement> elements = elements();
 
-        for (TooltipElement element : elements()) {
+        for (int i = 0; i < elements.size(); i++) {
+            TooltipElement element = elements.get(i);
             if (element.type() == TooltipElement.ElementType.FORMATTING) {
-                currFormatting = element.formatting();
                 continue;
             }
 
-            int offsetY = y + (height() - element.height(currFormatting)) / 2;
-            element.draw(currX, offsetY, currFormatting);
-            currX += Tooltip.ELEMENT_SPACING + element.width(currFormatting);
+            element.draw(
+                    x + metrics.elementX[i], y + metrics.elementY[i],
+                    metrics.elementWidth[i], metrics.elementHeight[i],
+                    metrics.elementFormatting[i]);
         }
     }
 
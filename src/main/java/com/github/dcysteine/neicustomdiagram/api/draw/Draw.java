@@ -7,18 +7,20 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Grid;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.TooltipLine;
 import com.google.auto.value.AutoValue;
-import net.minecraft.client.renderer.texture.TextureMap;
 import net.minecraft.item.ItemStack;
-import net.minecraft.util.IIcon;
 import net.minecraftforge.fluids.Fluid;
 import org.lwjgl.opengl.GL11;
-import org.lwjgl.opengl.GL12;
 
 /** GUI drawing library. */
 public final class Draw {
     public static final int ICON_WIDTH = 16;
     public static final int TEXT_HEIGHT = 8;
 
+    public static final Grid.Direction STACK_SIZE_DIRECTION = Grid.Direction.SE;
+    public static final int STACK_SIZE_COLOUR = Colour.WHITE;
+    public static final Grid.Direction ADDITIONAL_INFO_DIRECTION = Grid.Direction.NW;
+    public static final int ADDITIONAL_INFO_COLOUR = Colour.YELLOW;
+
     /**
      * Some pre-defined colours, for convenience.
      *
@@ -86,9 +88,10 @@ public final class Draw {
         int w = Math.abs(a.x() - b.x()) + 2;
         int h = Math.abs(a.y() - b.y()) + 2;
 
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
+        RenderProfiler.countDrawCall();
         GuiDraw.drawRect(x, y, w, h, colour);
-        GL11.glEnable(GL11.GL_LIGHTING);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
     }
 
     /**
@@ -104,7 +107,7 @@ public final class Draw {
         int diffX = Integer.signum(a.x() - b.x());
         int diffY = Integer.signum(a.y() - b.y());
 
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
         Point currPos = b;
         for (int i = 0; i < 3; i++) {
             // Draw a line perpendicular to (diffX, diffY) and of length 2 * i.
@@ -115,7 +118,7 @@ public final class Draw {
 
             currPos = currPos.translate(diffX, diffY);
         }
-        GL11.glEnable(GL11.GL_LIGHTING);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
     }
 
     /**
@@ -129,24 +132,32 @@ public final class Draw {
      */
     public static void drawText(
             String text, Point pos, int colour, boolean small, boolean shadow) {
+        drawText(text, pos.x(), pos.y(), colour, small, shadow);
+    }
+
+    /** Like {@link #drawText(String, Point, int, boolean, boolean)}, but doesn't need a point. */
+    public static void drawText(
+            String text, int posX, int posY, int colour, boolean small, boolean shadow) {
         int x, y;
         if (small) {
-            x = 2 * pos.x();
-            y = 2 * pos.y();
+            x = 2 * posX;
+            y = 2 * posY;
 
             GL11.glPushMatrix();
             GL11.glScalef(0.5f, 0.5f, 0.5f);
         } else {
-            x = pos.x();
-            y = pos.y();
+            x = posX;
+            y = posY;
         }
 
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
+        RenderProfiler.countDrawCall();
         GuiDraw.drawString(text, x, y, colour, shadow);
-        GL11.glEnable(GL11.GL_LIGHTING);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
 
         // Looks like drawString() leaves colour blending active, so reset it.
-        GL11.glColor4f(1, 1, 1, 1);
+        GlStateTracker.invalidateColour();
+        GlStateTracker.restoreColour();
 
         if (small) {
             GL11.glPopMatrix();
@@ -159,9 +170,19 @@ public final class Draw {
      * <p>This will be drawn in the bottom-right corner of the component. Keep this short!
      */
     public static void drawStackSize(int stackSize, Point pos) {
-        String text = Formatter.smartFormatInteger(stackSize);
-        boolean small = stackSize >= 100;
-        drawTextOverIcon(text, pos, Grid.Direction.SE, Colour.WHITE, small, true);
+        String text = formatStackSize(stackSize);
+        boolean small = isStackSizeSmall(stackSize);
+        drawTextOverIcon(text, pos, STACK_SIZE_DIRECTION, STACK_SIZE_COLOUR, small, true);
+    }
+
+    /** Returns the text that {@link #drawStackSize(int, Point)} would draw. */
+    public static String formatStackSize(int stackSize) {
+        return Formatter.smartFormatInteger(stackSize);
+    }
+
+    /** Returns whether {@link #drawStackSize(int, Point)} would draw half-scale text. */
+    public static boolean isStackSizeSmall(int stackSize) {
+        return stackSize >= 100;
     }
 
     /**
@@ -170,28 +191,30 @@ public final class Draw {
      * <p>This will be drawn in the top-left corner of the component. Keep this short!
      */
     public static void drawAdditionalInfo(String text, Point pos, boolean small) {
-        drawTextOverIcon(text, pos, Grid.Direction.NW, Colour.YELLOW, small, true);
+        drawTextOverIcon(
+                text, pos, ADDITIONAL_INFO_DIRECTION, ADDITIONAL_INFO_COLOUR, small, true);
     }
 
     /** Draws text offset in the specified direction over an icon. */
     public static void drawTextOverIcon(
             String text, Point pos, Grid.Direction dir, int colour, boolean small, boolean shadow) {
-        int textWidth = GuiDraw.getStringWidth(text);
-        int textHeight = TEXT_HEIGHT;
-        if (small) {
-            textWidth /= 2;
-            textHeight /= 2;
-        }
+        Vector offset = textOverIconOffset(text, dir, small);
+        drawText(text, pos.x() + offset.x(), pos.y() + offset.y(), colour, small, shadow);
+    }
 
-        Point directionPos =
-                pos.translate(
-                        dir.xFactor * ICON_WIDTH / 2,
-                        dir.yFactor * ICON_WIDTH / 2);
-        Point textAnchor =
-                directionPos.translate(
-                        -(dir.xFactor + 1) * textWidth / 2,
-                        -(dir.yFactor + 1) * textHeight / 2);
-        drawText(text, textAnchor, colour, small, shadow);
+    /**
+     * Returns the offset from the center of an icon to the top-left corner of text drawn by
+     * {@link #drawTextOverIcon(String, Point, Grid.Direction, int, boolean, boolean)}.
+     *
+     * <p>This is useful for pre-computing text positions.
+     */
+    public static Vector textOverIconOffset(String text, Grid.Direction dir, boolean small) {
+        int textWidth = TextMetrics.stringWidth(text, small);
+        int textHeight = small ? TEXT_HEIGHT / 2 : TEXT_HEIGHT;
+
+        return Vector.create(
+                dir.xFactor * ICON_WIDTH / 2 - (dir.xFactor + 1) * textWidth / 2,
+                dir.yFactor * ICON_WIDTH / 2 - (dir.yFactor + 1) * textHeight / 2);
     }
 
     /**
@@ -213,7 +236,7 @@ public final class Draw {
         int x = mousePos.x() + 12;
         int y = mousePos.y() - 12;
         if (x + width > GuiDraw.displaySize().width - 8) {
-            x -= tooltip.width() + 24;
+            x -= width + 24;
         }
         if (y + height > GuiDraw.displaySize().height - 8) {
             y = GuiDraw.displaySize().height - (height + 8);
@@ -221,13 +244,14 @@ public final class Draw {
         x = Math.max(8, x);
         y = Math.max(8, y);
 
-        GL11.glDisable(GL12.GL_RESCALE_NORMAL);
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.RESCALE_NORMAL);
+        GlStateTracker.disable(GlStateTracker.Capability.DEPTH_TEST);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
         GL11.glTranslatef(0, 0, 300);
         GuiDraw.gui.incZLevel(300);
 
-        GuiDraw.drawTooltipBox(x - 4, y - 4, tooltip.width() + 8, tooltip.height() + 8);
+        RenderProfiler.countDrawCall();
+        GuiDraw.drawTooltipBox(x - 4, y - 4, width + 8, height + 8);
 
         int currY = y;
         for (TooltipLine line : tooltip.lines()) {
@@ -237,9 +261,9 @@ public final class Draw {
 
         GuiDraw.gui.incZLevel(-300);
         GL11.glTranslatef(0, 0, -300);
-        GL11.glEnable(GL11.GL_LIGHTING);
-        GL11.glEnable(GL11.GL_DEPTH_TEST);
-        GL11.glEnable(GL12.GL_RESCALE_NORMAL);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
+        GlStateTracker.restore(GlStateTracker.Capability.DEPTH_TEST);
+        GlStateTracker.restore(GlStateTracker.Capability.RESCALE_NORMAL);
     }
 
     /** Draws an item slot centered on the given point. */
@@ -259,47 +283,47 @@ public final class Draw {
 
     /** Draws the specified texture centered on the given point. */
     public static void drawTexture(TextureData texture, Point pos) {
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
+        GlStateTracker.setColour(Colour.WHITE);
         GuiDraw.changeTexture(TextureData.TEXTURE_PATH);
+        RenderProfiler.countDrawCall();
         GuiDraw.drawTexturedModalRect(
                 pos.x() - (texture.width() / 2), pos.y() - (texture.height() / 2),
                 texture.x(), texture.y(), texture.width(), texture.height());
-        GL11.glEnable(GL11.GL_LIGHTING);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
     }
 
     /** Draws an item centered on the given point. */
     public static void drawItem(ItemStack itemStack, Point pos) {
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
+        GlStateTracker.setColour(Colour.WHITE);
+        RenderProfiler.countDrawCall();
         GuiContainerManager.drawItem(
                 pos.x() - ICON_WIDTH / 2, pos.y() - ICON_WIDTH / 2, itemStack);
-        GL11.glEnable(GL11.GL_LIGHTING);
+        // Item rendering changes lighting and depth testing, so we no longer know the GL state.
+        GlStateTracker.invalidate();
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
 
         // Looks like drawItem() leaves colour blending active, so reset it.
-        GL11.glColor4f(1, 1, 1, 1);
+        GlStateTracker.restoreColour();
     }
 
-    /** Draws a fluid centered on the given point. */
+    /**
+     * Draws a fluid centered on the given point.
+     *
+     * <p>Prefer {@link #drawFluid(FluidBatch.RenderData, Point)} with cached render data, if you
+     * will be drawing the same fluid repeatedly.
+     */
     public static void drawFluid(Fluid fluid, Point pos) {
-        IIcon icon = fluid.getIcon();
-        if (icon == null) {
-            return;
-        }
+        drawFluid(FluidBatch.RenderData.create(fluid), pos);
+    }
 
-        // Some fluids don't set their icon colour, so we have to blend in the colour ourselves.
-        int colour = fluid.getColor();
-        GL11.glColor3ub(
-                (byte) ((colour & 0xFF0000) >> 16),
-                (byte) ((colour & 0x00FF00) >> 8),
-                (byte) (colour & 0x0000FF));
-
-        GL11.glDisable(GL11.GL_LIGHTING);
-        GuiDraw.changeTexture(TextureMap.locationBlocksTexture);
-        GuiDraw.gui.drawTexturedModelRectFromIcon(
-                pos.x() - ICON_WIDTH / 2, pos.y() - ICON_WIDTH / 2, icon, ICON_WIDTH, ICON_WIDTH);
-        GL11.glEnable(GL11.GL_LIGHTING);
-
-        // Reset colour blending.
-        GL11.glColor4f(1, 1, 1, 1);
+    /**
+     * Draws a fluid centered on the given point. If a {@link FluidBatch} is active, the fluid will
+     * be drawn when the batch is flushed.
+     */
+    public static void drawFluid(FluidBatch.RenderData renderData, Point pos) {
+        FluidBatch.add(renderData, pos);
     }
 
     /**
@@ -309,9 +333,10 @@ public final class Draw {
      * semi-transparent value here.
      */
     public static void drawOverlay(Point pos, int colour) {
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
+        RenderProfiler.countDrawCall();
         GuiDraw.drawRect(
                 pos.x() - ICON_WIDTH / 2, pos.y() - ICON_WIDTH / 2, ICON_WIDTH, ICON_WIDTH, colour);
-        GL11.glEnable(GL11.GL_LIGHTING);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
     }
 }
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.github.dcysteine.neicustomdiagram.api.draw;
+
+import codechicken.lib.gui.GuiDraw;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import cpw.mods.fml.common.eventhandler.SubscribeEvent;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.texture.TextureMap;
+import net.minecraft.util.IIcon;
+import net.minecraftforge.client.event.TextureStitchEvent;
+import net.minecraftforge.fluids.Fluid;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Batches fluid icon draws, so that a whole diagram's worth of fluids can be drawn with a single
+ * texture bind and a single tessellator draw.
+ *
+ * <p>All fluid icons live on the block texture atlas, so they can all be drawn together. While a
+ * batch is active (between {@link #begin()} and {@link #flush()}), fluid draws are queued rather
+ * than drawn immediately. Since the fluid icons will be drawn later, any text that should appear
+ * on top of them must also be deferred, via {@link #deferOverlays(DisplayComponent, Point)}.
+ *
+ * <p>Deferring draws changes draw order, so callers should call {@link #drawQueued()} before and
+ * after drawing anything that might overlap a queued fluid, to preserve painter's order.
+ *
+ * <p>This class is not thread-safe, and should only be used from the render thread.
+ */
+public final class FluidBatch {
+    /** Initial capacity of the queue. It will grow if more fluids than this are drawn. */
+    private static final int INITIAL_CAPACITY = 32;
+
+    /**
+     * Fluid icon and colour, resolved once and then cached.
+     *
+     * <p>Icons are re-created whenever the block texture atlas is re-stitched, such as when
+     * resource packs change, so this data must be re-resolved if {@link #isValid()} returns
+     * {@code false}.
+     */
+    public static final class RenderData {
+        @Nullable private final IIcon icon;
+        private final int colour;
+        private final int epoch;
+
+        private RenderData(Fluid fluid) {
+            this.icon = fluid.getIcon();
+            // Some fluids don't set their icon colour, so we have to blend in the colour ourselves.
+            this.colour = 0xFF000000 | fluid.getColor();
+            this.epoch = iconEpoch;
+        }
+
+        public static RenderData create(Fluid fluid) {
+            return new RenderData(fluid);
+        }
+
+        @Nullable
+        public IIcon icon() {
+            return icon;
+        }
+
+        public int colour() {
+            return colour;
+        }
+
+        public boolean isValid() {
+            return epoch == iconEpoch;
+        }
+    }
+
+    /** Invalidates cached {@link RenderData} when the block texture atlas is re-stitched. */
+    public enum IconListener {
+        // Singleton class; enforced by being an enum.
+        INSTANCE;
+
+        @SubscribeEvent
+        @SuppressWarnings("unused")
+        public void onTextureStitch(TextureStitchEvent.Post event) {
+            if (event.map.getTextureType() == 0) {
+                iconEpoch++;
+            }
+        }
+    }
+
+    private static int iconEpoch = 0;
+
+    private static boolean active = false;
+
+    // Queued fluid draws. Kept between batches, to avoid re-allocating each frame.
+    private static int fluidCount = 0;
+    private static IIcon[] fluidIcons = new IIcon[INITIAL_CAPACITY];
+    private static int[] fluidColours = new int[INITIAL_CAPACITY];
+    private static int[] fluidX = new int[INITIAL_CAPACITY];
+    private static int[] fluidY = new int[INITIAL_CAPACITY];
+
+    // Queued overlay draws.
+    private static int overlayCount = 0;
+    private static DisplayComponent[] overlayComponents = new DisplayComponent[INITIAL_CAPACITY];
+    private static Point[] overlayPositions = new Point[INITIAL_CAPACITY];
+
+    // Static class.
+    private FluidBatch() {}
+
+    /** Starts a batch. Must be paired with a call to {@link #flush()}. */
+    public static void begin() {
+        active = true;
+    }
+
+    public static boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Draws a fluid icon centered on the given point, or queues it if a batch is active.
+     *
+     * <p>Prefer calling {@link Draw#drawFluid(RenderData, Point)}.
+     */
+    static void add(RenderData data, Point pos) {
+        if (data.icon == null) {
+            return;
+        }
+
+        if (fluidCount == fluidIcons.length) {
+            int capacity = 2 * fluidCount;
+            fluidIcons = Arrays.copyOf(fluidIcons, capacity);
+            fluidColours = Arrays.copyOf(fluidColours, capacity);
+            fluidX = Arrays.copyOf(fluidX, capacity);
+            fluidY = Arrays.copyOf(fluidY, capacity);
+        }
+
+        fluidIcons[fluidCount] = data.icon;
+        fluidColours[fluidCount] = data.colour;
+        fluidX[fluidCount] = pos.x() - Draw.ICON_WIDTH / 2;
+        fluidY[fluidCount] = pos.y() - Draw.ICON_WIDTH / 2;
+        fluidCount++;
+
+        if (!active) {
+            drawFluids();
+        }
+    }
+
+    /**
+     * Queues drawing the stack size and additional info of a display component, which will be
+     * drawn after the fluid icons.
+     */
+    public static void deferOverlays(DisplayComponent component, Point pos) {
+        if (overlayCount == overlayComponents.length) {
+            int capacity = 2 * overlayCount;
+            overlayComponents = Arrays.copyOf(overlayComponents, capacity);
+            overlayPositions = Arrays.copyOf(overlayPositions, capacity);
+        }
+
+        overlayComponents[overlayCount] = component;
+        overlayPositions[overlayCount] = pos;
+        overlayCount++;
+    }
+
+    /** Ends the current batch, drawing all queued fluids, followed by all queued overlays. */
+    public static void flush() {
+        active = false;
+        drawQueued();
+    }
+
+    /**
+     * Draws all queued fluids, followed by all queued overlays, without ending the current batch.
+     */
+    public static void drawQueued() {
+        drawFluids();
+
+        for (int i = 0; i < overlayCount; i++) {
+            overlayComponents[i].drawOverlays(overlayPositions[i]);
+            overlayComponents[i] = null;
+            overlayPositions[i] = null;
+        }
+        overlayCount = 0;
+    }
+
+    private static void drawFluids() {
+        if (fluidCount == 0) {
+            return;
+        }
+
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
+        GuiDraw.changeTexture(TextureMap.locationBlocksTexture);
+        RenderProfiler.countDrawCall();
+
+        // Diagrams are drawn at z-level 0, same as Gui.drawTexturedModelRectFromIcon() would use.
+        Tessellator tessellator = Tessellator.instance;
+        tessellator.startDrawingQuads();
+        for (int i = 0; i < fluidCount; i++) {
+            IIcon icon = fluidIcons[i];
+            int x = fluidX[i];
+            int y = fluidY[i];
+            int w = Draw.ICON_WIDTH;
+
+            tessellator.setColorRGBA_I(fluidColours[i] & 0xFFFFFF, fluidColours[i] >>> 24);
+            tessellator.addVertexWithUV(x, y + w, 0, icon.getMinU(), icon.getMaxV());
+            tessellator.addVertexWithUV(x + w, y + w, 0, icon.getMaxU(), icon.getMaxV());
+            tessellator.addVertexWithUV(x + w, y, 0, icon.getMaxU(), icon.getMinV());
+            tessellator.addVertexWithUV(x, y, 0, icon.getMinU(), icon.getMinV());
+            fluidIcons[i] = null;
+        }
+        tessellator.draw();
+        fluidCount = 0;
+
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
+        // Vertex colours leave the current colour undefined, so reset it.
+        GlStateTracker.invalidateColour();
+        GlStateTracker.restoreColour();
+    }
+}
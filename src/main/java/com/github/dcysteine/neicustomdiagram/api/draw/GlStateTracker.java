@@ -0,0 +1,188 @@
+package com.github.dcysteine.neicustomdiagram.api.draw;
+
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL12;
+
+/**
+ * Tracks the OpenGL state that {@link Draw} methods touch, so that redundant state changes can be
+ * skipped.
+ *
+ * <p>Outside of a draw pass, this class behaves exactly like calling the corresponding
+ * {@code GL11} methods directly, since other code may change GL state between our calls. During a
+ * draw pass (between {@link #beginPass()} and {@link #endPass()}), calls that would not change the
+ * tracked state are skipped, and restoring capabilities and colour to their defaults is deferred
+ * until the end of the pass, since every {@code Draw} method explicitly requests the state that it
+ * needs. This lets a whole diagram be drawn with close to the minimum number of state
+ * transitions.
+ *
+ * <p>Any code that calls into external rendering code that may change GL state behind our back
+ * should call {@link #invalidate()} afterwards.
+ *
+ * <p>This class is not thread-safe, and should only be used from the render thread.
+ */
+public final class GlStateTracker {
+    /** GL capabilities that we track. Their default state, which we restore to, is enabled. */
+    public enum Capability {
+        LIGHTING(GL11.GL_LIGHTING),
+        DEPTH_TEST(GL11.GL_DEPTH_TEST),
+        RESCALE_NORMAL(GL12.GL_RESCALE_NORMAL);
+
+        private final int glCap;
+
+        /** Tri-state: {@code null} means that we don't know the current state. */
+        private Boolean enabled = null;
+        private boolean restorePending = false;
+
+        Capability(int glCap) {
+            this.glCap = glCap;
+        }
+    }
+
+    /** Cached, to avoid allocating a new array on each call to {@link Capability#values()}. */
+    private static final Capability[] CAPABILITIES = Capability.values();
+
+    private static boolean inPass = false;
+
+    private static boolean colourKnown = false;
+    private static int colour;
+    private static boolean colourRestorePending = false;
+
+    private static long emittedCalls = 0;
+    private static long elidedCalls = 0;
+
+    // Static class.
+    private GlStateTracker() {}
+
+    /**
+     * Starts a draw pass. Must be paired with a call to {@link #endPass()}.
+     *
+     * <p>The GL state at the start of a pass is treated as unknown.
+     */
+    public static void beginPass() {
+        inPass = true;
+        invalidate();
+        for (Capability capability : CAPABILITIES) {
+            capability.restorePending = false;
+        }
+        colourRestorePending = false;
+    }
+
+    /** Ends a draw pass, restoring any capabilities and colour whose restoration was deferred. */
+    public static void endPass() {
+        inPass = false;
+        for (Capability capability : CAPABILITIES) {
+            if (capability.restorePending) {
+                enable(capability);
+            }
+            capability.restorePending = false;
+        }
+        if (colourRestorePending) {
+            setColour(Draw.Colour.WHITE);
+        }
+        colourRestorePending = false;
+        invalidate();
+    }
+
+    /**
+     * Forgets all tracked state, so that the next call for each state will not be elided. Call this
+     * after external code that may have changed GL state.
+     *
+     * <p>Deferred restorations are kept, and will still happen at the end of the pass.
+     */
+    public static void invalidate() {
+        for (Capability capability : CAPABILITIES) {
+            capability.enabled = null;
+        }
+        colourKnown = false;
+    }
+
+    /** Forgets the tracked colour. Call this after external code that may have changed it. */
+    public static void invalidateColour() {
+        colourKnown = false;
+    }
+
+    public static void enable(Capability capability) {
+        capability.restorePending = false;
+        if (inPass && capability.enabled == Boolean.TRUE) {
+            elidedCalls++;
+            return;
+        }
+
+        GL11.glEnable(capability.glCap);
+        capability.enabled = Boolean.TRUE;
+        emittedCalls++;
+    }
+
+    public static void disable(Capability capability) {
+        if (inPass && capability.enabled == Boolean.FALSE) {
+            elidedCalls++;
+            return;
+        }
+
+        GL11.glDisable(capability.glCap);
+        capability.enabled = Boolean.FALSE;
+        emittedCalls++;
+    }
+
+    /**
+     * Restores the given capability to its default (enabled) state. During a draw pass, this is
+     * deferred until either the end of the pass, or until something else requests the state.
+     */
+    public static void restore(Capability capability) {
+        if (inPass) {
+            if (capability.enabled != Boolean.TRUE) {
+                capability.restorePending = true;
+            }
+        } else {
+            enable(capability);
+        }
+    }
+
+    /** See {@link Draw.Colour} for colour encoding information. */
+    public static void setColour(int colour) {
+        colourRestorePending = false;
+        if (inPass && colourKnown && GlStateTracker.colour == colour) {
+            elidedCalls++;
+            return;
+        }
+
+        GL11.glColor4ub(
+                (byte) ((colour >> 16) & 0xFF),
+                (byte) ((colour >> 8) & 0xFF),
+                (byte) (colour & 0xFF),
+                (byte) ((colour >> 24) & 0xFF));
+        GlStateTracker.colour = colour;
+        colourKnown = true;
+        emittedCalls++;
+    }
+
+    /**
+     * Restores the colour to opaque white. During a draw pass, this is deferred until either the
+     * end of the pass, or until something else sets the colour.
+     */
+    public static void restoreColour() {
+        if (inPass) {
+            if (!colourKnown || colour != Draw.Colour.WHITE) {
+                colourRestorePending = true;
+            }
+        } else {
+            setColour(Draw.Colour.WHITE);
+        }
+    }
+
+    /** Returns the total number of GL calls that this class has made. */
+    public static long emittedCalls() {
+        return emittedCalls;
+    }
+
+    /** Returns the total number of GL calls that this class has skipped as redundant. */
+    public static long elidedCalls() {
+        return elidedCalls;
+    }
+
+    /** Resets the counts returned by {@link #emittedCalls()} and {@link #elidedCalls()}. */
+    public static void resetCallCounts() {
+        emittedCalls = 0;
+        elidedCalls = 0;
+    }
+}
@@ -0,0 +1,325 @@
+package com.github.dcysteine.neicustomdiagram.api.draw;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroupInfo;
+import com.google.common.collect.ImmutableList;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Collects per-frame rendering statistics for diagram groups, for display by the debug profiler
+ * diagram.
+ *
+ * <p>Profiling is disabled by default, and all of the recording methods return immediately unless
+ * it has been enabled via {@link #enable(String)}.
+ *
+ * <p>This class is not thread-safe, and should only be used from the render thread.
+ */
+public final class RenderProfiler {
+    /** The number of frames kept for the rolling frame time history of each diagram group. */
+    public static final int HISTORY_SIZE = 120;
+
+    /** Upper bounds of the histogram buckets, in nanoseconds. The last bucket is unbounded. */
+    public static final ImmutableList<Long> HISTOGRAM_BUCKETS =
+            ImmutableList.of(
+                    100_000L, 250_000L, 500_000L, 1_000_000L, 2_000_000L, 4_000_000L, 8_000_000L);
+
+    public enum Phase {
+        BACKGROUND, FOREGROUND, TOOLTIP;
+    }
+
+    /** Statistics for drawing a single diagram (one recipe index) for one frame. */
+    public static final class Sample {
+        private final int recipe;
+        private final long[] phaseNanos = new long[Phase.values().length];
+        private long drawCalls;
+        private long glStateChanges;
+        private long hitTests;
+        /** Will be negative if allocation tracking is unsupported. */
+        private long allocatedBytes;
+
+        private Sample(int recipe) {
+            this.recipe = recipe;
+            this.allocatedBytes = allocationTrackingSupported() ? 0 : -1;
+        }
+
+        public int recipe() {
+            return recipe;
+        }
+
+        public long phaseNanos(Phase phase) {
+            return phaseNanos[phase.ordinal()];
+        }
+
+        public long totalNanos() {
+            long total = 0;
+            for (long nanos : phaseNanos) {
+                total += nanos;
+            }
+            return total;
+        }
+
+        public long drawCalls() {
+            return drawCalls;
+        }
+
+        public long glStateChanges() {
+            return glStateChanges;
+        }
+
+        public long hitTests() {
+            return hitTests;
+        }
+
+        /** Returns a negative value if allocation tracking is unsupported. */
+        public long allocatedBytes() {
+            return allocatedBytes;
+        }
+    }
+
+    /**
+     * Rolling statistics for a single diagram group.
+     *
+     * <p>Samples for all diagrams drawn in a frame are accumulated together, and only recorded
+     * once the frame is over, so that the frame time history holds one entry per frame.
+     */
+    public static final class GroupStats {
+        private final String groupName;
+
+        /** Samples for the frame currently being drawn, keyed by recipe index. */
+        private final Map<Integer, Sample> inProgress = new HashMap<>();
+        private final Map<Integer, Sample> latest = new TreeMap<>();
+
+        /** Ring buffer of total frame times (summed over all diagrams), in nanoseconds. */
+        private final long[] history = new long[HISTORY_SIZE];
+        private int historyCount = 0;
+        private int historyNext = 0;
+
+        private GroupStats(String groupName) {
+            this.groupName = groupName;
+        }
+
+        public String groupName() {
+            return groupName;
+        }
+
+        /** Returns the samples of the last completed frame for each diagram, by recipe index. */
+        public Map<Integer, Sample> latestSamples() {
+            return latest;
+        }
+
+        public int frameCount() {
+            return historyCount;
+        }
+
+        public long averageNanos() {
+            if (historyCount == 0) {
+                return 0;
+            }
+
+            long total = 0;
+            for (int i = 0; i < historyCount; i++) {
+                total += history[i];
+            }
+            return total / historyCount;
+        }
+
+        public long maxNanos() {
+            long max = 0;
+            for (int i = 0; i < historyCount; i++) {
+                max = Math.max(max, history[i]);
+            }
+            return max;
+        }
+
+        /** Returns the histogram bucket counts; see {@link #HISTOGRAM_BUCKETS}. */
+        public int[] histogram() {
+            int[] counts = new int[HISTOGRAM_BUCKETS.size() + 1];
+            for (int i = 0; i < historyCount; i++) {
+                int bucket = 0;
+                while (bucket < HISTOGRAM_BUCKETS.size()
+                        && history[i] >= HISTOGRAM_BUCKETS.get(bucket)) {
+                    bucket++;
+                }
+                counts[bucket]++;
+            }
+            return counts;
+        }
+
+        private Sample sample(int recipe) {
+            Sample sample = inProgress.get(recipe);
+            if (sample == null) {
+                sample = new Sample(recipe);
+                inProgress.put(recipe, sample);
+            }
+            return sample;
+        }
+
+        /** Records the frame in progress, if any, as a single history entry. */
+        private void flushFrame() {
+            if (inProgress.isEmpty()) {
+                return;
+            }
+
+            long frameNanos = 0;
+            for (Sample sample : inProgress.values()) {
+                frameNanos += sample.totalNanos();
+            }
+            latest.clear();
+            latest.putAll(inProgress);
+            inProgress.clear();
+
+            history[historyNext] = frameNanos;
+            historyNext = (historyNext + 1) % HISTORY_SIZE;
+            historyCount = Math.min(historyCount + 1, HISTORY_SIZE);
+        }
+    }
+
+    private static boolean enabled = false;
+
+    /** Our own diagram group, which we don't want to profile. */
+    private static String excludedGroupId = null;
+
+    /** Diagram group stats, in most-recently-drawn order. */
+    private static final Map<String, GroupStats> groupStats =
+            new LinkedHashMap<>(16, 0.75f, true);
+    private static String lastGroupId = null;
+
+    // State for the phase that is currently being measured.
+    private static Sample currentSample = null;
+    private static Phase currentPhase = null;
+    private static long phaseStartNanos;
+    private static long phaseStartDrawCalls;
+    private static long phaseStartGlStateChanges;
+    private static long phaseStartAllocatedBytes;
+
+    // Running counters.
+    private static long drawCalls = 0;
+
+    private static final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+
+    // Static class.
+    private RenderProfiler() {}
+
+    /**
+     * Enables profiling.
+     *
+     * @param excludedGroupId The group ID of the diagram group displaying the profiling results,
+     *     which will not itself be profiled.
+     */
+    public static void enable(String excludedGroupId) {
+        enabled = true;
+        RenderProfiler.excludedGroupId = excludedGroupId;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /** Called by {@link Draw} methods for each primitive that they draw. */
+    public static void countDrawCall() {
+        drawCalls++;
+    }
+
+    /**
+     * Called for each hovered interactable lookup that isn't served from cache.
+     *
+     * <p>Lookups also happen outside of draw phases (such as when NEI asks for the stack under the
+     * mouse), so these are counted directly against the diagram, rather than against the current
+     * phase.
+     */
+    public static void countHitTest(DiagramGroupInfo info, int recipe) {
+        if (!enabled || info.groupId().equals(excludedGroupId)) {
+            return;
+        }
+
+        groupStats(info).sample(recipe).hitTests++;
+    }
+
+    /** Starts measuring a draw phase. Must be paired with a call to {@link #endPhase()}. */
+    public static void beginPhase(DiagramGroupInfo info, int recipe, Phase phase) {
+        if (!enabled || info.groupId().equals(excludedGroupId)) {
+            return;
+        }
+
+        if (lastGroupId != null && !lastGroupId.equals(info.groupId())) {
+            // A different diagram group is being drawn, so the last group's frame is done.
+            GroupStats lastStats = groupStats.get(lastGroupId);
+            if (lastStats != null) {
+                lastStats.flushFrame();
+            }
+        }
+        GroupStats stats = groupStats(info);
+        lastGroupId = info.groupId();
+
+        Sample sample = stats.inProgress.get(recipe);
+        if (sample != null && phase == Phase.BACKGROUND && sample.phaseNanos(phase) > 0) {
+            // The background is the first thing drawn each frame, so if this diagram already has
+            // one, then the previous frame is done.
+            stats.flushFrame();
+        }
+
+        currentSample = stats.sample(recipe);
+        currentPhase = phase;
+        phaseStartDrawCalls = drawCalls;
+        phaseStartGlStateChanges = GlStateTracker.emittedCalls();
+        phaseStartAllocatedBytes = allocatedBytes();
+        phaseStartNanos = System.nanoTime();
+    }
+
+    public static void endPhase() {
+        if (currentSample == null) {
+            return;
+        }
+
+        long nanos = System.nanoTime() - phaseStartNanos;
+        currentSample.phaseNanos[currentPhase.ordinal()] += nanos;
+        currentSample.drawCalls += drawCalls - phaseStartDrawCalls;
+        currentSample.glStateChanges += GlStateTracker.emittedCalls() - phaseStartGlStateChanges;
+        if (currentSample.allocatedBytes >= 0) {
+            currentSample.allocatedBytes += allocatedBytes() - phaseStartAllocatedBytes;
+        }
+
+        currentSample = null;
+        currentPhase = null;
+    }
+
+    /** Returns stats for all profiled diagram groups, most-recently-drawn last. */
+    public static Iterable<GroupStats> allGroupStats() {
+        return groupStats.values();
+    }
+
+    /** Returns stats for the most recently drawn diagram group, or {@code null} if none. */
+    public static GroupStats lastGroupStats() {
+        return lastGroupId == null ? null : groupStats.get(lastGroupId);
+    }
+
+    private static GroupStats groupStats(DiagramGroupInfo info) {
+        return groupStats.computeIfAbsent(info.groupId(), id -> new GroupStats(info.groupName()));
+    }
+
+    public static void reset() {
+        groupStats.clear();
+        lastGroupId = null;
+        currentSample = null;
+        currentPhase = null;
+    }
+
+    private static boolean allocationTrackingSupported() {
+        return threadBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadBean)
+                        .isThreadAllocatedMemoryEnabled();
+    }
+
+    private static long allocatedBytes() {
+        if (!allocationTrackingSupported()) {
+            return -1;
+        }
+        return ((com.sun.management.ThreadMXBean) threadBean)
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
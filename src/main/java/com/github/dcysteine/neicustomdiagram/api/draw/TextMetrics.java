@@ -0,0 +1,112 @@
+package com.github.dcysteine.neicustomdiagram.api.draw;
+
+import codechicken.lib.gui.GuiDraw;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.gui.FontRenderer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tracks the client state that text measurements depend on, so that measurements can be cached.
+ *
+ * <p>String widths depend on the font renderer, which can be swapped out or switched to the
+ * unicode font, and on the language, which can change the font. We also treat a change in GUI
+ * scale as invalidating. Cached measurements should be tagged with the value of {@link #epoch()}
+ * they were computed under, and recomputed if it has since changed.
+ *
+ * <p>This class also holds a shared, bounded cache of string widths; prefer
+ * {@link #stringWidth(String, boolean)} over calling {@link GuiDraw#getStringWidth(String)}.
+ */
+public final class TextMetrics {
+    /** The maximum number of strings whose widths will be cached. */
+    private static final int MAX_CACHED_STRINGS = 4096;
+
+    private static FontRenderer lastFontRenderer = null;
+    private static boolean lastUnicodeFlag = false;
+    private static int lastGuiScale = -1;
+    private static String lastLanguage = null;
+
+    /** Starts at 0, so that cached values can use a negative epoch to mean "not yet computed". */
+    private static int epoch = 0;
+
+    /**
+     * Least-recently-used map of string to full-size width, in pixels.
+     *
+     * <p>Half-scale widths are derived from the full-size width, so there is no need to store them
+     * separately.
+     */
+    private static final Map<String, Integer> stringWidths =
+            new LinkedHashMap<String, Integer>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > MAX_CACHED_STRINGS;
+                }
+            };
+    private static int stringWidthsEpoch = -1;
+
+    // Static class.
+    private TextMetrics() {}
+
+    /**
+     * Returns the current measurement epoch. This value increases whenever the font renderer or
+     * GUI scale changes, which invalidates all cached text measurements.
+     */
+    public static int epoch() {
+        Minecraft minecraft = Minecraft.getMinecraft();
+        FontRenderer fontRenderer = minecraft.fontRenderer;
+        boolean unicodeFlag = fontRenderer != null && fontRenderer.getUnicodeFlag();
+        int guiScale = minecraft.gameSettings.guiScale;
+        String language = minecraft.gameSettings.language;
+
+        if (fontRenderer != lastFontRenderer
+                || unicodeFlag != lastUnicodeFlag
+                || guiScale != lastGuiScale
+                || !Objects.equals(language, lastLanguage)) {
+            lastFontRenderer = fontRenderer;
+            lastUnicodeFlag = unicodeFlag;
+            lastGuiScale = guiScale;
+            lastLanguage = language;
+            epoch++;
+        }
+
+        return epoch;
+    }
+
+    /**
+     * Returns the width of the given string, in pixels, re-using a cached value if possible.
+     *
+     * @param small Whether the string will be drawn at half-scale.
+     */
+    public static synchronized int stringWidth(String text, boolean small) {
+        int currentEpoch = epoch();
+        if (stringWidthsEpoch != currentEpoch) {
+            stringWidths.clear();
+            stringWidthsEpoch = currentEpoch;
+        }
+
+        Integer width = stringWidths.get(text);
+        if (width == null) {
+            width = GuiDraw.getStringWidth(text);
+            stringWidths.put(text, width);
+        }
+
+        return small ? width / 2 : width;
+    }
+
+    /** Returns the full-size width of the given string, in pixels. */
+    public static int stringWidth(String text) {
+        return stringWidth(text, false);
+    }
+
+    /**
+     * Forces all cached text measurements to be recomputed.
+     *
+     * <p>Call this when something other than the font changes the text being measured, such as
+     * config options that add IDs to component descriptions.
+     */
+    public static void invalidate() {
+        epoch++;
+    }
+}
@@ -4,14 +4,18 @@ import codechicken.lib.gui.GuiDraw;
 import codechicken.nei.guihook.GuiContainerManager;
 import codechicken.nei.recipe.GuiRecipe;
 import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
+import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
+import com.github.dcysteine.neicustomdiagram.api.draw.GlStateTracker;
 import com.github.dcysteine.neicustomdiagram.api.draw.Point;
 import com.github.dcysteine.neicustomdiagram.main.Reflection;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.ScaledResolution;
+import org.lwjgl.input.Mouse;
 import org.lwjgl.opengl.GL11;
 
-import java.util.Optional;
+import javax.annotation.Nullable;
+import java.util.Arrays;
 
 /** Handles scrolling support, as well as finding the mouse position. */
 public final class ScrollManager {
@@ -20,12 +24,122 @@ public final class ScrollManager {
     static final int BOTTOM_MARGIN = 5;
     static final int SIDE_MARGIN = 4;
 
+    /** Must be a power of 2. */
+    private static final int RECIPE_OFFSET_CACHE_SIZE = 8;
+
+    private static final Point ORIGIN = Point.create(0, 0);
+
+    /**
+     * Viewport geometry, which is cached until the GUI is replaced or resized, so that drawing a
+     * frame doesn't need to allocate.
+     */
+    private static final class Viewport {
+        @Nullable private GuiRecipe<?> gui = null;
+        private int guiWidth;
+        private int guiHeight;
+        private int guiLeft;
+        private int guiTop;
+        private int xSize;
+        private int ySize;
+        private int displayWidth;
+        private int displayHeight;
+
+        private Point position = Point.create(0, 0);
+        private Dimension dimension = Dimension.create(0, 0);
+
+        // The scissor region, in absolute screen coordinates.
+        private int scissorX;
+        private int scissorY;
+        private int scissorWidth;
+        private int scissorHeight;
+
+        private void clear() {
+            if (gui == null) {
+                return;
+            }
+
+            gui = null;
+            position = Point.create(0, 0);
+            dimension = Dimension.create(0, 0);
+        }
+
+        /** Returns whether the viewport geometry changed. */
+        private boolean refresh(GuiRecipe<?> gui) {
+            Minecraft minecraft = Minecraft.getMinecraft();
+            int guiLeft = Reflection.GUI_LEFT.getInt(gui);
+            int guiTop = Reflection.GUI_TOP.getInt(gui);
+            int xSize = Reflection.X_SIZE.getInt(gui);
+            int ySize = Reflection.Y_SIZE.getInt(gui);
+
+            if (gui == this.gui
+                    && gui.width == guiWidth && gui.height == guiHeight
+                    && guiLeft == this.guiLeft && guiTop == this.guiTop
+                    && xSize == this.xSize && ySize == this.ySize
+                    && minecraft.displayWidth == displayWidth
+                    && minecraft.displayHeight == displayHeight) {
+                return false;
+            }
+
+            this.gui = gui;
+            guiWidth = gui.width;
+            guiHeight = gui.height;
+            this.guiLeft = guiLeft;
+            this.guiTop = guiTop;
+            this.xSize = xSize;
+            this.ySize = ySize;
+            displayWidth = minecraft.displayWidth;
+            displayHeight = minecraft.displayHeight;
+
+            position = Point.create(guiLeft + SIDE_MARGIN, guiTop + TOP_MARGIN);
+            dimension =
+                    Dimension.create(
+                            xSize - 2 * SIDE_MARGIN, ySize - (TOP_MARGIN + BOTTOM_MARGIN));
+
+            int left = guiLeft + SIDE_MARGIN;
+            int bottom = gui.height - (guiTop + ySize) + BOTTOM_MARGIN;
+            ScaledResolution res = new ScaledResolution(minecraft, displayWidth, displayHeight);
+            int scaleFactor = res.getScaleFactor();
+
+            // glScissor measures from the bottom-left corner rather than the top-left corner.
+            // It also uses absolute screen coordinates, without taking into account the GUI scale
+            // factor, so we must manually compute the scale.
+            scissorX = left * scaleFactor;
+            scissorY = bottom * scaleFactor;
+            scissorWidth = dimension.width() * scaleFactor;
+            scissorHeight = dimension.height() * scaleFactor;
+            return true;
+        }
+    }
+
     private final Scrollbar verticalScrollbar;
     private final Scrollbar horizontalScrollbar;
+    private final Viewport viewport;
+
+    /** Cached result of {@link #getAbsoluteMousePosition()}. */
+    @Nullable private Point mousePosition;
+
+    /** Cached result of {@link #getRelativeMousePosition(int)}. */
+    @Nullable private Point relativeMousePosition;
+
+    /**
+     * Direct-mapped cache of {@link GuiRecipe#getRecipePosition(int)}, indexed by recipe index.
+     * Cleared whenever the viewport changes.
+     */
+    private final int[] recipeOffsetKeys;
+    private final int[] recipeOffsetsX;
+    private final int[] recipeOffsetsY;
 
     public ScrollManager() {
         verticalScrollbar = new Scrollbar(this, ScrollOrientation.VERTICAL);
         horizontalScrollbar = new Scrollbar(this, ScrollOrientation.HORIZONTAL);
+        viewport = new Viewport();
+        mousePosition = null;
+        relativeMousePosition = null;
+
+        recipeOffsetKeys = new int[RECIPE_OFFSET_CACHE_SIZE];
+        recipeOffsetsX = new int[RECIPE_OFFSET_CACHE_SIZE];
+        recipeOffsetsY = new int[RECIPE_OFFSET_CACHE_SIZE];
+        Arrays.fill(recipeOffsetKeys, -1);
     }
 
     public boolean keyboardScroll(Dimension diagramDimension, ScrollDirection direction) {
@@ -86,25 +200,57 @@ public final class ScrollManager {
     }
 
     public Point getAbsoluteMousePosition() {
-        java.awt.Point mouse = GuiDraw.getMousePosition();
-        return Point.create(mouse.x, mouse.y);
+        GuiRecipe<?> gui = refreshViewport();
+        if (gui == null) {
+            java.awt.Point mouse = GuiDraw.getMousePosition();
+            return Point.create(mouse.x, mouse.y);
+        }
+
+        // Same computation as GuiDraw.getMousePosition(), but without allocating.
+        Minecraft minecraft = Minecraft.getMinecraft();
+        int x = Mouse.getX() * gui.width / minecraft.displayWidth;
+        int y = gui.height - Mouse.getY() * gui.height / minecraft.displayHeight - 1;
+        if (mousePosition == null || mousePosition.x() != x || mousePosition.y() != y) {
+            mousePosition = Point.create(x, y);
+        }
+        return mousePosition;
+    }
+
+    /** Returns the horizontal scroll offset, in pixels. */
+    public int getHorizontalScroll() {
+        return horizontalScrollbar.getScroll();
+    }
+
+    /** Returns the vertical scroll offset, in pixels. */
+    public int getVerticalScroll() {
+        return verticalScrollbar.getScroll();
     }
 
     public Point getRelativeMousePosition(int recipe) {
-        Optional<GuiRecipe<?>> guiOptional = getGui();
-        if (!guiOptional.isPresent()) {
+        GuiRecipe<?> gui = refreshViewport();
+        if (gui == null) {
             // The GUI got closed already, or something.
-            return Point.create(0, 0);
+            return ORIGIN;
         }
-        GuiRecipe<?> gui = guiOptional.get();
 
-        java.awt.Point mouse = GuiDraw.getMousePosition();
-        java.awt.Point offset = gui.getRecipePosition(recipe);
+        Point mouse = getAbsoluteMousePosition();
+        int slot = recipe & (RECIPE_OFFSET_CACHE_SIZE - 1);
+        if (recipeOffsetKeys[slot] != recipe) {
+            java.awt.Point offset = gui.getRecipePosition(recipe);
+            recipeOffsetKeys[slot] = recipe;
+            recipeOffsetsX[slot] = offset.x;
+            recipeOffsetsY[slot] = offset.y;
+        }
 
-        int x = mouse.x + horizontalScrollbar.getScroll()
-                - (Reflection.GUI_LEFT.get(gui) + offset.x);
-        int y = mouse.y + verticalScrollbar.getScroll() - (Reflection.GUI_TOP.get(gui) + offset.y);
-        return Point.create(x, y);
+        int x = mouse.x() + horizontalScrollbar.getScroll()
+                - (viewport.guiLeft + recipeOffsetsX[slot]);
+        int y = mouse.y() + verticalScrollbar.getScroll()
+                - (viewport.guiTop + recipeOffsetsY[slot]);
+        if (relativeMousePosition == null
+                || relativeMousePosition.x() != x || relativeMousePosition.y() != y) {
+            relativeMousePosition = Point.create(x, y);
+        }
+        return relativeMousePosition;
     }
 
     /**
@@ -113,66 +259,44 @@ public final class ScrollManager {
      * <p>Note that this is incorrect for {@code glScissor}!
      */
     Point getViewportPosition() {
-        Optional<GuiRecipe<?>> guiOptional = getGui();
-        if (!guiOptional.isPresent()) {
-            // The GUI got closed already, or something.
-            return Point.create(0, 0);
-        }
-        GuiRecipe<?> gui = guiOptional.get();
-
-        return Point.create(
-                Reflection.GUI_LEFT.get(gui) + SIDE_MARGIN,
-                Reflection.GUI_TOP.get(gui) + TOP_MARGIN);
+        refreshViewport();
+        return viewport.position;
     }
 
     Dimension getViewportDimension() {
-        Optional<GuiRecipe<?>> guiOptional = getGui();
-        if (!guiOptional.isPresent()) {
-            // The GUI got closed already, or something.
-            return Dimension.create(0, 0);
-        }
-        GuiRecipe<?> gui = guiOptional.get();
-
-        return Dimension.create(
-                Reflection.X_SIZE.get(gui) - 2 * SIDE_MARGIN,
-                Reflection.Y_SIZE.get(gui) - (TOP_MARGIN + BOTTOM_MARGIN));
+        refreshViewport();
+        return viewport.dimension;
     }
 
     private void setScissor() {
-        Optional<GuiRecipe<?>> guiOptional = getGui();
-        if (!guiOptional.isPresent()) {
+        if (refreshViewport() == null) {
             // The GUI got closed already, or something.
             return;
         }
-        GuiRecipe<?> gui = guiOptional.get();
-
-        int left = Reflection.GUI_LEFT.get(gui) + SIDE_MARGIN;
-        int bottom =
-                gui.height - (Reflection.GUI_TOP.get(gui) + Reflection.Y_SIZE.get(gui))
-                        + BOTTOM_MARGIN;
-
-        Minecraft minecraft = Minecraft.getMinecraft();
-        ScaledResolution res =
-                new ScaledResolution(minecraft, minecraft.displayWidth, minecraft.displayHeight);
-        int scaleFactor = res.getScaleFactor();
 
-        Dimension viewportDim = getViewportDimension();
-        // glScissor measures from the bottom-left corner rather than the top-left corner.
-        // It also uses absolute screen coordinates, without taking into account the GUI scale
-        // factor, so we must manually compute the scale.
         GL11.glScissor(
-                left * scaleFactor, bottom * scaleFactor,
-                viewportDim.width() * scaleFactor, viewportDim.height() * scaleFactor);
+                viewport.scissorX, viewport.scissorY,
+                viewport.scissorWidth, viewport.scissorHeight);
     }
 
-    /** Returns empty {@link Optional} in cases such as the GUI being instantly closed. */
-    private Optional<GuiRecipe<?>> getGui() {
+    /**
+     * Re-computes the cached viewport geometry if the GUI has been replaced or resized.
+     *
+     * <p>Returns {@code null} in cases such as the GUI being instantly closed.
+     */
+    @Nullable
+    private GuiRecipe<?> refreshViewport() {
         GuiContainerManager manager = GuiContainerManager.getManager();
         if (manager == null || !(manager.window instanceof GuiRecipe)) {
-            return Optional.empty();
+            viewport.clear();
+            return null;
         }
 
-        return Optional.of((GuiRecipe<?>) manager.window);
+        GuiRecipe<?> gui = (GuiRecipe<?>) manager.window;
+        if (viewport.refresh(gui)) {
+            Arrays.fill(recipeOffsetKeys, -1);
+        }
+        return gui;
     }
 
     public void tick() {
@@ -191,25 +315,29 @@ public final class ScrollManager {
         GL11.glTranslatef(-horizontalScrollbar.getScroll(), -verticalScrollbar.getScroll(), 0);
         setScissor();
         GL11.glEnable(GL11.GL_SCISSOR_TEST);
-        GL11.glColor4f(1, 1, 1, 1);
+
+        GlStateTracker.beginPass();
+        GlStateTracker.setColour(Draw.Colour.WHITE);
     }
 
     public void afterDraw() {
+        GlStateTracker.endPass();
+
         GL11.glDisable(GL11.GL_SCISSOR_TEST);
         GL11.glPopMatrix();
     }
 
     /** This needs to be called with absolute coordinate context, such as when drawing tooltips. */
     public void drawScrollbars() {
-        GL11.glDisable(GL11.GL_DEPTH_TEST);
-        GL11.glDisable(GL11.GL_LIGHTING);
+        GlStateTracker.disable(GlStateTracker.Capability.DEPTH_TEST);
+        GlStateTracker.disable(GlStateTracker.Capability.LIGHTING);
         GuiDraw.gui.incZLevel(300);
 
         horizontalScrollbar.draw();
         verticalScrollbar.draw();
 
         GuiDraw.gui.incZLevel(-300);
-        GL11.glEnable(GL11.GL_LIGHTING);
-        GL11.glEnable(GL11.GL_DEPTH_TEST);
+        GlStateTracker.restore(GlStateTracker.Capability.LIGHTING);
+        GlStateTracker.restore(GlStateTracker.Capability.DEPTH_TEST);
     }
 }
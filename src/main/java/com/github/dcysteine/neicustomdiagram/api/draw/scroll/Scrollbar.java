@@ -170,54 +170,44 @@ class Scrollbar {
 
         int scrollbarAboveLength =
                 scroll * dimensions.scrollableLength / dimensions.offscreenLength;
-        // The top-left corner of the scrollbar above the cursor.
-        Point scrollbarAboveStart =
-                dimensions.anchor.translate(orientation.transposeScale(-SCROLLBAR_RADIUS));
-        Dimension scrollbarAboveDimension =
-                Dimension.create(scrollbarAboveLength, 2 * SCROLLBAR_RADIUS);
-        int scrollbarAboveWidth = orientation.dotProduct(scrollbarAboveDimension);
-        int scrollbarAboveHeight = orientation.transposeProduct(scrollbarAboveDimension);
-
-        // The top-left corner of the cursor.
-        Point cursorStart = dimensions.anchor.translate(orientation.scale(scrollbarAboveLength));
-        cursorStart = cursorStart.translate(orientation.transposeScale(-CURSOR_RADIUS));
-        Dimension cursorDimension = Dimension.create(dimensions.cursorLength, 2 * CURSOR_RADIUS);
-        int cursorWidth = orientation.dotProduct(cursorDimension);
-        int cursorHeight = orientation.transposeProduct(cursorDimension);
-
         int scrollbarBelowLength =
                 dimensions.scrollbarLength - (scrollbarAboveLength + dimensions.cursorLength);
-        // The top-left corner of the scrollbar below the cursor.
-        Point scrollbarBelowStart =
-                dimensions.end.translate(orientation.scale(-scrollbarBelowLength));
-        scrollbarBelowStart =
-                scrollbarBelowStart.translate(orientation.transposeScale(-SCROLLBAR_RADIUS));
-        Dimension scrollbarBelowDimension =
-                Dimension.create(scrollbarBelowLength, 2 * SCROLLBAR_RADIUS);
-        int scrollbarBelowWidth = orientation.dotProduct(scrollbarBelowDimension);
-        int scrollbarBelowHeight = orientation.transposeProduct(scrollbarBelowDimension);
 
         if (scrollbarAboveLength > 0) {
-            GuiDraw.drawRect(
-                    scrollbarAboveStart.x(), scrollbarAboveStart.y(),
-                    scrollbarAboveWidth, scrollbarAboveHeight, bgColour);
+            drawBar(0, scrollbarAboveLength, SCROLLBAR_RADIUS, bgColour);
         }
 
-        GuiDraw.drawRect(
-                cursorStart.x(), cursorStart.y(), cursorWidth, cursorHeight, fgColour);
+        drawBar(scrollbarAboveLength, dimensions.cursorLength, CURSOR_RADIUS, fgColour);
 
         if (scrollbarBelowLength > 0) {
-            GuiDraw.drawRect(
-                    scrollbarBelowStart.x(), scrollbarBelowStart.y(),
-                    scrollbarBelowWidth, scrollbarBelowHeight, bgColour);
+            drawBar(
+                    dimensions.scrollbarLength - scrollbarBelowLength, scrollbarBelowLength,
+                    SCROLLBAR_RADIUS, bgColour);
         }
     }
 
+    /**
+     * Draws a section of the scrollbar. Works with plain ints rather than points, as this is called
+     * every frame.
+     *
+     * @param start the offset of the start of the section from the scrollbar anchor, along the
+     *     scrollbar.
+     * @param length the length of the section, along the scrollbar.
+     * @param radius half of the thickness of the section, across the scrollbar.
+     */
+    private void drawBar(int start, int length, int radius, int colour) {
+        int x = dimensions.anchor.x() + orientation.xFactor * start - orientation.yFactor * radius;
+        int y = dimensions.anchor.y() + orientation.yFactor * start - orientation.xFactor * radius;
+        int width = orientation.xFactor * length + orientation.yFactor * 2 * radius;
+        int height = orientation.yFactor * length + orientation.xFactor * 2 * radius;
+        GuiDraw.drawRect(x, y, width, height, colour);
+    }
+
     /**
      * Helper class which computes and stores various parameters for the scrollbar.
      *
-     * <p>We'll re-compute these values each time the diagram is rendered, and then just store them,
-     * to avoid needlessly re-computing them.
+     * <p>We'll re-compute these values whenever the viewport or diagram size changes, and then just
+     * store them, to avoid needlessly re-computing them.
      */
     private class ScrollbarDimensions {
         private Point anchor = Point.create(0, 0);
@@ -241,9 +231,22 @@ class Scrollbar {
         /** The amount of the diagram that is offscreen and must be scrolled, in pixels. */
         private int offscreenLength = 0;
 
+        // The inputs that the above values were last computed from.
+        private Point lastViewportPos = null;
+        private Dimension lastViewportDim = null;
+        private Dimension lastDiagramDimension = null;
+
         public void compute(Dimension diagramDimension) {
             Point viewportPos = scrollManager.getViewportPosition();
             Dimension viewportDim = scrollManager.getViewportDimension();
+            if (viewportPos.equals(lastViewportPos)
+                    && viewportDim.equals(lastViewportDim)
+                    && diagramDimension.equals(lastDiagramDimension)) {
+                return;
+            }
+            lastViewportPos = viewportPos;
+            lastViewportDim = viewportDim;
+            lastDiagramDimension = diagramDimension;
 
             viewportLength = orientation.dotProduct(viewportDim);
             scrollbarLength = viewportLength;
@@ -0,0 +1,69 @@
+package com.github.dcysteine.neicustomdiagram.generators.debug.profiler;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.Diagram;
+import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGenerator;
+import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroup;
+import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroupInfo;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.CustomInteractable;
+import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactable;
+import com.github.dcysteine.neicustomdiagram.api.diagram.matcher.CustomDiagramMatcher;
+import com.github.dcysteine.neicustomdiagram.api.draw.RenderProfiler;
+import com.github.dcysteine.neicustomdiagram.main.Lang;
+import com.github.dcysteine.neicustomdiagram.main.config.DiagramGroupVisibility;
+import com.google.common.collect.Lists;
+import net.minecraft.init.Items;
+
+import java.util.Collection;
+
+/**
+ * Generates a debug diagram that shows how much time and work it takes to draw other diagrams.
+ *
+ * <p>Profiling is only enabled if this diagram group is generated, so it has no cost otherwise. To
+ * use it, look at the diagram group that you want to profile, and then switch to this one.
+ */
+public final class DebugProfiler implements DiagramGenerator {
+    public static final ItemComponent ICON = ItemComponent.create(Items.clock, 0);
+
+    private final DiagramGroupInfo info;
+    private Diagram diagram;
+
+    public DebugProfiler(String groupId) {
+        this.info =
+                DiagramGroupInfo.builder(
+                                Lang.DEBUG_PROFILER.trans("groupname"),
+                                groupId, ICON, 1)
+                        .setDefaultVisibility(DiagramGroupVisibility.DISABLED)
+                        .setDescription(
+                                "This diagram shows per-frame rendering statistics for recently"
+                                        + " viewed diagrams."
+                                        + "\nEnabling it turns on profiling, which has a small"
+                                        + " performance cost.")
+                        .build();
+    }
+
+    @Override
+    public DiagramGroupInfo info() {
+        return info;
+    }
+
+    @Override
+    public DiagramGroup generate() {
+        RenderProfiler.enable(info.groupId());
+
+        // The profiler display is an interactable, so that it gets drawn live every frame, rather
+        // than as part of the (possibly cached) background.
+        diagram =
+                Diagram.builder()
+                        .addInteractable(CustomInteractable.builder(new ProfilerDisplay()).build())
+                        .build();
+        return new DiagramGroup(
+                info, new CustomDiagramMatcher(this::generateDiagrams));
+    }
+
+    private Collection<Diagram> generateDiagrams(
+            Interactable.RecipeType recipeType, Component component) {
+        return Lists.newArrayList(diagram);
+    }
+}
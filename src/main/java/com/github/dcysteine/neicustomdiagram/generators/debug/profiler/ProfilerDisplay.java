@@ -0,0 +1,143 @@
+package com.github.dcysteine.neicustomdiagram.generators.debug.profiler;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramState;
+import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Grid;
+import com.github.dcysteine.neicustomdiagram.api.draw.BoundedDrawable;
+import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
+import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
+import com.github.dcysteine.neicustomdiagram.api.draw.Point;
+import com.github.dcysteine.neicustomdiagram.api.draw.RenderProfiler;
+import com.github.dcysteine.neicustomdiagram.main.Lang;
+
+/** Draws the current contents of {@link RenderProfiler}. */
+class ProfilerDisplay implements BoundedDrawable {
+    private static final int WIDTH = 2 * Grid.TOTAL_WIDTH;
+    private static final int HEIGHT = 2 * Grid.TOTAL_HEIGHT;
+    private static final Point TOP_LEFT = Point.create(4, 4);
+
+    /** Text is drawn at half-scale, so the line height is half of the usual. */
+    private static final int LINE_HEIGHT = Draw.TEXT_HEIGHT / 2 + 2;
+
+    private static final int MAX_GROUPS = 8;
+    private static final int MAX_DIAGRAMS_PER_GROUP = 3;
+
+    private static final int HISTOGRAM_LABEL_WIDTH = 48;
+    private static final int HISTOGRAM_BAR_MAX_LENGTH = WIDTH - HISTOGRAM_LABEL_WIDTH - 16;
+
+    private static final int TEXT_COLOUR = Draw.Colour.GREY;
+    private static final int HEADER_COLOUR = Draw.Colour.BLUE;
+    private static final int BAR_COLOUR = Draw.Colour.GREEN;
+
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
+    @Override
+    public Point position() {
+        return Point.create(WIDTH / 2, HEIGHT / 2);
+    }
+
+    @Override
+    public Dimension dimension() {
+        return Dimension.create(WIDTH, HEIGHT);
+    }
+
+    @Override
+    public void draw(DiagramState diagramState) {
+        RenderProfiler.GroupStats lastGroupStats = RenderProfiler.lastGroupStats();
+        if (lastGroupStats == null) {
+            drawLine(Lang.DEBUG_PROFILER.trans("nodata"), 0, TEXT_COLOUR);
+            return;
+        }
+
+        int line = 0;
+        int groups = 0;
+        for (RenderProfiler.GroupStats stats : RenderProfiler.allGroupStats()) {
+            if (groups++ >= MAX_GROUPS) {
+                break;
+            }
+
+            drawLine(
+                    Lang.DEBUG_PROFILER.transf(
+                            "groupsummary", stats.groupName(),
+                            stats.averageNanos() / NANOS_PER_MILLI,
+                            stats.maxNanos() / NANOS_PER_MILLI,
+                            stats.frameCount()),
+                    line++, HEADER_COLOUR);
+
+            int diagrams = 0;
+            for (RenderProfiler.Sample sample : stats.latestSamples().values()) {
+                if (diagrams++ >= MAX_DIAGRAMS_PER_GROUP) {
+                    break;
+                }
+
+                drawLine(
+                        Lang.DEBUG_PROFILER.transf(
+                                "diagramsummary", sample.recipe(),
+                                sample.phaseNanos(RenderProfiler.Phase.BACKGROUND)
+                                        / NANOS_PER_MILLI,
+                                sample.phaseNanos(RenderProfiler.Phase.FOREGROUND)
+                                        / NANOS_PER_MILLI,
+                                sample.phaseNanos(RenderProfiler.Phase.TOOLTIP)
+                                        / NANOS_PER_MILLI),
+                        line++, TEXT_COLOUR);
+
+                String allocated =
+                        sample.allocatedBytes() < 0
+                                ? Lang.DEBUG_PROFILER.trans("allocationunsupported")
+                                : Lang.DEBUG_PROFILER.transf(
+                                        "allocatedbytes", sample.allocatedBytes());
+                drawLine(
+                        Lang.DEBUG_PROFILER.transf(
+                                "diagramcounts", sample.drawCalls(), sample.glStateChanges(),
+                                sample.hitTests(), allocated),
+                        line++, TEXT_COLOUR);
+            }
+        }
+
+        line++;
+        drawHistogram(lastGroupStats, line);
+    }
+
+    private static void drawHistogram(RenderProfiler.GroupStats stats, int line) {
+        drawLine(
+                Lang.DEBUG_PROFILER.transf("histogramlabel", stats.groupName()),
+                line++, HEADER_COLOUR);
+
+        int[] histogram = stats.histogram();
+        int maxCount = 1;
+        for (int count : histogram) {
+            maxCount = Math.max(maxCount, count);
+        }
+
+        for (int i = 0; i < histogram.length; i++) {
+            String label;
+            if (i < RenderProfiler.HISTOGRAM_BUCKETS.size()) {
+                label =
+                        Lang.DEBUG_PROFILER.transf(
+                                "histogrambucket",
+                                RenderProfiler.HISTOGRAM_BUCKETS.get(i) / NANOS_PER_MILLI,
+                                histogram[i]);
+            } else {
+                label =
+                        Lang.DEBUG_PROFILER.transf(
+                                "histogramlastbucket",
+                                RenderProfiler.HISTOGRAM_BUCKETS.get(i - 1) / NANOS_PER_MILLI,
+                                histogram[i]);
+            }
+            drawLine(label, line, TEXT_COLOUR);
+
+            int length = histogram[i] * HISTOGRAM_BAR_MAX_LENGTH / maxCount;
+            if (length > 0) {
+                Point barStart =
+                        TOP_LEFT.translate(
+                                HISTOGRAM_LABEL_WIDTH, line * LINE_HEIGHT + LINE_HEIGHT / 2 - 1);
+                Draw.drawLine(barStart, barStart.translate(length, 0), BAR_COLOUR);
+            }
+            line++;
+        }
+    }
+
+    private static void drawLine(String text, int line, int colour) {
+        Draw.drawText(
+                text, TOP_LEFT.x(), TOP_LEFT.y() + line * LINE_HEIGHT, colour, true, false);
+    }
+}
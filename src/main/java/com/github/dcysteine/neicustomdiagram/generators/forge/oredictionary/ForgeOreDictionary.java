@@ -1,12 +1,11 @@
 package com.github.dcysteine.neicustomdiagram.generators.forge.oredictionary;
 
-import codechicken.lib.gui.GuiDraw;
 import com.github.dcysteine.neicustomdiagram.api.diagram.Diagram;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGenerator;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroup;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroupInfo;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
-import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponentSequence;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.CustomInteractable;
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactable;
@@ -16,9 +15,9 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.layout.SlotGroup;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Text;
 import com.github.dcysteine.neicustomdiagram.api.diagram.matcher.CustomDiagramMatcher;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.github.dcysteine.neicustomdiagram.main.config.DiagramGroupVisibility;
-import com.github.dcysteine.neicustomdiagram.util.ComponentTransformer;
 import com.github.dcysteine.neicustomdiagram.util.OreDictUtil;
 import net.minecraft.init.Items;
 
@@ -72,10 +71,9 @@ public final class ForgeOreDictionary implements DiagramGenerator {
 
     private static Diagram generateDiagram(String oreName) {
         List<ItemComponent> components = OreDictUtil.getComponents(oreName);
-        List<List<DisplayComponent>> displayComponentPermutations =
+        List<DisplayComponentSequence> displayComponentPermutations =
                 components.stream()
-                        .map(OreDictUtil::getPermutations)
-                        .map(ComponentTransformer::transformToDisplay)
+                        .map(OreDictUtil::getPermutationSequence)
                         .collect(Collectors.toList());
 
         Diagram.Builder builder = Diagram.builder().addLayout(buildLayout(oreName));
@@ -86,7 +84,7 @@ public final class ForgeOreDictionary implements DiagramGenerator {
     }
 
     private static Layout buildLayout(String oreName) {
-        boolean small = GuiDraw.getStringWidth(oreName) > Grid.TOTAL_WIDTH - 4;
+        boolean small = TextMetrics.stringWidth(oreName) > Grid.TOTAL_WIDTH - 4;
         Text oreNameText =
                 Text.builder(oreName, Grid.GRID.grid(6, 0), Grid.Direction.N)
                         .setSmall(small)
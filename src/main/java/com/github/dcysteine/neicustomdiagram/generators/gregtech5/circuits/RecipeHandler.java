@@ -1,17 +1,14 @@
 package com.github.dcysteine.neicustomdiagram.generators.gregtech5.circuits;
 
-import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
-import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeUtil;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeIndex;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
-import com.google.common.collect.Iterables;
-import com.google.common.collect.ListMultimap;
-import com.google.common.collect.MultimapBuilder;
 import gregtech.api.util.GT_Recipe;
 import net.minecraft.item.crafting.CraftingManager;
 import net.minecraft.item.crafting.IRecipe;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -21,8 +18,8 @@ class RecipeHandler {
     private final CircuitLineHandler circuitLineHandler;
 
     private Set<ItemComponent> craftingTableOutputs;
-    private Set<ItemComponent> assemblingMachineOutputs;
-    private Set<ItemComponent> assemblingLineOutputs;
+    private GregTechRecipeIndex.RecipeMapIndex assemblingMachineRecipes;
+    private GregTechRecipeIndex.RecipeMapIndex assemblingLineRecipes;
     private ImmutableListMultimap<ItemComponent, CircuitRecipe> circuitAssemblingMachineRecipes;
 
     RecipeHandler(CircuitLineHandler circuitLineHandler) {
@@ -42,45 +39,31 @@ class RecipeHandler {
                         recipe -> craftingTableOutputs.add(
                                 ItemComponent.create(recipe.getRecipeOutput())));
 
-        assemblingMachineOutputs =
-                GT_Recipe.GT_Recipe_Map.sAssemblerRecipes.mRecipeList.stream()
-                        .flatMap(
-                                recipe -> GregTechRecipeUtil.buildComponentsFromItemOutputs(recipe)
-                                        .stream())
-                        .map(DisplayComponent::component)
-                        .map(ItemComponent.class::cast)
-                        .collect(Collectors.toSet());
-
-        assemblingLineOutputs =
-                GT_Recipe.GT_Recipe_Map.sAssemblylineVisualRecipes.mRecipeList.stream()
-                        .flatMap(
-                                recipe -> GregTechRecipeUtil.buildComponentsFromItemOutputs(recipe)
-                                        .stream())
-                        .map(DisplayComponent::component)
-                        .map(ItemComponent.class::cast)
-                        .collect(Collectors.toSet());
-
-        Set<ItemComponent> allCircuits = circuitLineHandler.allCircuits();
-        ListMultimap<ItemComponent, GT_Recipe> circuitRecipes =
-                MultimapBuilder.hashKeys().arrayListValues().build();
-        for (GT_Recipe recipe : GT_Recipe.GT_Recipe_Map.sCircuitAssemblerRecipes.mRecipeList) {
-            ItemComponent output =
-                    (ItemComponent)
-                            Iterables.getOnlyElement(
-                                            GregTechRecipeUtil.buildComponentsFromItemOutputs(
-                                                    recipe))
-                                    .component();
-
-            if (allCircuits.contains(output)) {
-                circuitRecipes.put(output, recipe);
-            }
-        }
+        GregTechRecipeIndex gregTechRecipeIndex = GregTechRecipeIndex.get();
+        assemblingMachineRecipes =
+                gregTechRecipeIndex.recipeMap(GT_Recipe.GT_Recipe_Map.sAssemblerRecipes);
+        assemblingLineRecipes =
+                gregTechRecipeIndex.recipeMap(GT_Recipe.GT_Recipe_Map.sAssemblylineVisualRecipes);
 
+        GregTechRecipeIndex.RecipeMapIndex circuitAssemblerRecipes =
+                gregTechRecipeIndex.recipeMap(
+                        GT_Recipe.GT_Recipe_Map.sCircuitAssemblerRecipes);
         ImmutableListMultimap.Builder<ItemComponent, CircuitRecipe>
                 circuitAssemblingMachineRecipesBuilder = ImmutableListMultimap.builder();
-        circuitRecipes.asMap().forEach(
-                (key, value) -> circuitAssemblingMachineRecipesBuilder.putAll(
-                        key, CircuitRecipe.buildCircuitRecipes(value)));
+        for (ItemComponent circuit : circuitLineHandler.allCircuits()) {
+            int[] recipeIds =
+                    circuitAssemblerRecipes.recipesWithOutput(GregTechRecipeIndex.unify(circuit));
+            if (recipeIds.length == 0) {
+                continue;
+            }
+
+            List<GT_Recipe> recipes =
+                    Arrays.stream(recipeIds)
+                            .mapToObj(circuitAssemblerRecipes::recipe)
+                            .collect(Collectors.toList());
+            circuitAssemblingMachineRecipesBuilder.putAll(
+                    circuit, CircuitRecipe.buildCircuitRecipes(recipes));
+        }
         circuitAssemblingMachineRecipes = circuitAssemblingMachineRecipesBuilder.build();
     }
 
@@ -89,11 +72,11 @@ class RecipeHandler {
     }
 
     boolean hasAssemblingMachineRecipes(ItemComponent circuit) {
-        return assemblingMachineOutputs.contains(circuit);
+        return assemblingMachineRecipes.hasOutput(GregTechRecipeIndex.unify(circuit));
     }
 
     boolean hasAssemblingLineRecipes(ItemComponent circuit) {
-        return assemblingLineOutputs.contains(circuit);
+        return assemblingLineRecipes.hasOutput(GregTechRecipeIndex.unify(circuit));
     }
 
     ImmutableList<CircuitRecipe> getCircuitAssemblingMachineRecipes(ItemComponent circuit) {
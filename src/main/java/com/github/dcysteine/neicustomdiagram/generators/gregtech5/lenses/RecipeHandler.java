@@ -6,6 +6,7 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent
 import com.github.dcysteine.neicustomdiagram.main.Logger;
 import com.github.dcysteine.neicustomdiagram.util.OreDictUtil;
 import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechOreDictUtil;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeIndex;
 import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeUtil;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableSet;
@@ -18,6 +19,7 @@ import gregtech.api.enums.OrePrefixes;
 import gregtech.api.objects.ItemData;
 import gregtech.api.util.GT_Recipe;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
@@ -79,7 +81,17 @@ class RecipeHandler {
 
     /** This method must be called before any other methods are called. */
     void initialize() {
-        GT_Recipe.GT_Recipe_Map.sLaserEngraverRecipes.mRecipeList.forEach(this::handleRecipe);
+        GregTechRecipeIndex.RecipeMapIndex laserEngraverRecipes =
+                GregTechRecipeIndex.get().recipeMap(
+                        GT_Recipe.GT_Recipe_Map.sLaserEngraverRecipes);
+
+        // Only look at recipes which have a lens as input. A recipe will be handled once per lens
+        // that it contains, but our sorted sets will discard the duplicates.
+        laserEngraverRecipes.inputComponents().stream()
+                .filter(RecipeHandler::isLens)
+                .flatMapToInt(lens -> Arrays.stream(laserEngraverRecipes.recipesWithInput(lens)))
+                .mapToObj(laserEngraverRecipes::recipe)
+                .forEach(this::handleRecipe);
 
         // Check that lenses of the same colour all have the same recipes.
         for (LensColour colour : lensColours.keySet()) {
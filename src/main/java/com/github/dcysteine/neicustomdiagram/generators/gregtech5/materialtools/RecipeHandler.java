@@ -2,12 +2,14 @@ package com.github.dcysteine.neicustomdiagram.generators.gregtech5.materialtools
 
 import com.detrav.items.DetravMetaGeneratedTool01;
 import com.github.dcysteine.neicustomdiagram.api.Formatter;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.github.dcysteine.neicustomdiagram.main.Registry;
 import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechFormatting;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeIndex;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSortedSet;
@@ -156,8 +158,10 @@ class RecipeHandler {
         // First pass: find all tools with recipes, and group them by base NBT item stack.
         ((List<IRecipe>) CraftingManager.getInstance().getRecipeList())
                 .forEach(recipe -> addTool(recipe.getRecipeOutput()));
-        GT_Recipe.GT_Recipe_Map.sAssemblerRecipes.mRecipeList
-                .forEach(recipe -> addTool(recipe.getOutput(0)));
+        GregTechRecipeIndex.get().recipeMap(GT_Recipe.GT_Recipe_Map.sAssemblerRecipes)
+                .outputComponents().stream()
+                .filter(component -> component.type() == Component.ComponentType.ITEM)
+                .forEach(component -> addTool(((ItemComponent) component).stack()));
 
         // Second pass: iterate through and construct DisplayComponents for found tools.
         // We iterate on SortedSet copies so that the resulting lists of tools are ordered.
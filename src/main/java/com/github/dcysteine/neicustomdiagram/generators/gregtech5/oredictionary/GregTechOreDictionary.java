@@ -1,6 +1,5 @@
 package com.github.dcysteine.neicustomdiagram.generators.gregtech5.oredictionary;
 
-import codechicken.lib.gui.GuiDraw;
 import com.github.dcysteine.neicustomdiagram.api.diagram.Diagram;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGenerator;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroup;
@@ -15,6 +14,7 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.layout.SlotGroup;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.Text;
 import com.github.dcysteine.neicustomdiagram.api.diagram.matcher.CustomDiagramMatcher;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.github.dcysteine.neicustomdiagram.main.config.DiagramGroupVisibility;
 import com.github.dcysteine.neicustomdiagram.util.ComponentTransformer;
@@ -81,9 +81,9 @@ public final class GregTechOreDictionary implements DiagramGenerator {
 
         Diagram.Builder builder = Diagram.builder().addLayout(buildLayout(itemDataOptional));
         builder.autoInsertIntoSlotGroup(SLOT_GROUP_UNIFY)
-                .insertEachSafe(ComponentTransformer.transformToDisplay(unifyComponents));
+                .insertEachSafe(ComponentTransformer.transformToDisplaySequence(unifyComponents));
         builder.autoInsertIntoSlotGroup(SLOT_GROUP_ALL)
-                .insertEachSafe(ComponentTransformer.transformToDisplay(allComponents));
+                .insertEachSafe(ComponentTransformer.transformToDisplaySequence(allComponents));
 
         return Lists.newArrayList(builder.build());
     }
@@ -111,8 +111,8 @@ public final class GregTechOreDictionary implements DiagramGenerator {
             Materials material = itemDataOptional.get().mMaterial.mMaterial;
             String materialName = GregTechFormatting.getMaterialDescription(material);
             String prefixName = itemDataOptional.get().mPrefix.mRegularLocalName;
-            boolean materialSmall = GuiDraw.getStringWidth(materialName) > Grid.TOTAL_WIDTH - 4;
-            boolean prefixSmall = GuiDraw.getStringWidth(prefixName) > Grid.TOTAL_WIDTH - 4;
+            boolean materialSmall = TextMetrics.stringWidth(materialName) > Grid.TOTAL_WIDTH - 4;
+            boolean prefixSmall = TextMetrics.stringWidth(prefixName) > Grid.TOTAL_WIDTH - 4;
 
             Text materialNameText =
                     Text.builder(materialName, Grid.GRID.grid(6, 0), Grid.Direction.C)
@@ -3,33 +3,33 @@ package com.github.dcysteine.neicustomdiagram.generators.gregtech5.oreprocessing
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
 import com.github.dcysteine.neicustomdiagram.main.Logger;
-import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechOreDictUtil;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeIndex;
 import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeUtil;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.MultimapBuilder;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.SetMultimap;
 import gregtech.api.enums.Materials;
-import gregtech.api.util.GT_OreDictUnificator;
 import gregtech.api.util.GT_Recipe;
 import gregtech.api.util.GT_Utility;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.crafting.FurnaceRecipes;
 
-import java.util.Arrays;
-import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
-/** Class that caches GregTech recipe data and stores it in a map, for fast lookup later. */
+/**
+ * Class that looks up GregTech recipe data in the shared {@link GregTechRecipeIndex}, and caches
+ * the results.
+ *
+ * <p>Inputs are matched ignoring NBT, since ore processing diagrams are keyed by item and damage
+ * only, and so that an input with stray NBT doesn't hide its recipes.
+ */
 class RecipeHandler {
     enum RecipeMap {
         MACERATOR(GT_Recipe.GT_Recipe_Map.sMaceratorRecipes),
@@ -65,28 +65,24 @@ class RecipeHandler {
                                 GT_Utility.getFluidDisplayStack(
                                         Materials.SodiumPersulfate.mFluid)));
 
+        /**
+         * Note that this is the GregTech fluid display item, not the fluid. This is for
+         * convenience, because {@link GregTechRecipeUtil} returns GregTech fluid display items
+         * (when possible).
+         */
         final ItemComponent fluid;
 
         ChemicalBathFluid(ItemComponent fluid) {
             this.fluid = fluid;
         }
-
-        /**
-         * Note that the keys are GregTech fluid display items, not fluids. This is for convenience,
-         * because {@link GregTechRecipeUtil} returns GregTech fluid display items (when possible).
-         */
-        static final ImmutableMap<ItemComponent, ChemicalBathFluid> VALUES_MAP =
-                ImmutableMap.copyOf(
-                        Arrays.stream(values())
-                                .collect(Collectors.toMap(c -> c.fluid, Function.identity())));
     }
 
     /**
      * Helper class containing the input fluid amount, as well as the recipe outputs.
      *
-     * <p>This class is stored in {@code chemicalBathFluidData} below. Unlike {@code recipeData}, we
-     * cannot just map to {@code ImmutableList<DisplayComponent>}, because we must also store the
-     * additional information of how much of the chemical bath fluid is required as input.
+     * <p>Unlike other recipe lookups, we cannot just return
+     * {@code ImmutableList<DisplayComponent>}, because we must also return the additional
+     * information of how much of the chemical bath fluid is required as input.
      */
     @AutoValue
     public abstract static class ChemicalBathFluidRecipe {
@@ -99,100 +95,35 @@ class RecipeHandler {
         public abstract ImmutableList<DisplayComponent> outputs();
     }
 
+    /** The shared GregTech recipe index, which we look up recipes in. */
+    private GregTechRecipeIndex gregTechRecipeIndex;
+
     /**
-     * Map of recipe type to multimap. The multimaps are maps of input {@link ItemComponent}s to
-     * lists of {@link DisplayComponent}s representing the outputs for each recipe for that input.
-     *
-     * <p>We usually don't look up recipe outputs by fluid, so fluid inputs will be skipped when
-     * building this data. We have separate data structures for the few fluid lookups that we do.
+     * Cache of the outputs of each recipe that we've looked up. Ore processing diagrams look up
+     * the same recipes many times, such as for each ore variant of a material.
      */
-    private final EnumMap<RecipeMap,
-            SetMultimap<ItemComponent, ImmutableList<DisplayComponent>>> recipeData;
+    private final Map<GT_Recipe, ImmutableList<DisplayComponent>> recipeOutputs;
 
     /**
-     * Map of fluid to multimap. The multimaps are maps of input {@link ItemComponent}s to
-     * {@link ChemicalBathFluidRecipe}s containing the input fluid amount, as well as the chemical
-     * bath recipe outputs, for the given chemical bath fluid and input item.
+     * Cache of the input fluid of each chemical bath recipe that we've looked up, or empty optional
+     * if the recipe is malformed. Caching this also means that malformed recipes are only logged
+     * once.
      */
-    private final EnumMap<ChemicalBathFluid,
-            SetMultimap<ItemComponent, ChemicalBathFluidRecipe>> chemicalBathFluidData;
+    private final Map<GT_Recipe, Optional<DisplayComponent>> chemicalBathInputFluids;
 
     /** Map of smelting input to smelting output. */
     private final Map<ItemComponent, ItemComponent> furnaceData;
 
     RecipeHandler() {
-        this.recipeData = new EnumMap<>(RecipeMap.class);
-        this.chemicalBathFluidData = new EnumMap<>(ChemicalBathFluid.class);
+        this.recipeOutputs = new IdentityHashMap<>();
+        this.chemicalBathInputFluids = new IdentityHashMap<>();
         this.furnaceData = new HashMap<>();
     }
 
     /** This method must be called before any other methods are called. */
     @SuppressWarnings("unchecked")
     void initialize() {
-        Arrays.stream(ChemicalBathFluid.values()).forEach(
-                chemicalBathFluid -> chemicalBathFluidData.put(
-                        chemicalBathFluid, MultimapBuilder.hashKeys().hashSetValues().build()));
-
-        for (RecipeMap recipeMap : RecipeMap.values()) {
-            SetMultimap<ItemComponent, ImmutableList<DisplayComponent>> multimap =
-                    MultimapBuilder.hashKeys().hashSetValues().build();
-            recipeData.put(recipeMap, multimap);
-
-            for (GT_Recipe recipe : recipeMap.recipeMap.mRecipeList) {
-                ImmutableList<DisplayComponent> outputs =
-                        ImmutableList.copyOf(GregTechRecipeUtil.buildComponentsFromOutputs(recipe));
-
-                Optional<ChemicalBathFluid> chemicalBathFluidOptional = Optional.empty();
-                int inputFluidAmount = 0;
-                if (recipeMap == RecipeMap.CHEMICAL_BATH) {
-                    List<DisplayComponent> fluidInputs =
-                            GregTechRecipeUtil.buildComponents(recipe.mFluidInputs);
-
-                    if (fluidInputs.size() != 1) {
-                        Logger.GREGTECH_5_ORE_PROCESSING.warn(
-                                "Found chemical bath recipe with {} fluids:\n[{}]\n ->\n[{}]",
-                                fluidInputs.size(),
-                                GregTechRecipeUtil.buildComponentsFromInputs(recipe),
-                                GregTechRecipeUtil.buildComponentsFromOutputs(recipe));
-                    } else {
-                        DisplayComponent inputFluid = Iterables.getOnlyElement(fluidInputs);
-
-                        if (inputFluid.stackSize().isPresent()) {
-                            chemicalBathFluidOptional =
-                                    Optional.ofNullable(
-                                            ChemicalBathFluid.VALUES_MAP.get(
-                                                    inputFluid.component()));
-                            inputFluidAmount = inputFluid.stackSize().get();
-                        } else {
-                            Logger.GREGTECH_5_ORE_PROCESSING.warn(
-                                    "Found chemical bath recipe missing input fluid stack size:\n[{}]\n ->\n[{}]",
-                                    GregTechRecipeUtil.buildComponentsFromInputs(recipe),
-                                    GregTechRecipeUtil.buildComponentsFromOutputs(recipe));
-                        }
-                    }
-                }
-
-                for (ItemStack itemStack : recipe.mInputs) {
-                    if (itemStack == null) {
-                        continue;
-                    }
-
-                    ItemComponent itemComponent =
-                            ItemComponent.create(GT_OreDictUnificator.get_nocopy(itemStack));
-                    multimap.put(itemComponent, outputs);
-
-                    // Need an effectively final variable here so that we can reference it within
-                    // the lambda.
-                    final int finalInputFluidAmount = inputFluidAmount;
-                    chemicalBathFluidOptional.ifPresent(
-                            chemicalBathFluid -> chemicalBathFluidData.get(chemicalBathFluid)
-                                    .put(
-                                            itemComponent,
-                                            ChemicalBathFluidRecipe.create(
-                                                    finalInputFluidAmount, outputs)));
-                }
-            }
-        }
+        gregTechRecipeIndex = GregTechRecipeIndex.get();
 
         ((Map<ItemStack, ItemStack>) FurnaceRecipes.smelting().getSmeltingList())
                 .forEach(
@@ -201,11 +132,25 @@ class RecipeHandler {
                                         ItemComponent.create(key), ItemComponent.create(value)));
     }
 
-    /** The returned set is immutable! */
-    Set<ImmutableList<DisplayComponent>> getRecipeOutputs(
+    /**
+     * Returns the outputs of each recipe including {@code input}, without duplicates.
+     *
+     * <p>We usually don't look up recipe outputs by fluid, so this only supports item inputs. See
+     * {@link #getUniqueChemicalBathOutput(ChemicalBathFluid, ItemComponent)} for the few fluid
+     * lookups that we do.
+     */
+    ImmutableSet<ImmutableList<DisplayComponent>> getRecipeOutputs(
             RecipeMap recipeMap, ItemComponent input) {
-        return Multimaps.unmodifiableSetMultimap(recipeData.get(recipeMap))
-                .get((ItemComponent) GregTechOreDictUtil.unify(input));
+        GregTechRecipeIndex.RecipeMapIndex recipeMapIndex =
+                gregTechRecipeIndex.recipeMap(recipeMap.recipeMap);
+
+        ImmutableSet.Builder<ImmutableList<DisplayComponent>> builder = ImmutableSet.builder();
+        for (int recipeId :
+                recipeMapIndex.recipesWithInputIgnoringNbt(
+                        GregTechRecipeIndex.unify(input.stack()))) {
+            builder.add(getOutputs(recipeMapIndex.recipe(recipeId)));
+        }
+        return builder.build();
     }
 
     /**
@@ -216,8 +161,7 @@ class RecipeHandler {
      */
     Optional<ImmutableList<DisplayComponent>> getUniqueRecipeOutput(
             RecipeMap recipeMap, ItemComponent input) {
-        Set<ImmutableList<DisplayComponent>> outputs = recipeData.get(recipeMap)
-                .get((ItemComponent) GregTechOreDictUtil.unify(input));
+        Set<ImmutableList<DisplayComponent>> outputs = getRecipeOutputs(recipeMap, input);
 
         if (outputs.size() > 1) {
             Logger.GREGTECH_5_ORE_PROCESSING.warn(
@@ -240,8 +184,17 @@ class RecipeHandler {
      */
     Optional<ChemicalBathFluidRecipe> getUniqueChemicalBathOutput(
             ChemicalBathFluid chemicalBathFluid, ItemComponent input) {
-        Set<ChemicalBathFluidRecipe> outputs =
-                chemicalBathFluidData.get(chemicalBathFluid).get(input);
+        GregTechRecipeIndex.RecipeMapIndex recipeMapIndex =
+                gregTechRecipeIndex.recipeMap(RecipeMap.CHEMICAL_BATH.recipeMap);
+
+        Set<ChemicalBathFluidRecipe> outputs = new HashSet<>();
+        for (int recipeId :
+                recipeMapIndex.recipesWithInputIgnoringNbt(
+                        GregTechRecipeIndex.unify(input.stack()))) {
+            buildChemicalBathFluidRecipe(recipeMapIndex.recipe(recipeId), chemicalBathFluid)
+                    .ifPresent(outputs::add);
+        }
+
         if (outputs.size() > 1) {
             Logger.GREGTECH_5_ORE_PROCESSING.warn(
                     "Found {} chemical bath recipes: [{}] [{}]",
@@ -255,6 +208,62 @@ class RecipeHandler {
         return Optional.of(Iterables.getOnlyElement(outputs));
     }
 
+    /**
+     * Returns the input fluid amount and outputs of {@code recipe}, if its only input fluid is
+     * {@code chemicalBathFluid}.
+     */
+    private Optional<ChemicalBathFluidRecipe> buildChemicalBathFluidRecipe(
+            GT_Recipe recipe, ChemicalBathFluid chemicalBathFluid) {
+        Optional<DisplayComponent> inputFluidOptional =
+                chemicalBathInputFluids.computeIfAbsent(recipe, this::getChemicalBathInputFluid);
+        if (!inputFluidOptional.isPresent()) {
+            return Optional.empty();
+        }
+
+        DisplayComponent inputFluid = inputFluidOptional.get();
+        if (!inputFluid.component().equals(chemicalBathFluid.fluid)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(
+                ChemicalBathFluidRecipe.create(inputFluid.stackSize().get(), getOutputs(recipe)));
+    }
+
+    /**
+     * Returns the only input fluid of {@code recipe}, which is guaranteed to have a stack size, or
+     * empty optional (and logs a warning) if the recipe is malformed.
+     */
+    private Optional<DisplayComponent> getChemicalBathInputFluid(GT_Recipe recipe) {
+        List<DisplayComponent> fluidInputs =
+                GregTechRecipeUtil.buildComponents(recipe.mFluidInputs);
+
+        if (fluidInputs.size() != 1) {
+            Logger.GREGTECH_5_ORE_PROCESSING.warn(
+                    "Found chemical bath recipe with {} fluids:\n[{}]\n ->\n[{}]",
+                    fluidInputs.size(),
+                    GregTechRecipeUtil.buildComponentsFromInputs(recipe),
+                    GregTechRecipeUtil.buildComponentsFromOutputs(recipe));
+            return Optional.empty();
+        }
+
+        DisplayComponent inputFluid = Iterables.getOnlyElement(fluidInputs);
+        if (!inputFluid.stackSize().isPresent()) {
+            Logger.GREGTECH_5_ORE_PROCESSING.warn(
+                    "Found chemical bath recipe missing input fluid stack size:\n[{}]\n ->\n[{}]",
+                    GregTechRecipeUtil.buildComponentsFromInputs(recipe),
+                    GregTechRecipeUtil.buildComponentsFromOutputs(recipe));
+            return Optional.empty();
+        }
+
+        return Optional.of(inputFluid);
+    }
+
+    private ImmutableList<DisplayComponent> getOutputs(GT_Recipe recipe) {
+        return recipeOutputs.computeIfAbsent(
+                recipe,
+                r -> ImmutableList.copyOf(GregTechRecipeUtil.buildComponentsFromOutputs(r)));
+    }
+
     Optional<ItemComponent> getFurnaceRecipeOutput(ItemComponent input) {
         return Optional.ofNullable(furnaceData.get(input));
     }
@@ -2,29 +2,45 @@ package com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugge
 
 import com.github.dcysteine.neicustomdiagram.api.diagram.Diagram;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroupInfo;
+import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramState;
+import com.github.dcysteine.neicustomdiagram.api.diagram.LazyDiagramList;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.CustomInteractable;
+import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactable;
 import com.github.dcysteine.neicustomdiagram.api.diagram.layout.ComponentLabel;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
+import com.github.dcysteine.neicustomdiagram.api.draw.Dimension;
 import com.github.dcysteine.neicustomdiagram.api.draw.Draw;
+import com.github.dcysteine.neicustomdiagram.api.draw.Point;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.github.dcysteine.neicustomdiagram.util.ComponentTransformer;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
-import com.google.common.collect.MultimapBuilder;
 
-import java.util.ArrayList;
+import javax.annotation.Nullable;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 class DiagramHandler {
+    /** The number of recently viewed pages to keep, per view. */
+    private static final int MAX_CACHED_PAGES = 16;
+
+    /** Drawn over the button of a view which is still being computed. */
+    private static final String COMPUTING_TEXT = "...";
+
     private final DiagramGroupInfo info;
     private final LayoutFactory layoutFactory;
     private final RecipeHandler recipeHandler;
 
-    private final ListMultimap<GregTechRecipeDebugger.View, Diagram> diagramListMultimap;
+    /**
+     * The diagrams for each view, for only those views which have been computed. The diagrams
+     * themselves are built lazily.
+     */
+    private final Map<GregTechRecipeDebugger.View, List<Diagram>> diagramMap;
     private Diagram menuDiagram;
 
     DiagramHandler(
@@ -33,40 +49,18 @@ class DiagramHandler {
         this.layoutFactory = layoutFactory;
         this.recipeHandler = recipeHandler;
 
-        this.diagramListMultimap =
-                MultimapBuilder
-                        .enumKeys(GregTechRecipeDebugger.View.class)
-                        .arrayListValues()
-                        .build();
+        this.diagramMap = new EnumMap<>(GregTechRecipeDebugger.View.class);
     }
 
-    /** This method must be called before any other methods are called. */
+    /**
+     * This method must be called before any other methods are called.
+     *
+     * <p>Only the menu diagram is built here. Each view is checked, and its diagrams built, the
+     * first time that it is requested. Checks run in the background, so a view can't be opened
+     * until its checks have finished.
+     */
     void initialize() {
-        diagramListMultimap.put(
-                GregTechRecipeDebugger.View.PROGRAMMED_CIRCUITS, buildProgrammedCircuitsDiagram());
-        diagramListMultimap.putAll(
-                GregTechRecipeDebugger.View.CONSUME_CIRCUIT_RECIPES,
-                buildRecipeDiagrams(recipeHandler.consumeCircuitRecipes));
-        diagramListMultimap.putAll(
-                GregTechRecipeDebugger.View.UNNECESSARY_CIRCUIT_RECIPES,
-                buildRecipeDiagrams(recipeHandler.unnecessaryCircuitRecipes));
-        diagramListMultimap.putAll(
-                GregTechRecipeDebugger.View.COLLIDING_RECIPES,
-                buildRecipeDiagrams(ImmutableList.copyOf(recipeHandler.collidingRecipes)));
-        diagramListMultimap.putAll(
-                GregTechRecipeDebugger.View.VOIDING_RECIPES,
-                buildRecipeDiagrams(recipeHandler.voidingRecipes));
-        diagramListMultimap.putAll(
-                GregTechRecipeDebugger.View.UNEQUAL_CELL_RECIPES,
-                buildRecipeDiagrams(recipeHandler.unequalCellRecipes));
-        diagramListMultimap.putAll(
-                GregTechRecipeDebugger.View.SMALL_VARIANT_RECIPES,
-                buildRecipeDiagrams(recipeHandler.smallVariantRecipes));
-        diagramListMultimap.putAll(
-                GregTechRecipeDebugger.View.BAD_CRAFTING_TABLE_RECIPES,
-                buildRecipeDiagrams(recipeHandler.badCraftingTableRecipes));
-
-        // This must be last, as it reads counts from diagramListMultimap.
+        diagramMap.clear();
         menuDiagram = buildMenuDiagram();
     }
 
@@ -74,39 +68,40 @@ class DiagramHandler {
         return Lists.newArrayList(menuDiagram);
     }
 
+    /**
+     * Returns the diagrams for {@code view}, or an empty list if {@code view} is still being
+     * computed. Returning an empty list means that NEI stays on the menu diagram, where the view's
+     * button shows that it is computing.
+     */
     List<Diagram> getDiagrams(GregTechRecipeDebugger.View view) {
-        return diagramListMultimap.get(view);
+        List<Diagram> diagrams = diagramMap.get(view);
+        if (diagrams == null) {
+            Optional<List<Diagram>> builtDiagrams = buildDiagrams(view);
+            if (!builtDiagrams.isPresent()) {
+                return ImmutableList.of();
+            }
+
+            diagrams = builtDiagrams.get();
+            diagramMap.put(view, diagrams);
+        }
+        return diagrams;
     }
 
-    private CustomInteractable buildViewButton(GregTechRecipeDebugger.View view) {
-        return CustomInteractable.builder(
-                        ComponentLabel.create(
-                                view.icon, LayoutFactory.VIEW_BUTTON_POSITIONS.get(view)))
-                .setTooltip(
-                        Tooltip.builder()
-                                .setFormatting(Tooltip.SPECIAL_FORMATTING)
-                                .addTextLine(Lang.GREGTECH_5_RECIPE_DEBUGGER.trans(view.tooltipKey))
-                                .addSpacing()
-                                .setFormatting(Tooltip.INFO_FORMATTING)
-                                .addTextLine(
-                                        Lang.GREGTECH_5_RECIPE_DEBUGGER.transf(
-                                                "diagramcount",
-                                                diagramListMultimap.get(view).size()))
-                                .build())
-                .setInteract(view.behaviorId(info))
-                .setDrawBackground(Draw::drawRaisedSlot)
-                .setDrawOverlay(pos -> Draw.drawOverlay(pos, Draw.Colour.OVERLAY_BLUE))
-                .build();
+    private Optional<List<Diagram>> buildDiagrams(GregTechRecipeDebugger.View view) {
+        if (view == GregTechRecipeDebugger.View.PROGRAMMED_CIRCUITS) {
+            return Optional.of(ImmutableList.of(buildProgrammedCircuitsDiagram()));
+        }
+
+        return recipeHandler.getRecipes(view).map(this::buildRecipeDiagrams);
     }
 
     private Diagram buildMenuDiagram() {
-        int recipeCount =
-                recipeHandler.allRecipes.values().stream().mapToInt(RecipePartitioner::size).sum();
         Diagram.Builder builder =
-                Diagram.builder().addLayout(layoutFactory.buildMenuLayout(recipeCount));
+                Diagram.builder()
+                        .addLayout(layoutFactory.buildMenuLayout(RecipeHandler.countRecipes()));
 
         Arrays.stream(GregTechRecipeDebugger.View.values())
-                .forEach(view -> builder.addInteractable(buildViewButton(view)));
+                .forEach(view -> builder.addInteractable(new ViewButton(view)));
 
         return builder.build();
     }
@@ -125,27 +120,156 @@ class DiagramHandler {
         return builder.build();
     }
 
+    /**
+     * Views can have thousands of pages, most of which will never be looked at, so pages are only
+     * built when they are displayed.
+     */
     private List<Diagram> buildRecipeDiagrams(List<RecipeHandler.Recipe> recipes) {
-        List<Diagram> diagrams = new ArrayList<>();
-
         List<List<RecipeHandler.Recipe>> partitionedRecipes =
                 Lists.partition(recipes, LayoutFactory.SlotGroupKeys.RECIPES_PER_PAGE);
-        for (List<RecipeHandler.Recipe> partition : partitionedRecipes) {
-            Diagram.Builder builder = Diagram.builder().addInteractable(layoutFactory.menuButton());
+        return new LazyDiagramList(
+                partitionedRecipes.size(),
+                page -> buildRecipeDiagram(partitionedRecipes.get(page)),
+                MAX_CACHED_PAGES);
+    }
+
+    private Diagram buildRecipeDiagram(List<RecipeHandler.Recipe> partition) {
+        Diagram.Builder builder = Diagram.builder().addInteractable(layoutFactory.menuButton());
 
-            for (int i = 0; i < partition.size(); i++) {
-                RecipeHandler.Recipe recipe = partition.get(i);
+        for (int i = 0; i < partition.size(); i++) {
+            RecipeHandler.Recipe recipe = partition.get(i);
 
-                builder.addLayout(layoutFactory.buildRecipeLayout(i, recipe.recipeMap()));
-                builder.autoInsertIntoSlotGroup(LayoutFactory.SlotGroupKeys.RECIPE_INPUTS.get(i))
-                        .insertEachSafe(recipe.displayInputs());
-                builder.autoInsertIntoSlotGroup(LayoutFactory.SlotGroupKeys.RECIPE_OUTPUTS.get(i))
-                        .insertEachSafe(recipe.displayOutputs());
+            builder.addLayout(layoutFactory.buildRecipeLayout(i, recipe));
+            builder.autoInsertIntoSlotGroup(LayoutFactory.SlotGroupKeys.RECIPE_INPUTS.get(i))
+                    .insertEachSafe(recipe.displayInputs());
+            builder.autoInsertIntoSlotGroup(LayoutFactory.SlotGroupKeys.RECIPE_OUTPUTS.get(i))
+                    .insertEachSafe(recipe.displayOutputs());
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Menu button for a view.
+     *
+     * <p>Views are only computed once they are first clicked, so the tooltip can only show results
+     * after that. So we delegate everything except the tooltip, and the marker drawn while the view
+     * is computing, to a {@link CustomInteractable}.
+     *
+     * <p>The programmed circuits view doesn't run any checks, so its button just shows a fixed
+     * tooltip, and is never shown as computing.
+     */
+    private final class ViewButton implements Interactable {
+        private final GregTechRecipeDebugger.View view;
+        private final boolean isCheck;
+        private final CustomInteractable button;
+
+        private final Tooltip computingTooltip;
+
+        /** Built once the view has been computed. */
+        @Nullable private Tooltip computedTooltip;
+
+        private ViewButton(GregTechRecipeDebugger.View view) {
+            this.view = view;
+            this.isCheck = view != GregTechRecipeDebugger.View.PROGRAMMED_CIRCUITS;
+
+            // The programmed circuits view is always a single diagram.
+            String statusLine =
+                    isCheck
+                            ? Lang.GREGTECH_5_RECIPE_DEBUGGER.trans("notcomputedlabel")
+                            : Lang.GREGTECH_5_RECIPE_DEBUGGER.transf("diagramcount", 1);
+            this.button =
+                    CustomInteractable.builder(
+                                    ComponentLabel.create(
+                                            view.icon,
+                                            LayoutFactory.VIEW_BUTTON_POSITIONS.get(view)))
+                            .setTooltip(buildTooltipBuilder().addTextLine(statusLine).build())
+                            .setInteract(view.behaviorId(info))
+                            .setDrawBackground(Draw::drawRaisedSlot)
+                            .setDrawOverlay(pos -> Draw.drawOverlay(pos, Draw.Colour.OVERLAY_BLUE))
+                            .build();
+            this.computingTooltip =
+                    buildTooltipBuilder()
+                            .addTextLine(Lang.GREGTECH_5_RECIPE_DEBUGGER.trans("computinglabel"))
+                            .build();
+        }
+
+        private Tooltip.Builder buildTooltipBuilder() {
+            return Tooltip.builder()
+                    .setFormatting(Tooltip.SPECIAL_FORMATTING)
+                    .addTextLine(Lang.GREGTECH_5_RECIPE_DEBUGGER.trans(view.tooltipKey))
+                    .addSpacing()
+                    .setFormatting(Tooltip.INFO_FORMATTING);
+        }
+
+        private Tooltip tooltip() {
+            if (!isCheck) {
+                return button.tooltip();
+            }
+
+            if (recipeHandler.isComputing(view)) {
+                return computingTooltip;
             }
 
-            diagrams.add(builder.build());
+            if (!diagramMap.containsKey(view) && !recipeHandler.isComputed(view)) {
+                return button.tooltip();
+            }
+
+            // The checks may have finished without the view having been opened since, so make sure
+            // that its diagrams have been built.
+            List<Diagram> diagrams = getDiagrams(view);
+
+            if (computedTooltip == null) {
+                Tooltip.Builder builder =
+                        buildTooltipBuilder()
+                                .addTextLine(
+                                        Lang.GREGTECH_5_RECIPE_DEBUGGER.transf(
+                                                "diagramcount", diagrams.size()));
+
+                int incompleteCount = recipeHandler.getIncompleteRecipeMaps(view).size();
+                if (incompleteCount > 0) {
+                    builder.setFormatting(Tooltip.URGENT_FORMATTING)
+                            .addTextLine(
+                                    Lang.GREGTECH_5_RECIPE_DEBUGGER.transf(
+                                            "incompleterecipemapcount", incompleteCount));
+                }
+                computedTooltip = builder.build();
+            }
+            return computedTooltip;
         }
 
-        return diagrams;
+        @Override
+        public Point position() {
+            return button.position();
+        }
+
+        @Override
+        public Dimension dimension() {
+            return button.dimension();
+        }
+
+        @Override
+        public void interact(DiagramState diagramState, RecipeType recipeType) {
+            button.interact(diagramState, recipeType);
+        }
+
+        @Override
+        public void draw(DiagramState diagramState) {
+            button.draw(diagramState);
+
+            if (isCheck && recipeHandler.isComputing(view)) {
+                Draw.drawAdditionalInfo(COMPUTING_TEXT, position(), false);
+            }
+        }
+
+        @Override
+        public void drawOverlay(DiagramState diagramState) {
+            button.drawOverlay(diagramState);
+        }
+
+        @Override
+        public void drawTooltip(DiagramState diagramState, Point mousePos) {
+            tooltip().draw(mousePos);
+        }
     }
 }
@@ -9,6 +9,7 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent
 import com.github.dcysteine.neicustomdiagram.api.diagram.interactable.Interactable;
 import com.github.dcysteine.neicustomdiagram.api.diagram.matcher.CustomDiagramMatcher;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
+import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
 import com.github.dcysteine.neicustomdiagram.main.config.DiagramGroupVisibility;
 import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechOreDictUtil;
 import com.google.common.collect.ImmutableMap;
@@ -72,6 +73,11 @@ public final class GregTechRecipeDebugger implements DiagramGenerator {
                 "-bad-crafting-table-recipes",
                 ItemComponent.create(Blocks.crafting_table, 0).get(),
                 "badcraftingtablerecipesbutton"),
+
+        DUPLICATE_RECIPES(
+                "-duplicate-recipes",
+                ItemComponent.create(Items.paper, 0),
+                "duplicaterecipesbutton"),
         ;
 
         /** The suffix to append to the group ID, to get the custom behavior ID for this view. */
@@ -132,6 +138,10 @@ public final class GregTechRecipeDebugger implements DiagramGenerator {
         recipeHandler.initialize();
         diagramHandler.initialize();
 
+        if (ConfigOptions.RECIPE_DEBUGGER_EXPORT.get()) {
+            new ReportExporter(recipeHandler).export();
+        }
+
         ImmutableMap.Builder<String, Supplier<Collection<Diagram>>> customBehaviorMapBuilder =
                 ImmutableMap.builder();
         Arrays.stream(View.values())
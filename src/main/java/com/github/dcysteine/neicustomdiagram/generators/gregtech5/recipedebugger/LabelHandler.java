@@ -24,12 +24,28 @@ class LabelHandler {
         }
     }
 
-    CustomInteractable buildLabel(RecipeHandler.RecipeMap recipeMap, Point pos) {
+    CustomInteractable buildLabel(RecipeHandler.Recipe recipe, Point pos) {
+        RecipeHandler.RecipeMap recipeMap = recipe.recipeMap();
         ComponentLabel label = ComponentLabel.create(componentMap.get(recipeMap), pos);
-        Tooltip tooltip =
-                Tooltip.create(
-                        Lang.GREGTECH_5_RECIPE_DEBUGGER.trans(recipeMap.tooltipKey),
-                        Tooltip.INFO_FORMATTING);
+
+        Tooltip.Builder tooltipBuilder =
+                Tooltip.builder()
+                        .setFormatting(Tooltip.INFO_FORMATTING)
+                        .addTextLine(Lang.GREGTECH_5_RECIPE_DEBUGGER.trans(recipeMap.tooltipKey));
+        if (recipeMap != RecipeHandler.RecipeMap.CRAFTING_TABLE) {
+            // Shown so that near-exact duplicate recipes can be told apart.
+            tooltipBuilder
+                    .addSpacing()
+                    .addTextLine(
+                            Lang.GREGTECH_5_RECIPE_DEBUGGER.transf("eutlabel", recipe.euPerTick()))
+                    .addTextLine(
+                            Lang.GREGTECH_5_RECIPE_DEBUGGER.transf(
+                                    "durationlabel", recipe.duration()))
+                    .addTextLine(
+                            Lang.GREGTECH_5_RECIPE_DEBUGGER.transf(
+                                    "specialvaluelabel", recipe.specialValue()));
+        }
+        Tooltip tooltip = tooltipBuilder.build();
 
         return CustomInteractable.builder(label)
                 .setTooltip(tooltip)
@@ -33,6 +33,7 @@ class LayoutFactory {
                     .put(
                             GregTechRecipeDebugger.View.BAD_CRAFTING_TABLE_RECIPES,
                             Grid.GRID.grid(0, 4))
+                    .put(GregTechRecipeDebugger.View.DUPLICATE_RECIPES, Grid.GRID.grid(2, 4))
                     .build();
 
     static final class SlotGroupKeys {
@@ -95,7 +96,7 @@ class LayoutFactory {
                 .build();
     }
 
-    Layout buildRecipeLayout(int i, RecipeHandler.RecipeMap recipeMap) {
+    Layout buildRecipeLayout(int i, RecipeHandler.Recipe recipe) {
         Preconditions.checkArgument(
                 i >= 0 && i < SlotGroupKeys.RECIPES_PER_PAGE,
                 "i not in range [0, %d): %d", SlotGroupKeys.RECIPES_PER_PAGE, i);
@@ -106,7 +107,7 @@ class LayoutFactory {
                         Lines.builder(Grid.GRID.grid(5, y))
                                 .addArrow(Grid.edge(Grid.GRID.grid(9, y), Grid.Direction.W))
                                 .build())
-                .addInteractable(labelHandler.buildLabel(recipeMap, Grid.GRID.grid(7, y)))
+                .addInteractable(labelHandler.buildLabel(recipe, Grid.GRID.grid(7, y)))
                 .putSlotGroup(
                         SlotGroupKeys.RECIPE_INPUTS.get(i),
                         SlotGroup.builder(4, 5, Grid.GRID.grid(5, y), Grid.Direction.W)
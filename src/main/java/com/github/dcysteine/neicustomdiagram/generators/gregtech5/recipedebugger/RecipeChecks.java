@@ -0,0 +1,305 @@
+package com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugger;
+
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.ComponentStacks;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * The recipe checks behind the recipe debugger's views. These are shared by {@link RecipeHandler},
+ * which runs them in-game, and by {@link SnapshotReportExporter}, which runs them on a recipe
+ * snapshot, so that the two always agree.
+ *
+ * <p>Checks only look at interned component IDs, and at flags which were computed for each
+ * component up front, by {@link RecipeHandler#componentFlags}. So this class doesn't depend on
+ * GregTech, and it is safe to run checks in parallel.
+ */
+final class RecipeChecks {
+    /** Component flag for programmed circuits. */
+    static final int PROGRAMMED_CIRCUIT = 1;
+
+    /** Component flag for schematics. */
+    static final int SCHEMATIC = 1 << 1;
+
+    /** Component flag for cells (and other capsules). */
+    static final int CELL = 1 << 2;
+
+    /** Component flag for tiny dusts, small dusts, and nuggets. */
+    static final int SMALL_VARIANT = 1 << 3;
+
+    /** Component flag for cables. */
+    static final int CABLE = 1 << 4;
+
+    // Recipe maps are identified by the names of RecipeHandler.RecipeMap values, which we can't
+    // reference directly, as it needs GregTech.
+    private static final String MACERATOR = "MACERATOR";
+    private static final String ASSEMBLING_MACHINE = "ASSEMBLING_MACHINE";
+    private static final String CUTTING_MACHINE = "CUTTING_MACHINE";
+    private static final ImmutableSet<String> RECIPE_MAPS_TO_IGNORE_FOR_SMALL_VARIANT =
+            ImmutableSet.of(
+                    // These recipemaps are meant to have tiny / small dusts or nuggets.
+                    "PACKAGER",
+                    "UNPACKAGER",
+                    MACERATOR,
+                    "LATHE",
+                    "FLUID_EXTRACTOR",
+                    "IMPLOSION_COMPRESSOR",
+                    "ALLOY_SMELTER");
+
+    /** A recipe that can be checked. */
+    interface CheckedRecipe {
+        /** The name of this recipe's {@link RecipeHandler.RecipeMap}. */
+        String recipeMapName();
+
+        /** Interned component IDs, with stack sizes. */
+        ComponentStacks inputs();
+
+        /** Interned component IDs, with stack sizes. */
+        ComponentStacks outputs();
+    }
+
+    /**
+     * The views which are found by checking each recipe in turn. Names match those of
+     * {@link GregTechRecipeDebugger.View}, which we can't use directly, as it needs GregTech.
+     */
+    enum Check {
+        CONSUME_CIRCUIT_RECIPES,
+        UNNECESSARY_CIRCUIT_RECIPES,
+        COLLIDING_RECIPES,
+        VOIDING_RECIPES,
+        UNEQUAL_CELL_RECIPES,
+        SMALL_VARIANT_RECIPES,
+        ;
+
+        /** Returns a new, empty collection to collect the results of this check into. */
+        <R> Collection<R> newResults() {
+            // Each colliding recipe will be found once per recipe that it collides with, so we
+            // collect into a set to remove repeats.
+            return this == COLLIDING_RECIPES ? new LinkedHashSet<>() : new ArrayList<>();
+        }
+
+        /**
+         * Checks {@code recipe}, adding any recipes that it finds to {@code results}.
+         *
+         * @param componentFlags the flags of each component, indexed by component ID.
+         */
+        <R extends CheckedRecipe> void check(
+                R recipe, RecipeIndex<R> recipeIndex, int[] componentFlags,
+                Collection<R> results) {
+            boolean found;
+            switch (this) {
+                case CONSUME_CIRCUIT_RECIPES:
+                    found = consumesCircuit(recipe, componentFlags);
+                    break;
+
+                case UNNECESSARY_CIRCUIT_RECIPES:
+                    found = unnecessaryCircuit(recipe, recipeIndex, componentFlags);
+                    break;
+
+                case COLLIDING_RECIPES:
+                    results.addAll(findCollidingRecipes(recipe, recipeIndex));
+                    return;
+
+                case VOIDING_RECIPES:
+                    found = voidingRecipe(recipe);
+                    break;
+
+                case UNEQUAL_CELL_RECIPES:
+                    found = unequalCellRecipe(recipe, componentFlags);
+                    break;
+
+                case SMALL_VARIANT_RECIPES:
+                    found = smallVariantRecipe(recipe, componentFlags);
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unhandled check: " + name());
+            }
+
+            if (found) {
+                results.add(recipe);
+            }
+        }
+    }
+
+    /**
+     * Canonical signature of a recipe, consisting of its recipe map and its unified inputs and
+     * outputs, with amounts.
+     *
+     * <p>Recipes with equal signatures are duplicates. They may still differ in EU/t, duration, or
+     * special value, in which case they are near-exact duplicates rather than exact duplicates.
+     */
+    @AutoValue
+    abstract static class Signature {
+        static Signature create(CheckedRecipe recipe) {
+            return new AutoValue_RecipeChecks_Signature(
+                    recipe.recipeMapName(), recipe.inputs(), recipe.outputs());
+        }
+
+        abstract String recipeMapName();
+        abstract ComponentStacks inputs();
+        abstract ComponentStacks outputs();
+    }
+
+    // Static class.
+    private RecipeChecks() {}
+
+    /**
+     * There are a few bad recipes, which cause trouble for the recipe checks and are not actually
+     * valid. Returns {@code false} for these, so that they can be filtered out.
+     *
+     * @param isItem tests whether a component ID is an item, rather than a fluid.
+     */
+    static boolean isValid(CheckedRecipe recipe, IntPredicate isItem) {
+        if (recipe.recipeMapName().equals(CUTTING_MACHINE)) {
+            // There are invalid cutting machine recipes which contain only fluids, and no items.
+            ComponentStacks inputs = recipe.inputs();
+            return IntStream.range(0, inputs.size()).map(inputs::id).anyMatch(isItem);
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds exact and near-exact duplicate recipes. Rather than comparing every pair of recipes,
+     * we bucket recipes by signature, which only takes a single pass.
+     *
+     * <p>Duplicates are returned grouped together, with groups in the order in which they were
+     * first found.
+     */
+    static <R extends CheckedRecipe> ImmutableList<R> findDuplicateRecipes(Iterable<R> recipes) {
+        Map<Signature, List<R>> signatureMap = new LinkedHashMap<>();
+        for (R recipe : recipes) {
+            signatureMap.computeIfAbsent(Signature.create(recipe), k -> new ArrayList<>(1))
+                    .add(recipe);
+        }
+
+        ImmutableList.Builder<R> duplicateRecipesBuilder = ImmutableList.builder();
+        for (List<R> duplicates : signatureMap.values()) {
+            if (duplicates.size() > 1) {
+                duplicateRecipesBuilder.addAll(duplicates);
+            }
+        }
+        return duplicateRecipesBuilder.build();
+    }
+
+    private static boolean hasFlag(int[] componentFlags, int id, int flag) {
+        return (componentFlags[id] & flag) != 0;
+    }
+
+    /** Returns whether any component in {@code components} has any of {@code flags}. */
+    private static boolean anyHasFlag(ComponentStacks components, int[] componentFlags, int flags) {
+        for (int i = 0; i < components.size(); i++) {
+            if (hasFlag(componentFlags, components.id(i), flags)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the IDs of {@code components}, without any programmed circuits. */
+    private static int[] filterCircuits(ComponentStacks components, int[] componentFlags) {
+        return IntStream.range(0, components.size())
+                .map(components::id)
+                .filter(id -> !hasFlag(componentFlags, id, PROGRAMMED_CIRCUIT))
+                .toArray();
+    }
+
+    private static boolean consumesCircuit(CheckedRecipe recipe, int[] componentFlags) {
+        ComponentStacks inputs = recipe.inputs();
+        for (int i = 0; i < inputs.size(); i++) {
+            if (hasFlag(componentFlags, inputs.id(i), PROGRAMMED_CIRCUIT | SCHEMATIC)
+                    && inputs.amount(i) > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static <R extends CheckedRecipe> boolean unnecessaryCircuit(
+            R recipe, RecipeIndex<R> recipeIndex, int[] componentFlags) {
+        int[] nonCircuitInputs = filterCircuits(recipe.inputs(), componentFlags);
+        if (nonCircuitInputs.length == recipe.inputs().size()) {
+            return false;
+        }
+
+        // These are exactly the recipes whose inputs contain all of our non-circuit inputs.
+        // Our own recipe will always be one of them.
+        for (R otherRecipe : recipeIndex.lookup(nonCircuitInputs)) {
+            if (recipe != otherRecipe) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static <R extends CheckedRecipe> Set<R> findCollidingRecipes(
+            R recipe, RecipeIndex<R> recipeIndex) {
+        // These are exactly the recipes whose inputs contain all of our inputs, including us.
+        List<R> matchingRecipes = recipeIndex.lookup(recipe.inputs().ids());
+        if (matchingRecipes.size() <= 1) {
+            return ImmutableSet.of();
+        }
+
+        Set<R> collidingRecipes = new LinkedHashSet<>();
+        collidingRecipes.add(recipe);
+        collidingRecipes.addAll(matchingRecipes);
+
+        // Exact duplicates of this recipe are equal to it, and so collapse into it in the set. As
+        // before, they don't count as collisions on their own; the duplicate recipes view finds
+        // those.
+        return collidingRecipes.size() > 1 ? collidingRecipes : ImmutableSet.of();
+    }
+
+    private static boolean voidingRecipe(CheckedRecipe recipe) {
+        return recipe.outputs().isSubsetComparingStackSizes(recipe.inputs());
+    }
+
+    private static int countCells(ComponentStacks components, int[] componentFlags) {
+        int cells = 0;
+        for (int i = 0; i < components.size(); i++) {
+            if (hasFlag(componentFlags, components.id(i), CELL)) {
+                cells += components.amount(i);
+            }
+        }
+
+        return cells;
+    }
+
+    private static boolean unequalCellRecipe(CheckedRecipe recipe, int[] componentFlags) {
+        // Prevent spamming the unequal cell recipes view with macerator recipes.
+        if (recipe.recipeMapName().equals(MACERATOR)) {
+            return false;
+        }
+
+        return countCells(recipe.inputs(), componentFlags)
+                != countCells(recipe.outputs(), componentFlags);
+    }
+
+    private static boolean smallVariantRecipe(CheckedRecipe recipe, int[] componentFlags) {
+        if (RECIPE_MAPS_TO_IGNORE_FOR_SMALL_VARIANT.contains(recipe.recipeMapName())) {
+            return false;
+        }
+
+        if (recipe.recipeMapName().equals(ASSEMBLING_MACHINE)
+                && anyHasFlag(recipe.outputs(), componentFlags, CABLE)) {
+            // Allow using small dusts for cable insulation.
+            return false;
+        } else {
+            return anyHasFlag(recipe.outputs(), componentFlags, SMALL_VARIANT)
+                    || anyHasFlag(recipe.inputs(), componentFlags, SMALL_VARIANT);
+        }
+    }
+}
@@ -3,22 +3,24 @@ package com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugge
 import codechicken.nei.NEIServerUtils;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
-import com.github.dcysteine.neicustomdiagram.api.diagram.component.FluidComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.github.dcysteine.neicustomdiagram.main.Logger;
+import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.ComponentStacks;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.ComponentTable;
 import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechOreDictUtil;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeIndex;
 import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeUtil;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Sets;
+import com.google.common.collect.Iterables;
 import gregtech.api.enums.ItemList;
 import gregtech.api.enums.OrePrefixes;
 import gregtech.api.util.GT_ModHandler;
-import gregtech.api.util.GT_OreDictUnificator;
 import gregtech.api.util.GT_Recipe;
 import gregtech.api.util.GT_Utility;
 import net.minecraft.item.Item;
@@ -27,21 +29,27 @@ import net.minecraft.item.crafting.CraftingManager;
 import net.minecraft.item.crafting.IRecipe;
 import net.minecraft.item.crafting.ShapedRecipes;
 import net.minecraft.item.crafting.ShapelessRecipes;
-import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.oredict.ShapedOreRecipe;
 import net.minecraftforge.oredict.ShapelessOreRecipe;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -69,15 +77,6 @@ class RecipeHandler {
             OrePrefixes.cableGt08,
             OrePrefixes.cableGt12,
             OrePrefixes.cableGt16);
-    static final ImmutableSet<RecipeMap> RECIPE_MAPS_TO_IGNORE_FOR_SMALL_VARIANT = ImmutableSet.of(
-            // These recipemaps are meant to have tiny / small dusts or nuggets.
-            RecipeMap.PACKAGER,
-            RecipeMap.UNPACKAGER,
-            RecipeMap.MACERATOR,
-            RecipeMap.LATHE,
-            RecipeMap.FLUID_EXTRACTOR,
-            RecipeMap.IMPLOSION_COMPRESSOR,
-            RecipeMap.ALLOY_SMELTER);
 
     enum RecipeMap {
         /**
@@ -153,9 +152,10 @@ class RecipeHandler {
         FERMENTER(
                 GT_Recipe.GT_Recipe_Map.sFermentingRecipes,
                 ItemList.Machine_HV_Fermenter, "fermenterlabel"),
-        // Fluid Solidifier
-        // Be warned: this thing has way too many recipes (~46k), and they all have similar
-        // components! Expect extreme slow-down if you want to add it.
+        // This one has a huge number of recipes (~46k), which all have similar components.
+        FLUID_SOLIDIFIER(
+                GT_Recipe.GT_Recipe_Map.sFluidSolidficationRecipes,
+                ItemList.Machine_HV_FluidSolidifier, "fluidsolidifierlabel"),
         FLUID_EXTRACTOR(
                 GT_Recipe.GT_Recipe_Map.sFluidExtractionRecipes,
                 ItemList.Machine_HV_FluidExtractor, "fluidextractorlabel"),
@@ -269,47 +269,48 @@ class RecipeHandler {
         }
     }
 
-    @AutoValue
-    abstract static class Recipe {
-        static Recipe create(RecipeMap recipeMap, GT_Recipe recipe) {
-            Map<Component, Integer> inputs = new HashMap<>();
-            for (ItemStack itemStack : recipe.mInputs) {
-                if (itemStack == null) {
-                    continue;
-                }
-                ItemStack unified = GT_OreDictUnificator.get_nocopy(itemStack);
-                inputs.merge(
-                        ItemComponent.createWithNbt(unified), itemStack.stackSize, Integer::sum);
-            }
-            for (FluidStack fluidStack : recipe.mFluidInputs) {
-                if (fluidStack == null) {
-                    continue;
-                }
-                inputs.merge(
-                        FluidComponent.createWithNbt(fluidStack), fluidStack.amount, Integer::sum);
-            }
-
-            Map<Component, Integer> outputs = new HashMap<>();
-            for (ItemStack itemStack : recipe.mOutputs) {
-                if (itemStack == null) {
-                    continue;
-                }
-                ItemStack unified = GT_OreDictUnificator.get_nocopy(itemStack);
-                outputs.merge(
-                        ItemComponent.createWithNbt(unified), itemStack.stackSize, Integer::sum);
-            }
-            for (FluidStack fluidStack : recipe.mFluidOutputs) {
-                if (fluidStack == null) {
-                    continue;
-                }
-                outputs.merge(
-                        FluidComponent.createWithNbt(fluidStack), fluidStack.amount, Integer::sum);
-            }
+    /**
+     * A recipe, with its unified components interned in a {@link ComponentTable}.
+     *
+     * <p>We keep every recipe of every recipe map in memory while checking, but only a small
+     * fraction of them are ever shown. So display components are built on demand, rather than
+     * stored.
+     *
+     * <p>Equality is by recipe map, components, EU/t, duration, and special value. Two recipes
+     * which are equal are exact duplicates.
+     */
+    static final class Recipe implements RecipeChecks.CheckedRecipe {
+        private final RecipeMap recipeMap;
+        private final ComponentStacks inputs;
+        private final ComponentStacks outputs;
+        private final int euPerTick;
+        private final int duration;
+        private final int specialValue;
+        private final DisplaySource displaySource;
+
+        private Recipe(
+                RecipeMap recipeMap, ComponentStacks inputs, ComponentStacks outputs,
+                int euPerTick, int duration, int specialValue, DisplaySource displaySource) {
+            this.recipeMap = recipeMap;
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.euPerTick = euPerTick;
+            this.duration = duration;
+            this.specialValue = specialValue;
+            this.displaySource = displaySource;
+        }
 
-            return new AutoValue_RecipeHandler_Recipe(
-                    recipeMap, ImmutableMap.copyOf(inputs), ImmutableMap.copyOf(outputs),
-                    ImmutableList.copyOf(GregTechRecipeUtil.buildComponentsFromInputs(recipe)),
-                    ImmutableList.copyOf(GregTechRecipeUtil.buildComponentsFromOutputs(recipe)));
+        /**
+         * Creates a recipe from {@code recipeMapIndex}, which already holds its unified components.
+         */
+        static Recipe create(
+                RecipeMap recipeMap, GregTechRecipeIndex.RecipeMapIndex recipeMapIndex,
+                int recipeId) {
+            GT_Recipe recipe = recipeMapIndex.recipe(recipeId);
+            return new Recipe(
+                    recipeMap, recipeMapIndex.inputs(recipeId), recipeMapIndex.outputs(recipeId),
+                    recipe.mEUt, recipe.mDuration, recipe.mSpecialValue,
+                    DisplaySource.of(recipe));
         }
 
         /**
@@ -317,7 +318,8 @@ class RecipeHandler {
          * If so, returns an optional of a {@link Recipe}; otherwise, returns an empty optional.
          */
         @SuppressWarnings("unchecked")
-        static Optional<Recipe> createIfBadItemStack(IRecipe recipe) {
+        static Optional<Recipe> createIfBadItemStack(
+                IRecipe recipe, ComponentTable componentTable) {
             boolean badRecipe = false;
 
             List<DisplayComponent> inputList = new ArrayList<>();
@@ -401,273 +403,677 @@ class RecipeHandler {
 
             if (badRecipe) {
                 return Optional.of(
-                        new AutoValue_RecipeHandler_Recipe(
+                        new Recipe(
                                 RecipeMap.CRAFTING_TABLE,
-                                ImmutableMap.copyOf(inputs), ImmutableMap.copyOf(outputs),
-                                ImmutableList.copyOf(inputList), ImmutableList.copyOf(outputList)));
+                                internAll(inputs, componentTable),
+                                internAll(outputs, componentTable),
+                                0, 0, 0, DisplaySource.of(inputList, outputList)));
             } else {
                 return Optional.empty();
             }
         }
 
-        abstract RecipeMap recipeMap();
+        private static ComponentStacks internAll(
+                Map<Component, Integer> components, ComponentTable componentTable) {
+            ComponentStacks.Builder builder = ComponentStacks.builder();
+            components.forEach(
+                    (component, amount) -> builder.add(componentTable.intern(component), amount));
+            return builder.build();
+        }
 
-        /** Map of component to stack size. */
-        abstract ImmutableMap<Component, Integer> inputs();
+        RecipeMap recipeMap() {
+            return recipeMap;
+        }
 
-        /** Map of component to stack size. */
-        abstract ImmutableMap<Component, Integer> outputs();
+        @Override
+        public String recipeMapName() {
+            return recipeMap.name();
+        }
 
-        abstract ImmutableList<DisplayComponent> displayInputs();
-        abstract ImmutableList<DisplayComponent> displayOutputs();
-    }
+        @Override
+        public ComponentStacks inputs() {
+            return inputs;
+        }
 
-    final Map<RecipeMap, RecipePartitioner> allRecipes;
-    final List<Recipe> consumeCircuitRecipes;
-    final List<Recipe> unnecessaryCircuitRecipes;
-    final Set<Recipe> collidingRecipes;
-    final List<Recipe> voidingRecipes;
-    final List<Recipe> unequalCellRecipes;
-    final List<Recipe> smallVariantRecipes;
-    final List<Recipe> badCraftingTableRecipes;
+        @Override
+        public ComponentStacks outputs() {
+            return outputs;
+        }
 
-    RecipeHandler() {
-        this.allRecipes = new HashMap<>();
-        this.consumeCircuitRecipes = new ArrayList<>();
-        this.unnecessaryCircuitRecipes = new ArrayList<>();
-        this.collidingRecipes = new LinkedHashSet<>();
-        this.voidingRecipes = new ArrayList<>();
-        this.unequalCellRecipes = new ArrayList<>();
-        this.smallVariantRecipes = new ArrayList<>();
-        this.badCraftingTableRecipes = new ArrayList<>();
-    }
+        /** Built on demand; the result is not cached. */
+        ImmutableList<DisplayComponent> displayInputs() {
+            return displaySource.inputs();
+        }
 
-    /** This method must be called before any other methods are called. */
-    @SuppressWarnings("unchecked")
-    void initialize() {
-        // First pass: build recipe data.
-        for (RecipeMap recipeMap : RecipeMap.values()) {
-            if (recipeMap == RecipeMap.CRAFTING_TABLE) {
-                continue;
-            }
+        /** Built on demand; the result is not cached. */
+        ImmutableList<DisplayComponent> displayOutputs() {
+            return displaySource.outputs();
+        }
 
-            Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
-                    "Checking recipes, pass 1: {}", recipeMap.name());
+        /** Will be 0 for crafting table recipes. */
+        int euPerTick() {
+            return euPerTick;
+        }
 
-            ImmutableList.Builder<Recipe> recipeListBuilder = ImmutableList.builder();
-                    recipeMap.recipeMap.mRecipeList.stream()
-                            .map(recipe -> Recipe.create(recipeMap, recipe))
-                            .filter(recipe -> RecipeHandler.filterRecipes(recipeMap, recipe))
-                            .forEach(recipeListBuilder::add);
+        /** In ticks. Will be 0 for crafting table recipes. */
+        int duration() {
+            return duration;
+        }
 
-            RecipePartitioner recipePartitioner = new RecipePartitioner(recipeListBuilder.build());
-            recipePartitioner.initialize();
-            allRecipes.put(recipeMap, recipePartitioner);
+        /** Will be 0 for crafting table recipes. */
+        int specialValue() {
+            return specialValue;
         }
 
-        // Second pass: check recipes for overlap, etc.
-        for (RecipeMap recipeMap : RecipeMap.values()) {
-            if (recipeMap == RecipeMap.CRAFTING_TABLE) {
-                continue;
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Recipe)) {
+                return false;
             }
 
-            Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
-                    "Checking recipes, pass 2: {} [{}]",
-                    recipeMap.name(), allRecipes.get(recipeMap).size());
+            Recipe otherRecipe = (Recipe) other;
+            return recipeMap == otherRecipe.recipeMap
+                    && euPerTick == otherRecipe.euPerTick
+                    && duration == otherRecipe.duration
+                    && specialValue == otherRecipe.specialValue
+                    && inputs.equals(otherRecipe.inputs)
+                    && outputs.equals(otherRecipe.outputs);
+        }
 
-            RecipePartitioner recipePartitioner = allRecipes.get(recipeMap);
-            for (Recipe recipe : recipePartitioner.allRecipes()) {
-                Iterable<Recipe> matchingRecipes =
-                        recipePartitioner.lookup(recipe.inputs().keySet());
+        @Override
+        public int hashCode() {
+            return Objects.hash(recipeMap, inputs, outputs, euPerTick, duration, specialValue);
+        }
+    }
 
-                if (consumesCircuit(recipe)) {
-                    consumeCircuitRecipes.add(recipe);
+    /** Source of a recipe's display components. */
+    private interface DisplaySource {
+        ImmutableList<DisplayComponent> inputs();
+        ImmutableList<DisplayComponent> outputs();
+
+        /** Builds display components from {@code recipe} each time they are requested. */
+        static DisplaySource of(GT_Recipe recipe) {
+            return new DisplaySource() {
+                @Override
+                public ImmutableList<DisplayComponent> inputs() {
+                    return ImmutableList.copyOf(
+                            GregTechRecipeUtil.buildComponentsFromInputs(recipe));
                 }
 
-                if (unnecessaryCircuit(recipe, matchingRecipes)) {
-                    unnecessaryCircuitRecipes.add(recipe);
+                @Override
+                public ImmutableList<DisplayComponent> outputs() {
+                    return ImmutableList.copyOf(
+                            GregTechRecipeUtil.buildComponentsFromOutputs(recipe));
                 }
+            };
+        }
 
-                collidingRecipes.addAll(findCollidingRecipes(recipe, matchingRecipes));
-
-                if (voidingRecipe(recipe)) {
-                    voidingRecipes.add(recipe);
+        static DisplaySource of(List<DisplayComponent> inputs, List<DisplayComponent> outputs) {
+            ImmutableList<DisplayComponent> inputList = ImmutableList.copyOf(inputs);
+            ImmutableList<DisplayComponent> outputList = ImmutableList.copyOf(outputs);
+            return new DisplaySource() {
+                @Override
+                public ImmutableList<DisplayComponent> inputs() {
+                    return inputList;
                 }
 
-                if (unequalCellRecipe(recipe)) {
-                    unequalCellRecipes.add(recipe);
+                @Override
+                public ImmutableList<DisplayComponent> outputs() {
+                    return outputList;
                 }
+            };
+        }
+    }
 
-                if (smallVariantRecipe(recipe)) {
-                    smallVariantRecipes.add(recipe);
-                }
-            }
+    /** The results of checking a single view. */
+    @AutoValue
+    abstract static class ViewResult {
+        private static final ViewResult EMPTY = create(ImmutableList.of(), ImmutableSet.of());
+
+        static ViewResult create(
+                ImmutableList<Recipe> recipes, ImmutableSet<RecipeMap> incompleteRecipeMaps) {
+            return new AutoValue_RecipeHandler_ViewResult(recipes, incompleteRecipeMaps);
         }
 
-        // Third pass: check for crafting table recipes with bad item stacks.
-        Logger.GREGTECH_5_RECIPE_DEBUGGER.info("Checking crafting table recipes");
-        ((List<IRecipe>) CraftingManager.getInstance().getRecipeList()).stream()
-                .map(Recipe::createIfBadItemStack)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .forEach(badCraftingTableRecipes::add);
+        abstract ImmutableList<Recipe> recipes();
+
+        /** Recipe maps which ran out of time budget, and so were only partially checked. */
+        abstract ImmutableSet<RecipeMap> incompleteRecipeMaps();
     }
 
-    static Set<Component> filterCircuits(Set<Component> components) {
-        return Sets.difference(components, PROGRAMMED_CIRCUITS);
+    /** How often to log progress while checking a single recipe map. */
+    private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * The number of threads to run checks on. We leave one core free, so that the client stays
+     * responsive while checks are running.
+     */
+    private static final int PARALLELISM =
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+
+    /**
+     * Recipe data for each recipe map, which is only built once a view that needs it is requested.
+     * Use {@link #getAllRecipes()} instead of accessing this field directly.
+     */
+    @Nullable private ImmutableMap<RecipeMap, RecipeIndex<Recipe>> allRecipes;
+
+    /**
+     * The GregTech recipe index, which is only fetched once a view that needs it is requested. Use
+     * {@link #getGregTechRecipeIndex()} instead of accessing this field directly.
+     *
+     * <p>We hold on to it until {@link #cleanUp()}, because views are usually first requested after
+     * the shared instance has been reset, and so each request would otherwise get a new index.
+     */
+    @Nullable private GregTechRecipeIndex gregTechRecipeIndex;
+
+    /**
+     * The {@link RecipeChecks} flags of each component, indexed by component ID. Use
+     * {@link #getComponentFlags()} instead of accessing this field directly.
+     *
+     * <p>This is replaced rather than modified when more components are interned, so checks which
+     * are already running can keep reading their copy.
+     */
+    @Nullable private int[] componentFlags;
+
+    /**
+     * The results for each view, for only those views which have been requested. Some of these may
+     * still be computing. Only accessed from the client thread.
+     */
+    private final Map<GregTechRecipeDebugger.View, CompletableFuture<ViewResult>> viewResults;
+
+    /**
+     * The pool that checks run on, which is only started once a view is requested. Use
+     * {@link #getExecutor()} instead of accessing this field directly.
+     *
+     * <p>We don't use the common pool, as checks can run for minutes, and the common pool is
+     * shared with the rest of the game.
+     */
+    @Nullable private ForkJoinPool executor;
+
+    RecipeHandler() {
+        this.allRecipes = null;
+        this.gregTechRecipeIndex = null;
+        this.componentFlags = null;
+        this.viewResults = new EnumMap<>(GregTechRecipeDebugger.View.class);
+        this.executor = null;
     }
 
     /**
-     * There are a few bad recipes, which cause trouble for the recipe checks and are not actually
-     * valid. Filter them out here.
+     * Returns the total number of GregTech recipes that will be checked.
      *
-     * <p>Return {@code false} to filter out a recipe.
+     * <p>This reads the GregTech recipe maps directly, so that we don't need to build any recipe
+     * data just to show it. As such, it includes the few invalid recipes that we filter out.
      */
-    private static boolean filterRecipes(RecipeMap recipeMap, Recipe recipe) {
-        if (recipeMap == RecipeMap.CUTTING_MACHINE) {
-            // There are invalid cutting machine recipes which contain only fluids, and no items.
-            return recipe.inputs().keySet().stream()
-                    .anyMatch(component -> component.type() == Component.ComponentType.ITEM);
+    static int countRecipes() {
+        return Arrays.stream(RecipeMap.values())
+                .filter(recipeMap -> recipeMap != RecipeMap.CRAFTING_TABLE)
+                .mapToInt(recipeMap -> recipeMap.recipeMap.mRecipeList.size())
+                .sum();
+    }
+
+    /**
+     * This method must be called before any other methods are called.
+     *
+     * <p>Nothing is built here, so the recipe debugger costs nothing until a view is requested.
+     * Anything left over from a previous generation is dropped.
+     */
+    void initialize() {
+        cleanUp();
+    }
+
+    /**
+     * Drops all view results and recipe data, including our reference to the GregTech recipe
+     * index, and shuts down the pool that checks run on. Any checks which are still running are
+     * cancelled.
+     *
+     * <p>Requesting a view afterwards will rebuild everything that it needs.
+     */
+    void cleanUp() {
+        viewResults.values().forEach(future -> future.cancel(false));
+        viewResults.clear();
+        allRecipes = null;
+        componentFlags = null;
+        gregTechRecipeIndex = null;
+
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
         }
+    }
+
+    /** Interned components of all recipes. Shared with the GregTech recipe index. */
+    ComponentTable getComponentTable() {
+        return getGregTechRecipeIndex().componentTable();
+    }
+
+    boolean isComputed(GregTechRecipeDebugger.View view) {
+        CompletableFuture<ViewResult> future = viewResults.get(view);
+        return future != null && future.isDone();
+    }
 
-        return true;
+    /** Returns whether the checks for {@code view} have been started, but have not yet finished. */
+    boolean isComputing(GregTechRecipeDebugger.View view) {
+        CompletableFuture<ViewResult> future = viewResults.get(view);
+        return future != null && !future.isDone();
     }
 
-    /** Returns whether {@code a} is a subset of {@code b}, ignoring stack sizes. */
-    private static boolean isSubset(Set<Component> a, Set<Component> b) {
-        return b.containsAll(a);
+    /**
+     * Returns the recipes found for {@code view}, or empty if they are still being computed. The
+     * checks for {@code view} will be started the first time that this method is called for it,
+     * and the results cached.
+     *
+     * <p>The slow part of the checks runs in the background, so this method doesn't block. Poll
+     * {@link #isComputed(GregTechRecipeDebugger.View)} to find out when the results are ready.
+     */
+    Optional<ImmutableList<Recipe>> getRecipes(GregTechRecipeDebugger.View view) {
+        CompletableFuture<ViewResult> future =
+                viewResults.computeIfAbsent(view, this::computeRecipes);
+        return future.isDone()
+                ? Optional.of(future.join().recipes())
+                : Optional.empty();
     }
 
     /**
-     * Returns whether {@code a} is a subset of {@code b}, checking stack sizes.
+     * Returns the recipe maps which ran out of time budget while computing {@code view}, or an
+     * empty set if {@code view} has not finished computing.
      */
-    private static boolean isSubsetComparingStackSizes(
-            Map<Component, Integer> a, Map<Component, Integer> b) {
-        for (Map.Entry<Component, Integer> entry : a.entrySet()) {
-            if (b.getOrDefault(entry.getKey(), 0) < entry.getValue()) {
-                return false;
+    ImmutableSet<RecipeMap> getIncompleteRecipeMaps(GregTechRecipeDebugger.View view) {
+        return isComputed(view)
+                ? viewResults.get(view).join().incompleteRecipeMaps()
+                : ImmutableSet.of();
+    }
+
+    /**
+     * Starts computing the recipes for {@code view}. Must be called on the client thread.
+     *
+     * <p>Anything which needs to call into GregTech or other mods, such as building recipe data,
+     * is done before this method returns; everything else is done in the background.
+     */
+    private CompletableFuture<ViewResult> computeRecipes(GregTechRecipeDebugger.View view) {
+        CompletableFuture<ViewResult> future;
+        switch (view) {
+            case DUPLICATE_RECIPES: {
+                ImmutableMap<RecipeMap, RecipeIndex<Recipe>> recipeIndices = getAllRecipes();
+                future =
+                        CompletableFuture.supplyAsync(
+                                () -> ViewResult.create(
+                                        findDuplicateRecipes(recipeIndices), ImmutableSet.of()),
+                                getExecutor());
+                break;
             }
+
+            case BAD_CRAFTING_TABLE_RECIPES:
+                // This reads other mods' crafting recipes, so it must stay on the client thread.
+                future =
+                        CompletableFuture.completedFuture(
+                                ViewResult.create(
+                                        findBadCraftingTableRecipes(), ImmutableSet.of()));
+                break;
+
+            default:
+                future = checkAllRecipes(view);
+                break;
         }
 
-        return true;
+        return future.exceptionally(
+                e -> {
+                    Logger.GREGTECH_5_RECIPE_DEBUGGER.error(
+                            "Failed to compute recipes for {}!", view.name(), e);
+                    return ViewResult.EMPTY;
+                });
     }
 
-    private static boolean consumesCircuit(Recipe recipe) {
-        for (Map.Entry<Component, Integer> entry : recipe.inputs().entrySet()) {
-            Component component = entry.getKey();
-            if (component.type() != Component.ComponentType.ITEM) {
-                continue;
-            }
+    /** Runs the per-recipe checks for {@code view}, if it has any. */
+    private CompletableFuture<ViewResult> checkAllRecipes(GregTechRecipeDebugger.View view) {
+        if (view == GregTechRecipeDebugger.View.PROGRAMMED_CIRCUITS) {
+            // This view doesn't show any recipes.
+            return CompletableFuture.completedFuture(ViewResult.EMPTY);
+        }
 
-            if ((PROGRAMMED_CIRCUITS.contains(component) || SCHEMATICS.contains(component))
-                    && entry.getValue() > 0) {
-                return true;
-            }
+        // Recipe data must be built first, since building it may intern new components.
+        ImmutableMap<RecipeMap, RecipeIndex<Recipe>> recipeIndices = getAllRecipes();
+        int[] componentFlags = getComponentFlags();
+        return checkAllRecipes(
+                view, recipeIndices, RecipeChecks.Check.valueOf(view.name()), componentFlags);
+    }
+
+    private GregTechRecipeIndex getGregTechRecipeIndex() {
+        if (gregTechRecipeIndex == null) {
+            gregTechRecipeIndex = GregTechRecipeIndex.get();
         }
+        return gregTechRecipeIndex;
+    }
 
-        return false;
+    /** Starts the pool that checks run on, if it hasn't been started yet. */
+    private ForkJoinPool getExecutor() {
+        if (executor == null) {
+            executor =
+                    new ForkJoinPool(
+                            PARALLELISM,
+                            pool -> {
+                                ForkJoinWorkerThread thread =
+                                        ForkJoinPool.defaultForkJoinWorkerThreadFactory
+                                                .newThread(pool);
+                                thread.setName("Recipe debugger worker " + thread.getPoolIndex());
+                                // Don't hold up the game from exiting.
+                                thread.setDaemon(true);
+                                return thread;
+                            },
+                            null, false);
+        }
+        return executor;
     }
 
-    private static boolean unnecessaryCircuit(Recipe recipe, Iterable<Recipe> recipes) {
-        Set<Component> inputs = recipe.inputs().keySet();
-        if (inputs.stream().noneMatch(PROGRAMMED_CIRCUITS::contains)) {
-            return false;
+    /** Builds recipe data for all recipe maps, if it hasn't been built yet. */
+    private ImmutableMap<RecipeMap, RecipeIndex<Recipe>> getAllRecipes() {
+        if (allRecipes != null) {
+            return allRecipes;
         }
 
-        Set<Component> filteredInputs = filterCircuits(inputs);
-        for (Recipe otherRecipe : recipes) {
-            if (recipe == otherRecipe) {
-                continue;
+        ImmutableMap.Builder<RecipeMap, RecipeIndex<Recipe>> allRecipesBuilder =
+                ImmutableMap.builder();
+        for (RecipeMap recipeMap : RecipeMap.values()) {
+            if (recipeMap != RecipeMap.CRAFTING_TABLE) {
+                allRecipesBuilder.put(recipeMap, buildRecipeIndex(recipeMap));
             }
+        }
 
-            if (isSubset(filteredInputs, otherRecipe.inputs().keySet())) {
-                return false;
-            }
+        allRecipes = allRecipesBuilder.build();
+        Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
+                "Shared recipe index has {} distinct components", getComponentTable().size());
+        return allRecipes;
+    }
+
+    private RecipeIndex<Recipe> buildRecipeIndex(RecipeMap recipeMap) {
+        Logger.GREGTECH_5_RECIPE_DEBUGGER.info("Building recipes: {}", recipeMap.name());
+
+        GregTechRecipeIndex.RecipeMapIndex recipeMapIndex =
+                getGregTechRecipeIndex().recipeMap(recipeMap.recipeMap);
+        List<Recipe> recipesById = new ArrayList<>(recipeMapIndex.size());
+        for (int recipeId = 0; recipeId < recipeMapIndex.size(); recipeId++) {
+            Recipe recipe = Recipe.create(recipeMap, recipeMapIndex, recipeId);
+            // Filtered out recipes are left as null.
+            recipesById.add(RecipeChecks.isValid(recipe, this::isItem) ? recipe : null);
         }
 
-        return true;
+        return new RecipeIndex<>(recipeMapIndex.inputPostingLists(), recipesById);
     }
 
-    // TODO this won't find cases where we have multiple identical recipes
-    //  (maybe differing in recipe time or voltage or something). Do we care?
-    private static Set<Recipe> findCollidingRecipes(Recipe recipe, Iterable<Recipe> recipes) {
-        Set<Recipe> collidingRecipes = Sets.newLinkedHashSet();
-        collidingRecipes.add(recipe);
+    private boolean isItem(int componentId) {
+        return getComponentTable().get(componentId).type() == Component.ComponentType.ITEM;
+    }
 
-        for (Recipe otherRecipe : recipes) {
-            if (recipe == otherRecipe) {
-                continue;
+    /**
+     * Returns the flags of all components that have been interned so far, computing flags for
+     * any new ones. Must be called on the client thread, after building the recipe data to be
+     * checked.
+     */
+    private int[] getComponentFlags() {
+        // The component table may have grown since we last built this, if more recipe maps have
+        // been indexed since.
+        ComponentTable componentTable = getComponentTable();
+        int size = componentTable.size();
+        if (componentFlags == null || componentFlags.length < size) {
+            int start = componentFlags == null ? 0 : componentFlags.length;
+            int[] flags =
+                    componentFlags == null ? new int[size] : Arrays.copyOf(componentFlags, size);
+            for (int id = start; id < size; id++) {
+                flags[id] = componentFlags(componentTable.get(id));
             }
+            componentFlags = flags;
+        }
+        return componentFlags;
+    }
 
-            if (isSubset(recipe.inputs().keySet(), otherRecipe.inputs().keySet())) {
-                collidingRecipes.add(otherRecipe);
+    /**
+     * Returns the {@link RecipeChecks} flags of {@code component}. Must be called on the client
+     * thread, as this calls into GregTech and other mods.
+     */
+    static int componentFlags(Component component) {
+        int flags = 0;
+        Optional<OrePrefixes> orePrefix =
+                GregTechOreDictUtil.getItemData(component).map(itemData -> itemData.mPrefix);
+        if (orePrefix.isPresent()) {
+            if (SMALL_VARIANT_ORE_PREFIXES.contains(orePrefix.get())) {
+                flags |= RecipeChecks.SMALL_VARIANT;
             }
+            if (CABLE_ORE_PREFIXES.contains(orePrefix.get())) {
+                flags |= RecipeChecks.CABLE;
+            }
+        }
+
+        if (component.type() != Component.ComponentType.ITEM) {
+            return flags;
         }
 
-        if (collidingRecipes.size() > 1) {
-            return collidingRecipes;
-        } else {
-            return Sets.newHashSet();
+        if (PROGRAMMED_CIRCUITS.contains(component)) {
+            flags |= RecipeChecks.PROGRAMMED_CIRCUIT;
         }
+        if (SCHEMATICS.contains(component)) {
+            flags |= RecipeChecks.SCHEMATIC;
+        }
+
+        ItemStack itemStack = ((ItemComponent) component).stack();
+        try {
+            if (GT_ModHandler.getCapsuleCellContainerCount(itemStack) > 0) {
+                flags |= RecipeChecks.CELL;
+            }
+        } catch (NullPointerException suppressed) {
+            // EnderStorage throws NullPointerException when we try to get fluid contents.
+            // Probably because the game has not yet started, so EnderStorageManager is
+            // unavailable.
+        }
+        return flags;
     }
 
-    private static boolean voidingRecipe(Recipe recipe) {
-        return isSubsetComparingStackSizes(recipe.outputs(), recipe.inputs());
+    /**
+     * Runs {@code check} on all recipes, in the background.
+     *
+     * <p>Recipe maps, and chunks of each recipe map, are checked in parallel. The results for each
+     * chunk are merged in order, so the output doesn't depend on scheduling.
+     */
+    private CompletableFuture<ViewResult> checkAllRecipes(
+            GregTechRecipeDebugger.View view, ImmutableMap<RecipeMap, RecipeIndex<Recipe>> recipes,
+            RecipeChecks.Check check, int[] componentFlags) {
+        long timeBudgetNanos =
+                TimeUnit.SECONDS.toNanos(ConfigOptions.RECIPE_DEBUGGER_TIME_BUDGET.get());
+
+        Map<RecipeMap, CheckTask> tasks = new EnumMap<>(RecipeMap.class);
+        for (Map.Entry<RecipeMap, RecipeIndex<Recipe>> entry : recipes.entrySet()) {
+            RecipeMap recipeMap = entry.getKey();
+            RecipeIndex<Recipe> recipeIndex = entry.getValue();
+            Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
+                    "Checking recipes for {}: {} [{}]",
+                    view.name(), recipeMap.name(), recipeIndex.size());
+
+            MapProgress progress = new MapProgress(recipeMap, recipeIndex.size(), timeBudgetNanos);
+            tasks.put(
+                    recipeMap,
+                    new CheckTask(
+                            check, componentFlags, recipeIndex, progress, 0, recipeIndex.size()));
+        }
+        ForkJoinPool executor = getExecutor();
+        tasks.values().forEach(executor::execute);
+
+        return CompletableFuture.supplyAsync(() -> mergeResults(tasks, check), executor);
     }
 
-    private static int countCells(Map<Component, Integer> componentMap) {
-        int cells = 0;
-        for (Map.Entry<Component, Integer> entry : componentMap.entrySet()) {
-            Component component = entry.getKey();
-            if (component.type() != Component.ComponentType.ITEM) {
-                continue;
+    /** Waits for each task in {@code tasks} to finish, and merges their results in order. */
+    private static ViewResult mergeResults(
+            Map<RecipeMap, CheckTask> tasks, RecipeChecks.Check check) {
+        Collection<Recipe> results = check.newResults();
+        ImmutableSet.Builder<RecipeMap> incompleteBuilder = ImmutableSet.builder();
+        for (Map.Entry<RecipeMap, CheckTask> entry : tasks.entrySet()) {
+            CheckTask task = entry.getValue();
+            results.addAll(task.join());
+            task.progress.logFinished();
+
+            if (task.progress.isOverBudget()) {
+                incompleteBuilder.add(entry.getKey());
             }
+        }
 
-            ItemStack itemStack = ((ItemComponent) component).stack();
-            try {
-                if (GT_ModHandler.getCapsuleCellContainerCount(itemStack) > 0) {
-                    cells += entry.getValue();
-                }
-            } catch (NullPointerException suppressed) {
-                // EnderStorage throws NullPointerException when we try to get fluid contents.
-                // Probably because the game has not yet started, so EnderStorageManager is
-                // unavailable.
+        return ViewResult.create(ImmutableList.copyOf(results), incompleteBuilder.build());
+    }
+
+    /**
+     * Finds exact and near-exact duplicate recipes.
+     *
+     * <p>This only reads from {@code allRecipes}, so it's safe to run in the background.
+     */
+    private static ImmutableList<Recipe> findDuplicateRecipes(
+            ImmutableMap<RecipeMap, RecipeIndex<Recipe>> allRecipes) {
+        Logger.GREGTECH_5_RECIPE_DEBUGGER.info("Checking for duplicate recipes");
+        Iterable<Recipe> recipes =
+                Iterables.concat(Iterables.transform(allRecipes.values(), RecipeIndex::allRecipes));
+        ImmutableList<Recipe> duplicateRecipes = RecipeChecks.findDuplicateRecipes(recipes);
+        Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
+                "Found {} duplicate recipes", duplicateRecipes.size());
+        return duplicateRecipes;
+    }
+
+    /** Checks for crafting table recipes with bad item stacks. */
+    @SuppressWarnings("unchecked")
+    private ImmutableList<Recipe> findBadCraftingTableRecipes() {
+        Logger.GREGTECH_5_RECIPE_DEBUGGER.info("Checking crafting table recipes");
+        ComponentTable componentTable = getComponentTable();
+        ImmutableList.Builder<Recipe> badCraftingTableRecipesBuilder = ImmutableList.builder();
+        ((List<IRecipe>) CraftingManager.getInstance().getRecipeList()).stream()
+                .map(recipe -> Recipe.createIfBadItemStack(recipe, componentTable))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .forEach(badCraftingTableRecipesBuilder::add);
+        return badCraftingTableRecipesBuilder.build();
+    }
+
+    /** Tracks time budget and progress for checking a single recipe map. Thread-safe. */
+    private static final class MapProgress {
+        private final RecipeMap recipeMap;
+        private final int totalCount;
+        private final long timeBudgetNanos;
+
+        private final AtomicLong startTime = new AtomicLong();
+        private final AtomicLong nextProgressLogTime = new AtomicLong();
+        private final AtomicInteger checkedCount = new AtomicInteger();
+        private final AtomicBoolean overBudget = new AtomicBoolean();
+
+        private MapProgress(RecipeMap recipeMap, int totalCount, long timeBudgetNanos) {
+            this.recipeMap = recipeMap;
+            this.totalCount = totalCount;
+            this.timeBudgetNanos = timeBudgetNanos;
+        }
+
+        /** Starts the clock, if it hasn't been started already. */
+        private void start() {
+            long now = System.nanoTime();
+            if (startTime.compareAndSet(0, now)) {
+                nextProgressLogTime.set(now + PROGRESS_LOG_INTERVAL_NANOS);
             }
         }
 
-        return cells;
-    }
+        /** Returns whether checking should stop, because the time budget has been exceeded. */
+        private boolean checkBudget() {
+            if (overBudget.get()) {
+                return true;
+            }
 
-    private static boolean unequalCellRecipe(Recipe recipe) {
-        // Prevent spamming the unequal cell recipes view with macerator recipes.
-        if (recipe.recipeMap() == RecipeMap.MACERATOR) {
-            return false;
+            if (timeBudgetNanos > 0
+                    && System.nanoTime() - startTime.get() > timeBudgetNanos
+                    && overBudget.compareAndSet(false, true)) {
+                Logger.GREGTECH_5_RECIPE_DEBUGGER.warn(
+                        "Time budget exceeded for {}! Results will be incomplete.",
+                        recipeMap.name());
+            }
+            return overBudget.get();
         }
 
-        return countCells(recipe.inputs()) != countCells(recipe.outputs());
-    }
+        private boolean isOverBudget() {
+            return overBudget.get();
+        }
+
+        private void addChecked(int count) {
+            int checked = checkedCount.addAndGet(count);
 
-    private static boolean smallVariantRecipe(Recipe recipe) {
-        if (RECIPE_MAPS_TO_IGNORE_FOR_SMALL_VARIANT.contains(recipe.recipeMap())) {
-            return false;
+            long now = System.nanoTime();
+            long logTime = nextProgressLogTime.get();
+            if (now >= logTime
+                    && nextProgressLogTime.compareAndSet(
+                            logTime, now + PROGRESS_LOG_INTERVAL_NANOS)) {
+                Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
+                        "  ... {}: checked {} / {}", recipeMap.name(), checked, totalCount);
+            }
         }
 
-        Set<OrePrefixes> orePrefixes = getOrePrefixes(recipe.outputs().keySet());
-        if (recipe.recipeMap() == RecipeMap.ASSEMBLING_MACHINE
-                && Sets.intersection(orePrefixes, CABLE_ORE_PREFIXES).size() > 0) {
-            // Allow using small dusts for cable insulation.
-            return false;
-        } else {
-            orePrefixes.addAll(getOrePrefixes(recipe.inputs().keySet()));
-            return Sets.intersection(orePrefixes, SMALL_VARIANT_ORE_PREFIXES).size() > 0;
+        private void logFinished() {
+            long elapsed = startTime.get() == 0 ? 0 : System.nanoTime() - startTime.get();
+            Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
+                    "Finished {}: checked {} / {} in {} ms",
+                    recipeMap.name(), checkedCount.get(), totalCount,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
         }
     }
 
-    private static Set<OrePrefixes> getOrePrefixes(Set<Component> componentSet) {
-        return componentSet.stream()
-                .map(GregTechOreDictUtil::getItemData)
-                .filter(Optional::isPresent)
-                .map(itemData -> itemData.get().mPrefix)
-                .collect(Collectors.toCollection(HashSet::new));
+    /**
+     * Runs a check on a range of recipes from a single recipe map, splitting it in half until it is
+     * small enough to check directly.
+     *
+     * <p>The checks only read from the recipe index, which is not modified after initialization,
+     * so it's safe to run these tasks in parallel. Each task collects into its own results, so no
+     * synchronization is needed.
+     */
+    private static final class CheckTask extends RecursiveTask<Collection<Recipe>> {
+        /** Ranges of at most this many recipes are checked directly, rather than split. */
+        private static final int CHUNK_SIZE = 256;
+
+        private final RecipeChecks.Check check;
+        private final int[] componentFlags;
+        private final RecipeIndex<Recipe> recipeIndex;
+        private final MapProgress progress;
+        private final int start;
+        private final int end;
+
+        private CheckTask(
+                RecipeChecks.Check check, int[] componentFlags, RecipeIndex<Recipe> recipeIndex,
+                MapProgress progress, int start, int end) {
+            this.check = check;
+            this.componentFlags = componentFlags;
+            this.recipeIndex = recipeIndex;
+            this.progress = progress;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected Collection<Recipe> compute() {
+            if (end - start > CHUNK_SIZE) {
+                int mid = (start + end) >>> 1;
+                CheckTask left =
+                        new CheckTask(
+                                check, componentFlags, recipeIndex, progress, start, mid);
+                CheckTask right =
+                        new CheckTask(
+                                check, componentFlags, recipeIndex, progress, mid, end);
+                left.fork();
+                Collection<Recipe> rightResults = right.compute();
+
+                Collection<Recipe> results = left.join();
+                results.addAll(rightResults);
+                return results;
+            }
+
+            progress.start();
+            Collection<Recipe> results = check.newResults();
+            List<Recipe> recipes = recipeIndex.allRecipes();
+            int checked = 0;
+            for (int i = start; i < end && !progress.checkBudget(); i++) {
+                check.check(recipes.get(i), recipeIndex, componentFlags, results);
+                checked++;
+            }
+            progress.addChecked(checked);
+            return results;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+package com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugger;
+
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.PostingLists;
+import com.google.common.collect.ImmutableList;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class that helps us handle huge lists of recipes, via input {@link PostingLists}, which map each
+ * input component to the recipes that contain it.
+ *
+ * <p>Some recipes may have been filtered out. These are skipped in lookups.
+ *
+ * <p>This doesn't depend on GregTech, so that it can also be used on recipes read from a snapshot.
+ */
+class RecipeIndex<R> {
+    private final PostingLists inputPostingLists;
+
+    /** Indexed by recipe ID in {@link #inputPostingLists}. Filtered out recipes are null. */
+    private final List<R> recipesById;
+
+    private final ImmutableList<R> recipeList;
+
+    /** Whether any entries of {@link #recipesById} are null. */
+    private final boolean filtered;
+
+    /**
+     * @param recipesById the recipes, indexed by recipe ID in {@code inputPostingLists}, with null
+     *     entries for recipes which were filtered out.
+     */
+    RecipeIndex(PostingLists inputPostingLists, List<R> recipesById) {
+        this.inputPostingLists = inputPostingLists;
+        this.recipesById = recipesById;
+
+        ImmutableList.Builder<R> builder = ImmutableList.builder();
+        for (R recipe : recipesById) {
+            if (recipe != null) {
+                builder.add(recipe);
+            }
+        }
+        this.recipeList = builder.build();
+        this.filtered = recipeList.size() < recipesById.size();
+    }
+
+    int size() {
+        return recipeList.size();
+    }
+
+    ImmutableList<R> allRecipes() {
+        return recipeList;
+    }
+
+    /**
+     * Returns all recipes whose inputs contain every component in {@code components}, in recipe
+     * list order. If {@code components} is empty, returns all recipes.
+     *
+     * @param components distinct component IDs.
+     */
+    List<R> lookup(int[] components) {
+        if (components.length == 0) {
+            return recipeList;
+        }
+
+        int[] ids = inputPostingLists.lookup(components);
+        if (ids.length == 0) {
+            return ImmutableList.of();
+        } else if (filtered) {
+            List<R> recipes = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                R recipe = recipesById.get(id);
+                if (recipe != null) {
+                    recipes.add(recipe);
+                }
+            }
+            return recipes;
+        }
+
+        return new AbstractList<R>() {
+            @Override
+            public R get(int index) {
+                return recipesById.get(ids[index]);
+            }
+
+            @Override
+            public int size() {
+                return ids.length;
+            }
+        };
+    }
+}
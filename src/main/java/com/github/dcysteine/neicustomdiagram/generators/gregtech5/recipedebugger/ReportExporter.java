@@ -0,0 +1,170 @@
+package com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugger;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.FluidComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
+import com.github.dcysteine.neicustomdiagram.main.Logger;
+import com.github.dcysteine.neicustomdiagram.main.config.Config;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.ComponentTable;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeSnapshot;
+import com.google.common.collect.ImmutableList;
+import gregtech.api.util.GT_Recipe;
+import net.minecraft.item.Item;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the results of the recipe checks to CSV and JSON files, one of each per view, so that
+ * they can be used as a regression artifact without having to look through diagrams.
+ *
+ * <p>The recipe maps are first written to a binary {@link GregTechRecipeSnapshot}, which is then
+ * read back and verified against them. This is the only part which needs GregTech, so it's done on
+ * the client thread, and only holds the encoded recipe records in memory, rather than any recipe
+ * objects. The checks are then run on the snapshot by {@link SnapshotReportExporter}, on a
+ * background thread, so that they don't stall the client. This is the same code that analyzes a
+ * snapshot on a headless JVM, so the two always agree.
+ *
+ * <p>No diagrams are built, and the in-game views' recipe data is neither used nor built. The
+ * checks go through the snapshot one recipe map at a time, so the background thread's memory use
+ * is bounded by the largest recipe map.
+ *
+ * <p>Bad crafting table recipes aren't in the snapshot, so that view is written directly, on the
+ * client thread.
+ *
+ * <p>Components are identified by registry name rather than by localized name, so that the output
+ * is stable across languages and can be diffed.
+ */
+class ReportExporter {
+    static final String EXPORT_DIRECTORY_NAME = "recipedebugger";
+    static final String SNAPSHOT_FILE_NAME = "recipes.snapshot";
+
+    private final RecipeHandler recipeHandler;
+
+    ReportExporter(RecipeHandler recipeHandler) {
+        this.recipeHandler = recipeHandler;
+    }
+
+    /**
+     * Writes the snapshot and the bad crafting table recipes report, and then starts checking the
+     * snapshot in the background. Must be called on the client thread.
+     */
+    void export() {
+        File directory = Config.getExportDirectory(EXPORT_DIRECTORY_NAME);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            Logger.GREGTECH_5_RECIPE_DEBUGGER.error(
+                    "Could not create export directory: {}", directory);
+            return;
+        }
+
+        exportBadCraftingTableRecipes(directory);
+        // That view's results were only computed for the report. Don't hold on to them, or to the
+        // recipe index which they needed, until the view is actually opened.
+        recipeHandler.cleanUp();
+
+        GregTechRecipeSnapshot snapshot;
+        try {
+            snapshot = exportSnapshot(new File(directory, SNAPSHOT_FILE_NAME));
+        } catch (IOException e) {
+            Logger.GREGTECH_5_RECIPE_DEBUGGER.error("Failed to export recipe snapshot", e);
+            return;
+        }
+
+        Thread thread =
+                new Thread(() -> exportChecks(snapshot, directory), "Recipe debugger export");
+        // Don't hold up the game from exiting. Any reports that are cut short will be rewritten
+        // the next time that the export runs.
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Writes a snapshot of all recipe maps, keyed by {@link RecipeHandler.RecipeMap} name. */
+    private static GregTechRecipeSnapshot exportSnapshot(File file) throws IOException {
+        Map<String, GT_Recipe.GT_Recipe_Map> recipeMaps = new LinkedHashMap<>();
+        for (RecipeHandler.RecipeMap recipeMap : RecipeHandler.RecipeMap.values()) {
+            if (recipeMap.recipeMap != null) {
+                recipeMaps.put(recipeMap.name(), recipeMap.recipeMap);
+            }
+        }
+
+        GregTechRecipeSnapshot.write(file, recipeMaps, RecipeHandler::componentFlags);
+        // Read the snapshot back, so that a broken snapshot is caught here rather than by
+        // whoever tries to analyze it later.
+        GregTechRecipeSnapshot snapshot = GregTechRecipeSnapshot.read(file);
+        snapshot.verify(recipeMaps);
+
+        Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
+                "Exported and verified recipe snapshot of {} recipe maps", recipeMaps.size());
+        return snapshot;
+    }
+
+    /** Runs on a background thread. */
+    private static void exportChecks(GregTechRecipeSnapshot snapshot, File directory) {
+        try {
+            SnapshotReportExporter.export(snapshot, directory);
+        } catch (IOException | RuntimeException e) {
+            Logger.GREGTECH_5_RECIPE_DEBUGGER.error("Failed to export recipe debugger report", e);
+        }
+    }
+
+    private void exportBadCraftingTableRecipes(File directory) {
+        GregTechRecipeDebugger.View view = GregTechRecipeDebugger.View.BAD_CRAFTING_TABLE_RECIPES;
+        // This view is computed synchronously, so the recipes will always be present.
+        ImmutableList<RecipeHandler.Recipe> recipes =
+                recipeHandler.getRecipes(view).orElse(ImmutableList.of());
+        ComponentTable componentTable = recipeHandler.getComponentTable();
+
+        // Strip the leading '-' from the suffix.
+        try (ReportWriter writer =
+                     new ReportWriter(directory, view.suffix.substring(1), view.name())) {
+            for (RecipeHandler.Recipe recipe : recipes) {
+                writer.writeRecipe(
+                        recipe.recipeMapName(), recipe.euPerTick(), recipe.duration(),
+                        recipe.specialValue(),
+                        componentEntries(recipe.inputs().toMap(componentTable)),
+                        componentEntries(recipe.outputs().toMap(componentTable)));
+            }
+            writer.finish(new ArrayList<>());
+
+            Logger.GREGTECH_5_RECIPE_DEBUGGER.info(
+                    "Exported {} recipes for view: {}", writer.recipeCount(), view.name());
+        } catch (IOException e) {
+            Logger.GREGTECH_5_RECIPE_DEBUGGER.error("Failed to export recipe debugger report", e);
+        }
+    }
+
+    /** Returns entries of component ID to amount, for {@link ReportWriter}. */
+    private static List<Map.Entry<String, Integer>> componentEntries(
+            Map<Component, Integer> components) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(components.size());
+        for (Map.Entry<Component, Integer> entry : components.entrySet()) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(
+                    componentId(entry.getKey()), entry.getValue()));
+        }
+        return entries;
+    }
+
+    private static String componentId(Component component) {
+        switch (component.type()) {
+            case ITEM:
+                ItemComponent itemComponent = (ItemComponent) component;
+                return ReportWriter.componentId(
+                        false, Item.itemRegistry.getNameForObject(itemComponent.item()),
+                        itemComponent.damage(), component.nbt());
+
+            case FLUID:
+                return ReportWriter.componentId(
+                        true, ((FluidComponent) component).fluid().getName(), 0,
+                        component.nbt());
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unrecognized component type: " + component.type());
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugger;
+
+import com.google.gson.stream.JsonWriter;
+import net.minecraft.nbt.NBTTagCompound;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes the CSV and JSON report files for a single view, one recipe at a time, so that a view's
+ * results never need to be held in memory all at once.
+ *
+ * <p>Components are written as entries of component ID to amount, sorted by ID, so that the
+ * output is stable and can be diffed. This class doesn't depend on GregTech or on a running client,
+ * so that it can also be used by {@link SnapshotReportExporter}.
+ */
+final class ReportWriter implements Closeable {
+    static final String CSV_HEADER =
+            "recipe_map,eu_per_tick,duration,special_value,inputs,outputs";
+
+    private final Writer csvWriter;
+    private final JsonWriter jsonWriter;
+    private int recipeCount;
+
+    /**
+     * Opens {@code fileName.csv} and {@code fileName.json} in {@code directory}.
+     *
+     * @param viewName the name of the view, which is written into the JSON file.
+     */
+    ReportWriter(File directory, String fileName, String viewName) throws IOException {
+        this.csvWriter = openWriter(new File(directory, fileName + ".csv"));
+        try {
+            this.jsonWriter = new JsonWriter(openWriter(new File(directory, fileName + ".json")));
+        } catch (IOException e) {
+            csvWriter.close();
+            throw e;
+        }
+        this.recipeCount = 0;
+
+        csvWriter.write(CSV_HEADER);
+        csvWriter.write('\n');
+
+        jsonWriter.setIndent("  ");
+        jsonWriter.beginObject();
+        jsonWriter.name("view").value(viewName);
+        jsonWriter.name("recipes").beginArray();
+    }
+
+    /**
+     * Writes a single recipe.
+     *
+     * @param inputs entries of component ID to amount. Will be sorted in place.
+     * @param outputs entries of component ID to amount. Will be sorted in place.
+     */
+    void writeRecipe(
+            String recipeMap, int euPerTick, int duration, int specialValue,
+            List<Map.Entry<String, Integer>> inputs, List<Map.Entry<String, Integer>> outputs)
+            throws IOException {
+        inputs.sort(Map.Entry.comparingByKey());
+        outputs.sort(Map.Entry.comparingByKey());
+
+        csvWriter.write(recipeMap);
+        csvWriter.write(',');
+        csvWriter.write(Integer.toString(euPerTick));
+        csvWriter.write(',');
+        csvWriter.write(Integer.toString(duration));
+        csvWriter.write(',');
+        csvWriter.write(Integer.toString(specialValue));
+        csvWriter.write(',');
+        csvWriter.write(escapeCsv(formatComponents(inputs)));
+        csvWriter.write(',');
+        csvWriter.write(escapeCsv(formatComponents(outputs)));
+        csvWriter.write('\n');
+
+        jsonWriter.beginObject();
+        jsonWriter.name("recipeMap").value(recipeMap);
+        jsonWriter.name("euPerTick").value(euPerTick);
+        jsonWriter.name("duration").value(duration);
+        jsonWriter.name("specialValue").value(specialValue);
+        writeComponents(jsonWriter.name("inputs"), inputs);
+        writeComponents(jsonWriter.name("outputs"), outputs);
+        jsonWriter.endObject();
+
+        recipeCount++;
+    }
+
+    int recipeCount() {
+        return recipeCount;
+    }
+
+    /**
+     * Finishes the JSON file. Must be called once all recipes have been written, or else the JSON
+     * file will be left incomplete.
+     *
+     * @param incompleteRecipeMaps recipe maps which ran out of time budget, and so were only
+     *     partially checked.
+     */
+    void finish(Iterable<String> incompleteRecipeMaps) throws IOException {
+        jsonWriter.endArray();
+
+        jsonWriter.name("incompleteRecipeMaps").beginArray();
+        for (String recipeMap : incompleteRecipeMaps) {
+            jsonWriter.value(recipeMap);
+        }
+        jsonWriter.endArray();
+
+        jsonWriter.endObject();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            jsonWriter.close();
+        } finally {
+            csvWriter.close();
+        }
+    }
+
+    /**
+     * Formats a component ID: {@code item:<registry name>:<damage>} for items, or
+     * {@code fluid:<name>} for fluids, followed by the component's NBT, if it has any.
+     */
+    static String componentId(
+            boolean fluid, String name, int damage, Optional<NBTTagCompound> nbt) {
+        String id = fluid ? "fluid:" + name : String.format("item:%s:%d", name, damage);
+        if (nbt.isPresent()) {
+            id += nbt.get().toString();
+        }
+        return id;
+    }
+
+    private static Writer openWriter(File file) throws IOException {
+        return new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    private static void writeComponents(
+            JsonWriter writer, List<Map.Entry<String, Integer>> components) throws IOException {
+        writer.beginArray();
+        for (Map.Entry<String, Integer> entry : components) {
+            writer.beginObject();
+            writer.name("id").value(entry.getKey());
+            writer.name("amount").value(entry.getValue());
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+    /** Formats components as a semicolon-separated list of {@code id*amount}. */
+    private static String formatComponents(List<Map.Entry<String, Integer>> components) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : components) {
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append(entry.getKey()).append('*').append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    private static String escapeCsv(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 && field.indexOf('\n') < 0) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,251 @@
+package com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugger;
+
+import com.github.dcysteine.neicustomdiagram.main.Logger;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.ComponentStacks;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeSnapshot;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.PostingLists;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Runs the recipe checks on a {@link GregTechRecipeSnapshot}, and writes the results to CSV and
+ * JSON files, one of each per view.
+ *
+ * <p>The checks are those of {@link RecipeChecks}, which the in-game views run too, and the
+ * snapshot records the same unified components and component flags that the in-game views use.
+ * So the results match those of the in-game views, except that there is no time budget, and so no
+ * recipe map is ever left incomplete.
+ *
+ * <p>This is used by {@link ReportExporter}, and also has a command-line entry point. It doesn't
+ * need a running client, or GregTech to be loaded, so it can be run on a plain headless JVM as
+ * part of automated checks:
+ * <pre>
+ *   java -cp &lt;classpath&gt; &lt;this class&gt; &lt;snapshot file&gt; &lt;output directory&gt;
+ * </pre>
+ *
+ * <p>The classpath needs this mod, Guava, Gson, log4j, and the Minecraft classes for NBT and for
+ * translations.
+ *
+ * <p>Recipe maps are checked one at a time, and each one's results are written out before moving
+ * on to the next, so memory use is bounded by the snapshot file plus the largest recipe map.
+ */
+public final class SnapshotReportExporter {
+    /** The name of the duplicate recipes view, which isn't a {@link RecipeChecks.Check}. */
+    private static final String DUPLICATE_RECIPES = "DUPLICATE_RECIPES";
+
+    private final GregTechRecipeSnapshot snapshot;
+
+    /** The flags of each component in the snapshot, indexed by component ID. */
+    private final int[] componentFlags;
+
+    /** Report IDs of components, built on demand. Indexed by component ID. */
+    private final String[] reportIds;
+
+    private SnapshotReportExporter(GregTechRecipeSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.componentFlags = snapshot.componentFlags();
+        this.reportIds = new String[snapshot.componentCount()];
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println(
+                    "Usage: " + SnapshotReportExporter.class.getName()
+                            + " <snapshot file> <output directory>");
+            System.exit(2);
+        }
+
+        File snapshotFile = new File(args[0]);
+        File directory = new File(args[1]);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create output directory: " + directory);
+        }
+
+        export(GregTechRecipeSnapshot.read(snapshotFile), directory);
+    }
+
+    /** Checks every recipe map in {@code snapshot}, and writes the reports to {@code directory}. */
+    static void export(GregTechRecipeSnapshot snapshot, File directory) throws IOException {
+        new SnapshotReportExporter(snapshot).export(directory);
+    }
+
+    /**
+     * Returns the report file name, without extension, for the view named {@code viewName}. This
+     * matches the view's {@link GregTechRecipeDebugger.View#suffix}, without the leading '-'.
+     */
+    static String fileName(String viewName) {
+        return viewName.toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    private void export(File directory) throws IOException {
+        Map<RecipeChecks.Check, ReportWriter> writers = new EnumMap<>(RecipeChecks.Check.class);
+        ReportWriter duplicatesWriter = null;
+        try {
+            for (RecipeChecks.Check check : RecipeChecks.Check.values()) {
+                writers.put(
+                        check, new ReportWriter(directory, fileName(check.name()), check.name()));
+            }
+            duplicatesWriter =
+                    new ReportWriter(directory, fileName(DUPLICATE_RECIPES), DUPLICATE_RECIPES);
+
+            for (GregTechRecipeSnapshot.RecipeMapView recipeMap
+                    : snapshot.recipeMaps().values()) {
+                Logger.MOD.info("Checking recipes: {} [{}]", recipeMap.name(), recipeMap.size());
+                RecipeIndex<SnapshotRecipe> recipeIndex = buildRecipeIndex(recipeMap);
+
+                for (Map.Entry<RecipeChecks.Check, ReportWriter> entry : writers.entrySet()) {
+                    RecipeChecks.Check check = entry.getKey();
+                    Collection<SnapshotRecipe> results = check.newResults();
+                    for (SnapshotRecipe recipe : recipeIndex.allRecipes()) {
+                        check.check(recipe, recipeIndex, componentFlags, results);
+                    }
+                    writeRecipes(entry.getValue(), results);
+                }
+                writeRecipes(
+                        duplicatesWriter,
+                        RecipeChecks.findDuplicateRecipes(recipeIndex.allRecipes()));
+            }
+
+            for (Map.Entry<RecipeChecks.Check, ReportWriter> entry : writers.entrySet()) {
+                finish(entry.getValue(), entry.getKey().name());
+            }
+            finish(duplicatesWriter, DUPLICATE_RECIPES);
+        } finally {
+            for (ReportWriter writer : writers.values()) {
+                writer.close();
+            }
+            if (duplicatesWriter != null) {
+                duplicatesWriter.close();
+            }
+        }
+    }
+
+    private RecipeIndex<SnapshotRecipe> buildRecipeIndex(
+            GregTechRecipeSnapshot.RecipeMapView recipeMap) {
+        List<ComponentStacks> inputs = new ArrayList<>(recipeMap.size());
+        List<SnapshotRecipe> recipesById = new ArrayList<>(recipeMap.size());
+        for (int recipeId = 0; recipeId < recipeMap.size(); recipeId++) {
+            GregTechRecipeSnapshot.RecipeRecord record = recipeMap.recipe(recipeId);
+            SnapshotRecipe recipe =
+                    new SnapshotRecipe(
+                            recipeMap.name(), record.inputs().toComponentStacks(),
+                            record.outputs().toComponentStacks(), record.euPerTick(),
+                            record.duration(), record.specialValue());
+            inputs.add(recipe.inputs());
+            recipesById.add(
+                    RecipeChecks.isValid(recipe, id -> !snapshot.isFluid(id)) ? recipe : null);
+        }
+
+        return new RecipeIndex<>(new PostingLists(inputs), recipesById);
+    }
+
+    private static void finish(ReportWriter writer, String viewName) throws IOException {
+        // We have no time budget, so no recipe map is ever incomplete.
+        writer.finish(new ArrayList<>());
+        Logger.MOD.info("Exported {} recipes for view: {}", writer.recipeCount(), viewName);
+    }
+
+    private void writeRecipes(ReportWriter writer, Collection<SnapshotRecipe> recipes)
+            throws IOException {
+        for (SnapshotRecipe recipe : recipes) {
+            writer.writeRecipe(
+                    recipe.recipeMapName(), recipe.euPerTick, recipe.duration,
+                    recipe.specialValue,
+                    componentEntries(recipe.inputs()), componentEntries(recipe.outputs()));
+        }
+    }
+
+    /** Returns entries of report ID to amount, for {@link ReportWriter}. */
+    private List<Map.Entry<String, Integer>> componentEntries(ComponentStacks stacks) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(stacks.size());
+        for (int i = 0; i < stacks.size(); i++) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(
+                    reportId(stacks.id(i)), stacks.amount(i)));
+        }
+        return entries;
+    }
+
+    private String reportId(int componentId) {
+        if (reportIds[componentId] == null) {
+            reportIds[componentId] =
+                    ReportWriter.componentId(
+                            snapshot.isFluid(componentId), snapshot.componentName(componentId),
+                            snapshot.componentDamage(componentId),
+                            snapshot.nbt(snapshot.componentNbtId(componentId)));
+        }
+        return reportIds[componentId];
+    }
+
+    /**
+     * A recipe read from the snapshot.
+     *
+     * <p>Equality is the same as for {@link RecipeHandler.Recipe}: by recipe map, components, EU/t,
+     * duration, and special value. Two recipes which are equal are exact duplicates.
+     */
+    private static final class SnapshotRecipe implements RecipeChecks.CheckedRecipe {
+        private final String recipeMapName;
+        private final ComponentStacks inputs;
+        private final ComponentStacks outputs;
+        private final int euPerTick;
+        private final int duration;
+        private final int specialValue;
+
+        private SnapshotRecipe(
+                String recipeMapName, ComponentStacks inputs, ComponentStacks outputs,
+                int euPerTick, int duration, int specialValue) {
+            this.recipeMapName = recipeMapName;
+            this.inputs = inputs;
+            this.outputs = outputs;
+            this.euPerTick = euPerTick;
+            this.duration = duration;
+            this.specialValue = specialValue;
+        }
+
+        @Override
+        public String recipeMapName() {
+            return recipeMapName;
+        }
+
+        @Override
+        public ComponentStacks inputs() {
+            return inputs;
+        }
+
+        @Override
+        public ComponentStacks outputs() {
+            return outputs;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SnapshotRecipe)) {
+                return false;
+            }
+
+            SnapshotRecipe otherRecipe = (SnapshotRecipe) other;
+            return recipeMapName.equals(otherRecipe.recipeMapName)
+                    && euPerTick == otherRecipe.euPerTick
+                    && duration == otherRecipe.duration
+                    && specialValue == otherRecipe.specialValue
+                    && inputs.equals(otherRecipe.inputs)
+                    && outputs.equals(otherRecipe.outputs);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(recipeMapName, inputs, outputs, euPerTick, duration, specialValue);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.github.dcysteine.neicustomdiagram.main;
 
+import com.github.dcysteine.neicustomdiagram.api.draw.FluidBatch;
 import com.github.dcysteine.neicustomdiagram.main.config.Config;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigGuiFactory;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
@@ -62,6 +63,7 @@ public final class NeiCustomDiagram {
         NeiIntegration.INSTANCE.initialize(Registry.INSTANCE.infoList());
 
         MinecraftForge.EVENT_BUS.register(NeiIntegration.INSTANCE);
+        MinecraftForge.EVENT_BUS.register(FluidBatch.IconListener.INSTANCE);
         if (ConfigOptions.GENERATE_DIAGRAMS_ON_CLIENT_CONNECT.get()) {
             FMLCommonHandler.instance().bus().register(this);
         }
@@ -40,6 +40,15 @@ public final class Reflection {
                 throw new RuntimeException("Could not access reflection field!", e);
             }
         }
+
+        /** Like {@link #get(Object)}, but avoids boxing. Only valid for {@code int} fields. */
+        public int getInt(T obj) {
+            try {
+                return field().getInt(obj);
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Could not access reflection field!", e);
+            }
+        }
     }
 
     // Static class.
@@ -4,6 +4,7 @@ import codechicken.nei.api.API;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGenerator;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroup;
 import com.github.dcysteine.neicustomdiagram.api.diagram.DiagramGroupInfo;
+import com.github.dcysteine.neicustomdiagram.generators.debug.profiler.DebugProfiler;
 import com.github.dcysteine.neicustomdiagram.generators.debug.ruler.DebugRuler;
 import com.github.dcysteine.neicustomdiagram.generators.debug.nbtviewer.NbtViewer;
 import com.github.dcysteine.neicustomdiagram.generators.enderstorage.chestoverview.EnderStorageChestOverview;
@@ -20,6 +21,7 @@ import com.github.dcysteine.neicustomdiagram.generators.gregtech5.oreprocessing.
 import com.github.dcysteine.neicustomdiagram.generators.gregtech5.recipedebugger.GregTechRecipeDebugger;
 import com.github.dcysteine.neicustomdiagram.main.config.ConfigOptions;
 import com.github.dcysteine.neicustomdiagram.main.config.DiagramGroupVisibility;
+import com.github.dcysteine.neicustomdiagram.util.gregtech5.GregTechRecipeIndex;
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -45,6 +47,7 @@ public enum Registry {
 
         // Add your diagram generator here!
         entriesBuilder.add(RegistryEntry.create("debug.nbtviewer", NbtViewer::new));
+        entriesBuilder.add(RegistryEntry.create("debug.profiler", DebugProfiler::new));
         entriesBuilder.add(RegistryEntry.create("debug.ruler", DebugRuler::new));
         entriesBuilder.add(
                 RegistryEntry.create(
@@ -237,9 +240,13 @@ public enum Registry {
      *
      * <p>In particular, diagram generators can have quite heavy memory usage, and are no longer
      * used after diagram generation. This method will clear references to them so that they can be
-     * garbage-collected.
+     * garbage-collected. The same goes for the shared GregTech recipe index.
      */
     public void cleanUp() {
         generators = null;
+
+        if (ModDependency.GREGTECH_5.isLoaded()) {
+            GregTechRecipeIndex.reset();
+        }
     }
 }
@@ -9,10 +9,8 @@ import java.io.File;
 import java.util.List;
 
 public final class Config {
-    static final File CONFIG_FILE =
-            new File(
-                    (File) FMLInjectionData.data()[6],
-                    "config" + File.separator + "NEICustomDiagram.cfg");
+    static final File CONFIG_DIRECTORY = new File((File) FMLInjectionData.data()[6], "config");
+    static final File CONFIG_FILE = new File(CONFIG_DIRECTORY, "NEICustomDiagram.cfg");
     static final Configuration CONFIG = new Configuration(CONFIG_FILE);
 
     // Static class.
@@ -39,6 +37,11 @@ public final class Config {
         }
     }
 
+    /** Returns the directory, under the config directory, to which {@code name} should export. */
+    public static File getExportDirectory(String name) {
+        return new File(CONFIG_DIRECTORY, "NEICustomDiagram" + File.separator + name);
+    }
+
     static String getConfigFilePath() {
         return CONFIG_FILE.getAbsolutePath();
     }
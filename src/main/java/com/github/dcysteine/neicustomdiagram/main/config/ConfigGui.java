@@ -1,5 +1,6 @@
 package com.github.dcysteine.neicustomdiagram.main.config;
 
+import com.github.dcysteine.neicustomdiagram.api.draw.TextMetrics;
 import com.github.dcysteine.neicustomdiagram.main.NeiCustomDiagram;
 import cpw.mods.fml.client.config.GuiConfig;
 import cpw.mods.fml.client.config.IConfigElement;
@@ -26,6 +27,9 @@ public final class ConfigGui extends GuiConfig {
     public void onGuiClosed() {
         super.onGuiClosed();
         Config.saveConfig();
+
+        // Options such as show_ids change displayed text, so cached measurements are stale.
+        TextMetrics.invalidate();
     }
 
     @SuppressWarnings("rawtypes")
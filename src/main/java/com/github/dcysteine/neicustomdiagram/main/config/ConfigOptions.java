@@ -34,6 +34,16 @@ public final class ConfigOptions {
                             + " number.")
                     .register();
 
+    public static final Option<Boolean> FRAMEBUFFER_CACHE =
+            new BooleanOption(
+                    Category.OPTIONS, "framebuffer_cache", false,
+                    "Enables drawing the static background of each diagram once, into an"
+                            + " off-screen framebuffer,"
+                            + "\nand then re-using it every frame. This can help with very large"
+                            + " diagrams."
+                            + "\nHas no effect if framebuffers are disabled or unsupported.")
+                    .register();
+
     public static final Option<Boolean> GENERATE_DIAGRAMS_ON_CLIENT_CONNECT =
             new BooleanOption(
                     Category.OPTIONS, "generate_diagrams_on_client_connect", true,
@@ -117,6 +127,27 @@ public final class ConfigOptions {
                     "Enables drawing values on a separate line in the NBT Viewer diagram.")
                     .register();
 
+    public static final Option<Boolean> RECIPE_DEBUGGER_EXPORT =
+            new BooleanOption(
+                    Category.DIAGRAM_SPECIFIC, "recipe_debugger_export", false,
+                    "Enables exporting the results of the GregTech Recipe Debugger to CSV and JSON"
+                            + " files,"
+                            + "\nalong with a binary snapshot of the checked recipe maps,"
+                            + "\nunder config/NEICustomDiagram/recipedebugger/."
+                            + "\nIf this option is enabled, all recipe checks will be run when"
+                            + " diagrams are generated.")
+                    .register();
+
+    public static final Option<Integer> RECIPE_DEBUGGER_TIME_BUDGET =
+            new IntegerOption(
+                    Category.DIAGRAM_SPECIFIC, "recipe_debugger_time_budget", 60,
+                    "Sets the maximum time, in seconds, that the GregTech Recipe Debugger will"
+                            + " spend checking each recipe map."
+                            + "\nIf a recipe map takes longer than this, checking it will stop"
+                            + " early, and its results will be incomplete."
+                            + "\nSet to 0 to disable the time limit.")
+                    .register();
+
     public enum Category {
         OPTIONS("options"),
         DIAGRAM_GROUPS("diagram_groups"),
@@ -2,6 +2,7 @@ package com.github.dcysteine.neicustomdiagram.util;
 
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponentSequence;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -36,6 +37,15 @@ public final class ComponentTransformer {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Like {@link #transformToDisplay(Collection)}, but each display component is only built when
+     * it is needed. Prefer this for large lists of components which will be cycled through.
+     */
+    public static DisplayComponentSequence transformToDisplaySequence(
+            List<? extends Component> components) {
+        return DisplayComponentSequence.lazy(components, ComponentTransformer::transformToDisplay);
+    }
+
     /** The returned list will have duplicate {@link Component}s removed. */
     public static List<Component> transformFromDisplay(
             Collection<DisplayComponent> displayComponents) {
@@ -2,6 +2,8 @@ package com.github.dcysteine.neicustomdiagram.util;
 
 import codechicken.nei.ItemList;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.DisplayComponentSequence;
 import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
 import com.google.common.collect.Lists;
 import net.minecraft.item.ItemStack;
@@ -61,4 +63,24 @@ public final class OreDictUtil {
             return Lists.newArrayList(component);
         }
     }
+
+    /**
+     * Like {@link #getPermutations(Component)}, but returns a sequence of display components which
+     * will only be built as they are needed. Wildcard items can have a very large number of
+     * permutations, of which only one is displayed at a time.
+     */
+    public static DisplayComponentSequence getPermutationSequence(Component component) {
+        if (component.type() == Component.ComponentType.ITEM
+                && ((ItemComponent) component).hasWildcardDamage()) {
+            List<ItemStack> permutations = ItemList.itemMap.get(((ItemComponent) component).item());
+            if (!permutations.isEmpty()) {
+                return DisplayComponentSequence.lazy(
+                        permutations,
+                        itemStack -> DisplayComponent.builder(ItemComponent.create(itemStack))
+                                .build());
+            }
+        }
+
+        return ComponentTransformer.transformToDisplaySequence(getPermutations(component));
+    }
 }
@@ -0,0 +1,162 @@
+package com.github.dcysteine.neicustomdiagram.util.gregtech5;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Arrays;
+
+/**
+ * Immutable map of interned component ID to stack size, stored as a pair of primitive arrays
+ * sorted by component ID.
+ *
+ * <p>Large packs have hundreds of thousands of recipes, all of which are kept in memory for the
+ * whole analysis, so this is much lighter than a {@code Map<Component, Integer>} per recipe. The
+ * sorted layout also lets us compare two recipes' components in a single merge pass.
+ */
+public final class ComponentStacks {
+    public static final ComponentStacks EMPTY = new ComponentStacks(new int[0], new int[0]);
+
+    private final int[] ids;
+    private final int[] amounts;
+
+    private ComponentStacks(int[] ids, int[] amounts) {
+        this.ids = ids;
+        this.amounts = amounts;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public boolean isEmpty() {
+        return ids.length == 0;
+    }
+
+    /** Returns the component ID at {@code index}. Component IDs are in increasing order. */
+    public int id(int index) {
+        return ids[index];
+    }
+
+    /** Returns the stack size at {@code index}. */
+    public int amount(int index) {
+        return amounts[index];
+    }
+
+    /** Returns a copy of the component IDs, in increasing order. */
+    public int[] ids() {
+        return ids.clone();
+    }
+
+    /** Returns the stack size of component {@code id}, or 0 if it isn't present. */
+    public int amountOf(int id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? amounts[index] : 0;
+    }
+
+    /** Returns whether every component of this is in {@code other}, with at least as large size. */
+    public boolean isSubsetComparingStackSizes(ComponentStacks other) {
+        int otherIndex = 0;
+        for (int index = 0; index < ids.length; index++) {
+            while (otherIndex < other.ids.length && other.ids[otherIndex] < ids[index]) {
+                otherIndex++;
+            }
+
+            if (otherIndex == other.ids.length
+                    || other.ids[otherIndex] != ids[index]
+                    || other.amounts[otherIndex] < amounts[index]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public ImmutableMap<Component, Integer> toMap(ComponentTable componentTable) {
+        ImmutableMap.Builder<Component, Integer> builder = ImmutableMap.builder();
+        for (int index = 0; index < ids.length; index++) {
+            builder.put(componentTable.get(ids[index]), amounts[index]);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof ComponentStacks)) {
+            return false;
+        }
+
+        ComponentStacks otherStacks = (ComponentStacks) other;
+        return Arrays.equals(ids, otherStacks.ids) && Arrays.equals(amounts, otherStacks.amounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(ids) + Arrays.hashCode(amounts);
+    }
+
+    public static final class Builder {
+        private int[] ids;
+        private int[] amounts;
+        private int size;
+
+        private Builder() {
+            this.ids = new int[4];
+            this.amounts = new int[4];
+            this.size = 0;
+        }
+
+        /** Adds a stack. Stacks of the same component will have their sizes summed. */
+        public Builder add(int id, int amount) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, 2 * size);
+                amounts = Arrays.copyOf(amounts, 2 * size);
+            }
+            ids[size] = id;
+            amounts[size] = amount;
+            size++;
+            return this;
+        }
+
+        public ComponentStacks build() {
+            if (size == 0) {
+                return EMPTY;
+            }
+
+            // Recipes only have a handful of stacks, so insertion sort is fine here.
+            for (int i = 1; i < size; i++) {
+                int id = ids[i];
+                int amount = amounts[i];
+                int j = i - 1;
+                while (j >= 0 && ids[j] > id) {
+                    ids[j + 1] = ids[j];
+                    amounts[j + 1] = amounts[j];
+                    j--;
+                }
+                ids[j + 1] = id;
+                amounts[j + 1] = amount;
+            }
+
+            // Merge stacks of the same component.
+            int mergedSize = 0;
+            for (int i = 0; i < size; i++) {
+                if (mergedSize > 0 && ids[mergedSize - 1] == ids[i]) {
+                    amounts[mergedSize - 1] += amounts[i];
+                } else {
+                    ids[mergedSize] = ids[i];
+                    amounts[mergedSize] = amounts[i];
+                    mergedSize++;
+                }
+            }
+
+            return new ComponentStacks(
+                    Arrays.copyOf(ids, mergedSize), Arrays.copyOf(amounts, mergedSize));
+        }
+    }
+}
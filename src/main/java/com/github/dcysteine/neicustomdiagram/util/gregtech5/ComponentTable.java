@@ -0,0 +1,53 @@
+package com.github.dcysteine.neicustomdiagram.util.gregtech5;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns components to integer IDs, so that recipes can store their components in primitive
+ * arrays rather than in maps of component objects.
+ *
+ * <p>This class is not thread-safe. Interning must only happen on the thread that generates
+ * diagrams, and since the table may grow at any time, so must lookups. Work running in the
+ * background should have whatever it needs about each component precomputed on that thread.
+ */
+public final class ComponentTable {
+    /** Returned by {@link #id(Component)} for components which have not been interned. */
+    public static final int NOT_FOUND = -1;
+
+    private final Map<Component, Integer> ids;
+    private final List<Component> components;
+
+    public ComponentTable() {
+        this.ids = new HashMap<>();
+        this.components = new ArrayList<>();
+    }
+
+    /** Returns the ID of {@code component}, interning it if necessary. */
+    public int intern(Component component) {
+        Integer id = ids.get(component);
+        if (id == null) {
+            id = components.size();
+            ids.put(component, id);
+            components.add(component);
+        }
+        return id;
+    }
+
+    /** Returns the ID of {@code component}, or {@link #NOT_FOUND} if it has not been interned. */
+    public int id(Component component) {
+        return ids.getOrDefault(component, NOT_FOUND);
+    }
+
+    public Component get(int id) {
+        return components.get(id);
+    }
+
+    public int size() {
+        return components.size();
+    }
+}
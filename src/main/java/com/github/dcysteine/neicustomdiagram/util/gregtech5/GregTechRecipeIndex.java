@@ -0,0 +1,358 @@
+package com.github.dcysteine.neicustomdiagram.util.gregtech5;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.FluidComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
+import com.github.dcysteine.neicustomdiagram.main.Logger;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.SetMultimap;
+import gregtech.api.util.GT_OreDictUnificator;
+import gregtech.api.util.GT_Recipe;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.oredict.OreDictionary;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * Shared, immutable index of GregTech recipe maps, so that each recipe map only gets scanned and
+ * unified once per diagram generation, no matter how many diagram generators use it.
+ *
+ * <p>Each recipe map is indexed the first time that it is requested. For each recipe, the index
+ * stores its unified inputs and outputs (with NBT), interned in a shared {@link ComponentTable}.
+ * For each recipe map, it stores posting lists of input and output component to the recipes
+ * containing that component, so that generators can look up recipes without scanning. Items and
+ * fluids are indexed alike, so lookups by input or output fluid work the same way as for items.
+ *
+ * <p>Keys include NBT, since some recipes differ only by the NBT of an input (for example,
+ * programmed circuits or data sticks). Generators which want to match an item regardless of its
+ * NBT, as a linear scan using {@link GT_OreDictUnificator#isInputStackEqual} would, should use
+ * {@link RecipeMapIndex#recipesWithInputIgnoringNbt(Component)}.
+ *
+ * <p>The index is built on the thread that generates diagrams, and is not thread-safe while
+ * building. Once a recipe map has been indexed, it may be read from any thread.
+ */
+public final class GregTechRecipeIndex {
+    @Nullable private static GregTechRecipeIndex instance;
+
+    private final ComponentTable componentTable;
+    private final Map<GT_Recipe.GT_Recipe_Map, RecipeMapIndex> recipeMaps;
+
+    /**
+     * Multimap of component without NBT to the IDs of all interned variants of it with NBT. Most
+     * recipe components don't have NBT, so this is much smaller than the component table.
+     */
+    private final SetMultimap<Component, Integer> nbtVariants;
+
+    private GregTechRecipeIndex() {
+        this.componentTable = new ComponentTable();
+        this.recipeMaps = new IdentityHashMap<>();
+        this.nbtVariants = MultimapBuilder.hashKeys().hashSetValues().build();
+    }
+
+    /**
+     * Returns the index for the current diagram generation.
+     *
+     * <p>Generators which index recipe maps after diagram generation has finished (for example,
+     * when the player first opens a diagram) should hold on to the instance returned here, as
+     * {@link #reset()} will be called once generation is done.
+     */
+    public static GregTechRecipeIndex get() {
+        if (instance == null) {
+            instance = new GregTechRecipeIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * Drops the static reference to the current index, so that it can be garbage-collected once no
+     * generator holds on to it. The next call to {@link #get()} will create a new index.
+     */
+    public static void reset() {
+        instance = null;
+    }
+
+    public ComponentTable componentTable() {
+        return componentTable;
+    }
+
+    /** Returns the index for {@code recipeMap}, building it if necessary. */
+    public RecipeMapIndex recipeMap(GT_Recipe.GT_Recipe_Map recipeMap) {
+        RecipeMapIndex recipeMapIndex = recipeMaps.get(recipeMap);
+        if (recipeMapIndex == null) {
+            recipeMapIndex = new RecipeMapIndex(recipeMap, this);
+            recipeMaps.put(recipeMap, recipeMapIndex);
+            Logger.MOD.info(
+                    "Indexed GregTech recipe map [{}]: {} recipes",
+                    recipeMap.mUnlocalizedName, recipeMapIndex.size());
+        }
+        return recipeMapIndex;
+    }
+
+    /**
+     * Returns the ID of {@code component}, interning it if necessary, and records it if it is an
+     * NBT variant. The component may already have been interned by a generator using our
+     * component table directly, so we can't only record newly interned components.
+     */
+    private int intern(Component component) {
+        int id = componentTable.intern(component);
+        if (component.nbt().isPresent()) {
+            nbtVariants.put(component.withoutNbt(), id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the unified component for {@code itemStack}, keeping its NBT. This is how item inputs
+     * and outputs are keyed in the index.
+     */
+    public static ItemComponent unify(ItemStack itemStack) {
+        return ItemComponent.createWithNbt(GT_OreDictUnificator.get_nocopy(itemStack));
+    }
+
+    /**
+     * Returns the component that {@code component} is keyed as in the index. Items are unified,
+     * and GregTech fluid display items are converted to their fluid.
+     */
+    public static Component unify(Component component) {
+        switch (component.type()) {
+            case ITEM:
+                ItemComponent itemComponent = (ItemComponent) component;
+                Optional<FluidComponent> fluid =
+                        GregTechFluidDictUtil.displayItemToFluid(itemComponent);
+                if (fluid.isPresent()) {
+                    return fluid.get();
+                }
+                return unify(itemComponent.stack());
+
+            case FLUID:
+                return component;
+
+            default:
+                throw new IllegalArgumentException(
+                        "Unrecognized component type: " + component.type());
+        }
+    }
+
+    /** Index of a single GregTech recipe map. */
+    public static final class RecipeMapIndex {
+        private final GregTechRecipeIndex gregTechRecipeIndex;
+        private final ComponentTable componentTable;
+        private final ImmutableList<GT_Recipe> recipes;
+        private final ImmutableList<ComponentStacks> inputs;
+        private final ImmutableList<ComponentStacks> outputs;
+        private final PostingLists inputPostingLists;
+        private final PostingLists outputPostingLists;
+
+        private RecipeMapIndex(
+                GT_Recipe.GT_Recipe_Map recipeMap, GregTechRecipeIndex gregTechRecipeIndex) {
+            this.gregTechRecipeIndex = gregTechRecipeIndex;
+            this.componentTable = gregTechRecipeIndex.componentTable;
+            this.recipes = ImmutableList.copyOf(recipeMap.mRecipeList);
+
+            ImmutableList.Builder<ComponentStacks> inputsBuilder = ImmutableList.builder();
+            ImmutableList.Builder<ComponentStacks> outputsBuilder = ImmutableList.builder();
+            for (GT_Recipe recipe : recipes) {
+                inputsBuilder.add(buildStacks(recipe.mInputs, recipe.mFluidInputs));
+                outputsBuilder.add(buildStacks(recipe.mOutputs, recipe.mFluidOutputs));
+            }
+            this.inputs = inputsBuilder.build();
+            this.outputs = outputsBuilder.build();
+
+            this.inputPostingLists = new PostingLists(inputs);
+            this.outputPostingLists = new PostingLists(outputs);
+        }
+
+        private ComponentStacks buildStacks(
+                @Nullable ItemStack[] itemStacks, @Nullable FluidStack[] fluidStacks) {
+            ComponentStacks.Builder builder = ComponentStacks.builder();
+            if (itemStacks != null) {
+                for (ItemStack itemStack : itemStacks) {
+                    if (itemStack == null) {
+                        continue;
+                    }
+                    builder.add(
+                            gregTechRecipeIndex.intern(unify(itemStack)), itemStack.stackSize);
+                }
+            }
+            if (fluidStacks != null) {
+                for (FluidStack fluidStack : fluidStacks) {
+                    if (fluidStack == null) {
+                        continue;
+                    }
+                    builder.add(
+                            gregTechRecipeIndex.intern(
+                                    FluidComponent.createWithNbt(fluidStack)),
+                            fluidStack.amount);
+                }
+            }
+            return builder.build();
+        }
+
+        public int size() {
+            return recipes.size();
+        }
+
+        public ImmutableList<GT_Recipe> recipes() {
+            return recipes;
+        }
+
+        public GT_Recipe recipe(int recipeId) {
+            return recipes.get(recipeId);
+        }
+
+        /** Unified inputs of the recipe with ID {@code recipeId}, as interned component IDs. */
+        public ComponentStacks inputs(int recipeId) {
+            return inputs.get(recipeId);
+        }
+
+        /** Unified outputs of the recipe with ID {@code recipeId}, as interned component IDs. */
+        public ComponentStacks outputs(int recipeId) {
+            return outputs.get(recipeId);
+        }
+
+        /**
+         * Returns the IDs of all recipes having {@code component} as an input, in increasing
+         * order. {@code component} must already be unified; see
+         * {@link GregTechRecipeIndex#unify(Component)}. The returned array must not be modified.
+         */
+        public int[] recipesWithInput(Component component) {
+            return recipesWithInput(componentTable.id(component));
+        }
+
+        /**
+         * Returns the IDs of all recipes having component {@code componentId} as an input, in
+         * increasing order. The returned array must not be modified.
+         */
+        public int[] recipesWithInput(int componentId) {
+            return inputPostingLists.get(componentId);
+        }
+
+        /** Posting lists of the recipes having each component as an input, by recipe ID. */
+        public PostingLists inputPostingLists() {
+            return inputPostingLists;
+        }
+
+        /**
+         * Like {@link #recipesWithInput(Component)}, but also returns recipes having any variant
+         * of {@code component} with different NBT, or with no NBT, as an input.
+         */
+        public int[] recipesWithInputIgnoringNbt(Component component) {
+            return PostingLists.union(ignoringNbt(component, this::recipesWithInput));
+        }
+
+        /**
+         * Returns the IDs of all recipes having {@code component} as an output, in increasing
+         * order. {@code component} must already be unified; see
+         * {@link GregTechRecipeIndex#unify(Component)}. The returned array must not be modified.
+         */
+        public int[] recipesWithOutput(Component component) {
+            return recipesWithOutput(componentTable.id(component));
+        }
+
+        /**
+         * Returns the IDs of all recipes having component {@code componentId} as an output, in
+         * increasing order. The returned array must not be modified.
+         */
+        public int[] recipesWithOutput(int componentId) {
+            return outputPostingLists.get(componentId);
+        }
+
+        /** Returns the posting lists of the components of all variants of {@code component}. */
+        private List<int[]> ignoringNbt(Component component, IntFunction<int[]> postingLists) {
+            Component withoutNbt = component.withoutNbt();
+            List<int[]> results = new ArrayList<>();
+            results.add(postingLists.apply(componentTable.id(withoutNbt)));
+            for (int componentId : gregTechRecipeIndex.nbtVariants.get(withoutNbt)) {
+                results.add(postingLists.apply(componentId));
+            }
+            return results;
+        }
+
+        public boolean hasInput(Component component) {
+            return recipesWithInput(component).length > 0;
+        }
+
+        public boolean hasOutput(Component component) {
+            return recipesWithOutput(component).length > 0;
+        }
+
+        /**
+         * Returns all recipes which have every one of {@code inputs} as an input, and every one of
+         * {@code outputs} as an output, in recipe map order. Components will be unified, and stack
+         * sizes are ignored. If there are no inputs or outputs, all recipes are returned. The
+         * returned list may be immutable.
+         *
+         * <p>As with {@link GT_OreDictUnificator#isInputStackEqual}, matching ignores NBT, and
+         * recipe items with wildcard damage match requested items of any damage value.
+         *
+         * <p>This intersects the posting lists of the requested components, starting from the
+         * shortest, so it takes time roughly proportional to the shortest posting list rather than
+         * to the size of the recipe map.
+         */
+        public List<GT_Recipe> findRecipes(
+                Collection<? extends Component> inputs, Collection<? extends Component> outputs) {
+            List<int[]> postingLists = new ArrayList<>(inputs.size() + outputs.size());
+            inputs.forEach(
+                    input -> postingLists.add(matchingRecipes(input, this::recipesWithInput)));
+            outputs.forEach(
+                    output -> postingLists.add(matchingRecipes(output, this::recipesWithOutput)));
+            if (postingLists.isEmpty()) {
+                return recipes;
+            }
+
+            List<GT_Recipe> results = new ArrayList<>();
+            for (int recipeId : PostingLists.intersect(postingLists)) {
+                results.add(recipes.get(recipeId));
+            }
+            return results;
+        }
+
+        /**
+         * Returns the union of the posting lists of all variants of {@code component} which
+         * {@link #findRecipes(Collection, Collection)} matches it against: its variants with any
+         * NBT, and for items, the variants with wildcard damage.
+         */
+        private int[] matchingRecipes(Component component, IntFunction<int[]> postingLists) {
+            Component unified = unify(component);
+            List<int[]> results = ignoringNbt(unified, postingLists);
+            if (unified.type() == Component.ComponentType.ITEM) {
+                ItemComponent itemComponent = (ItemComponent) unified;
+                if (!itemComponent.hasWildcardDamage()) {
+                    Component wildcard =
+                            unify(
+                                    ItemComponent.create(
+                                            itemComponent.item(), OreDictionary.WILDCARD_VALUE));
+                    results.addAll(ignoringNbt(wildcard, postingLists));
+                }
+            }
+            return PostingLists.union(results);
+        }
+
+        /** Returns the distinct components used as inputs in this recipe map. */
+        public List<Component> inputComponents() {
+            return components(inputPostingLists);
+        }
+
+        /** Returns the distinct components produced as outputs in this recipe map. */
+        public List<Component> outputComponents() {
+            return components(outputPostingLists);
+        }
+
+        private List<Component> components(PostingLists postingLists) {
+            ImmutableList.Builder<Component> builder = ImmutableList.builder();
+            for (int index = 0; index < postingLists.size(); index++) {
+                builder.add(componentTable.get(postingLists.componentId(index)));
+            }
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,686 @@
+package com.github.dcysteine.neicustomdiagram.util.gregtech5;
+
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.Component;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.FluidComponent;
+import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import gregtech.api.util.GT_Recipe;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraftforge.fluids.Fluid;
+import net.minecraftforge.fluids.FluidRegistry;
+import net.minecraftforge.fluids.FluidStack;
+
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.ToIntFunction;
+
+/**
+ * Compact, versioned binary snapshot of GregTech recipe maps.
+ *
+ * <p>GregTech's recipe maps only exist inside a running client. A snapshot can be written from the
+ * live recipe maps with {@link #write(File, Map, ToIntFunction)}, and then read back without
+ * GregTech, for offline analysis and benchmarking. Reading memory-maps the file and only decodes
+ * the tables up front; recipe records are decoded on demand.
+ *
+ * <p>Stacks are recorded the same way that {@link GregTechRecipeIndex} keys them: items are unified
+ * through the ore dictionary, NBT is kept, and stacks of the same component are merged. So the
+ * recipes in a snapshot can be analyzed exactly as the live recipes would be, with component IDs
+ * that can be used as-is in {@link ComponentStacks} and {@link PostingLists}.
+ *
+ * <p>Format (all integers are big-endian; strings are an {@code int} byte length followed by
+ * UTF-8 bytes):
+ * <pre>
+ *   int magic, int version
+ *   int nbtCount,       then for each tag: int length, byte[length] (uncompressed NBT)
+ *   int componentCount, then for each component:
+ *     int type (0 for item, 1 for fluid), string name, int damage (0 for fluids),
+ *     int nbtId (or -1), int flags
+ *   int recipeMapCount, then for each recipe map:
+ *     string name, int recipeCount, then for each recipe:
+ *       int euPerTick, int duration, int specialValue,
+ *       then two stack lists (inputs, outputs), each:
+ *         int stackCount, then for each stack, in increasing order of component ID:
+ *           int componentId, int amount
+ * </pre>
+ *
+ * <p>Items are identified by registry name, and fluids by fluid name. Component flags are supplied
+ * by whoever writes the snapshot, for anything that needs to know about a component but can't be
+ * worked out without a running client; they are opaque to this class.
+ *
+ * <p>The structure of the whole file, including every stack, is validated when it is read, so
+ * corrupt or truncated files are rejected up front with an {@link IOException}.
+ */
+public final class GregTechRecipeSnapshot {
+    /** ASCII "NCDR". */
+    private static final int MAGIC = 0x4E434452;
+    public static final int VERSION = 2;
+
+    /** NBT ID for components which have no NBT. */
+    public static final int NO_NBT = -1;
+
+    private static final int ITEM_TYPE = 0;
+    private static final int FLUID_TYPE = 1;
+
+    /** The number of stack lists in each recipe record. */
+    private static final int STACK_LIST_COUNT = 2;
+
+    /** The number of {@code int}s in each stack. */
+    private static final int STACK_INTS = 2;
+
+    /** The smallest possible sizes of table entries and records, used to validate counts. */
+    private static final int MIN_COMPONENT_BYTES = 5 * Integer.BYTES;
+    private static final int MIN_RECIPE_MAP_BYTES = 2 * Integer.BYTES;
+    private static final int MIN_RECIPE_BYTES = (3 + STACK_LIST_COUNT) * Integer.BYTES;
+    private static final int STACK_BYTES = STACK_INTS * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+
+    /** Offset in {@link #buffer} of each NBT tag's length field. */
+    private final int[] nbtOffsets;
+
+    private final boolean[] componentFluids;
+    private final ImmutableList<String> componentNames;
+    private final int[] componentDamages;
+    private final int[] componentNbtIds;
+    private final int[] componentFlags;
+
+    private final ImmutableMap<String, RecipeMapView> recipeMaps;
+
+    private GregTechRecipeSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.remaining() < 2 * Integer.BYTES) {
+            throw new IOException("Not a recipe snapshot: file is too short");
+        }
+        int magic = buffer.getInt();
+        int version = buffer.getInt();
+        if (magic != MAGIC) {
+            throw new IOException(String.format("Not a recipe snapshot: bad magic 0x%08X", magic));
+        }
+        if (version != VERSION) {
+            throw new IOException(
+                    String.format(
+                            "Unsupported recipe snapshot version: %d (expected %d)",
+                            version, VERSION));
+        }
+
+        int nbtCount = getCount(buffer, Integer.BYTES, "NBT");
+        this.nbtOffsets = new int[nbtCount];
+        for (int i = 0; i < nbtCount; i++) {
+            nbtOffsets[i] = buffer.position();
+            int length = getCount(buffer, 1, "NBT byte");
+            buffer.position(buffer.position() + length);
+        }
+
+        int componentCount = getCount(buffer, MIN_COMPONENT_BYTES, "component");
+        this.componentFluids = new boolean[componentCount];
+        ImmutableList.Builder<String> componentNamesBuilder = ImmutableList.builder();
+        this.componentDamages = new int[componentCount];
+        this.componentNbtIds = new int[componentCount];
+        this.componentFlags = new int[componentCount];
+        for (int i = 0; i < componentCount; i++) {
+            int position = buffer.position();
+            int type = getInt(buffer);
+            componentNamesBuilder.add(getString(buffer));
+            componentDamages[i] = getInt(buffer);
+            componentNbtIds[i] = getInt(buffer);
+            componentFlags[i] = getInt(buffer);
+            if ((type != ITEM_TYPE && type != FLUID_TYPE)
+                    || componentNbtIds[i] < NO_NBT || componentNbtIds[i] >= nbtCount) {
+                throw corrupt("bad component at offset %d", position);
+            }
+            componentFluids[i] = type == FLUID_TYPE;
+        }
+        this.componentNames = componentNamesBuilder.build();
+
+        int recipeMapCount = getCount(buffer, MIN_RECIPE_MAP_BYTES, "recipe map");
+        Map<String, RecipeMapView> recipeMapsByName = new LinkedHashMap<>();
+        for (int i = 0; i < recipeMapCount; i++) {
+            int position = buffer.position();
+            String name = getString(buffer);
+            int[] recipeOffsets = new int[getCount(buffer, MIN_RECIPE_BYTES, "recipe")];
+            for (int j = 0; j < recipeOffsets.length; j++) {
+                recipeOffsets[j] = buffer.position();
+                checkRecipe(buffer);
+            }
+
+            if (recipeMapsByName.put(name, new RecipeMapView(name, recipeOffsets)) != null) {
+                throw corrupt("duplicate recipe map %s at offset %d", name, position);
+            }
+        }
+        this.recipeMaps = ImmutableMap.copyOf(recipeMapsByName);
+
+        if (buffer.hasRemaining()) {
+            throw corrupt("%d trailing bytes", buffer.remaining());
+        }
+    }
+
+    /**
+     * Reads a snapshot from {@code file}, which will be memory-mapped.
+     *
+     * @throws IOException if the file can't be read, or isn't a valid snapshot.
+     */
+    public static GregTechRecipeSnapshot read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping remains valid after the channel is closed.
+            return new GregTechRecipeSnapshot(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (BufferUnderflowException | IllegalArgumentException
+                | IndexOutOfBoundsException e) {
+            // The constructor validates everything that it reads, so this shouldn't happen. But if
+            // it does, it's still a corrupt file rather than a programming error.
+            throw new IOException("Corrupt recipe snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Writes a snapshot of {@code recipeMaps} to {@code file}, in iteration order.
+     *
+     * <p>Items which aren't in the item registry are left out, as they couldn't be resolved when
+     * the snapshot is read.
+     *
+     * @param recipeMaps the recipe maps to write, keyed by the names to record them under.
+     * @param componentFlags computes the flags to record for each component.
+     */
+    public static void write(
+            File file, Map<String, GT_Recipe.GT_Recipe_Map> recipeMaps,
+            ToIntFunction<Component> componentFlags) throws IOException {
+        new Writer(componentFlags).write(file, recipeMaps);
+    }
+
+    /** Returns the recipe maps in this snapshot, keyed by name, in the order they were written. */
+    public ImmutableMap<String, RecipeMapView> recipeMaps() {
+        return recipeMaps;
+    }
+
+    public Optional<RecipeMapView> recipeMap(String name) {
+        return Optional.ofNullable(recipeMaps.get(name));
+    }
+
+    public int componentCount() {
+        return componentNames.size();
+    }
+
+    public boolean isFluid(int componentId) {
+        return componentFluids[componentId];
+    }
+
+    /** Returns the registry name of an item, or the name of a fluid. */
+    public String componentName(int componentId) {
+        return componentNames.get(componentId);
+    }
+
+    /** Returns the damage of an item. Always 0 for fluids. */
+    public int componentDamage(int componentId) {
+        return componentDamages[componentId];
+    }
+
+    /** Returns the ID of a component's NBT tag, or {@link #NO_NBT}. See {@link #nbt(int)}. */
+    public int componentNbtId(int componentId) {
+        return componentNbtIds[componentId];
+    }
+
+    public int componentFlags(int componentId) {
+        return componentFlags[componentId];
+    }
+
+    /** Returns the flags of every component, indexed by component ID. */
+    public int[] componentFlags() {
+        return componentFlags.clone();
+    }
+
+    public int nbtCount() {
+        return nbtOffsets.length;
+    }
+
+    /** Decodes the NBT tag with the given ID. Returns empty for {@link #NO_NBT}. */
+    public Optional<NBTTagCompound> nbt(int nbtId) {
+        if (nbtId == NO_NBT) {
+            return Optional.empty();
+        }
+
+        int offset = nbtOffsets[nbtId];
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + Integer.BYTES);
+        view.get(bytes);
+        try {
+            return Optional.of(
+                    CompressedStreamTools.read(
+                            new DataInputStream(new ByteArrayInputStream(bytes))));
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt NBT in recipe snapshot: " + nbtId, e);
+        }
+    }
+
+    /**
+     * Resolves a component from this snapshot against the item or fluid registry. Returns empty if
+     * the item or fluid doesn't exist in the current game.
+     */
+    public Optional<Component> component(int componentId) {
+        String name = componentNames.get(componentId);
+        Optional<NBTTagCompound> nbt = nbt(componentNbtIds[componentId]);
+        if (componentFluids[componentId]) {
+            Fluid fluid = FluidRegistry.getFluid(name);
+            return fluid == null
+                    ? Optional.empty()
+                    : Optional.of(FluidComponent.create(fluid, nbt));
+        } else {
+            Item item = (Item) Item.itemRegistry.getObject(name);
+            return item == null
+                    ? Optional.empty()
+                    : Optional.of(ItemComponent.create(item, componentDamages[componentId], nbt));
+        }
+    }
+
+    /**
+     * Checks that this snapshot matches {@code recipeMaps}, which should be the recipe maps that it
+     * was written from.
+     *
+     * <p>This decodes every recipe record, so it's meant for checking a snapshot right after it has
+     * been written, not for regular use.
+     *
+     * @throws IOException describing the first difference found.
+     */
+    public void verify(Map<String, GT_Recipe.GT_Recipe_Map> recipeMaps) throws IOException {
+        Iterator<RecipeMapView> views = this.recipeMaps.values().iterator();
+        for (Map.Entry<String, GT_Recipe.GT_Recipe_Map> entry : recipeMaps.entrySet()) {
+            String name = entry.getKey();
+            GT_Recipe.GT_Recipe_Map recipeMap = entry.getValue();
+            if (!views.hasNext()) {
+                throw mismatch("missing recipe map %s", name);
+            }
+
+            RecipeMapView view = views.next();
+            if (!view.name().equals(name) || view.size() != recipeMap.mRecipeList.size()) {
+                throw mismatch(
+                        "expected recipe map %s [%d], found %s [%d]",
+                        name, recipeMap.mRecipeList.size(), view.name(), view.size());
+            }
+
+            int index = 0;
+            for (GT_Recipe recipe : recipeMap.mRecipeList) {
+                RecipeRecord record = view.recipe(index);
+                if (record.euPerTick() != recipe.mEUt
+                        || record.duration() != recipe.mDuration
+                        || record.specialValue() != recipe.mSpecialValue) {
+                    throw mismatch("%s recipe %d: different recipe properties", name, index);
+                }
+                if (!stacksMatch(
+                                record.inputs(),
+                                unifiedStacks(recipe.mInputs, recipe.mFluidInputs))
+                        || !stacksMatch(
+                                record.outputs(),
+                                unifiedStacks(recipe.mOutputs, recipe.mFluidOutputs))) {
+                    throw mismatch("%s recipe %d: different stacks", name, index);
+                }
+                index++;
+            }
+        }
+
+        if (views.hasNext()) {
+            throw mismatch("unexpected recipe map %s", views.next().name());
+        }
+    }
+
+    private boolean stacksMatch(StackList stacks, Map<Component, Integer> expected) {
+        if (stacks.size() != expected.size()) {
+            return false;
+        }
+
+        // Stacks are merged on both sides, so matching each of ours is enough.
+        for (int i = 0; i < stacks.size(); i++) {
+            Optional<Component> component = component(stacks.id(i));
+            if (!component.isPresent()
+                    || !Integer.valueOf(stacks.amount(i)).equals(expected.get(component.get()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the stacks of a recipe as {@link GregTechRecipeIndex} keys them, merging stacks of
+     * the same component. Stacks which can't be written to a snapshot are left out.
+     */
+    private static Map<Component, Integer> unifiedStacks(
+            @Nullable ItemStack[] itemStacks, @Nullable FluidStack[] fluidStacks) {
+        Map<Component, Integer> stacks = new LinkedHashMap<>();
+        if (itemStacks != null) {
+            for (ItemStack itemStack : itemStacks) {
+                if (itemStack == null || itemStack.getItem() == null) {
+                    continue;
+                }
+
+                ItemComponent component = GregTechRecipeIndex.unify(itemStack);
+                if (Item.itemRegistry.getNameForObject(component.item()) != null) {
+                    stacks.merge(component, itemStack.stackSize, Integer::sum);
+                }
+            }
+        }
+        if (fluidStacks != null) {
+            for (FluidStack fluidStack : fluidStacks) {
+                if (fluidStack == null || fluidStack.getFluid() == null) {
+                    continue;
+                }
+
+                stacks.merge(
+                        FluidComponent.createWithNbt(fluidStack), fluidStack.amount, Integer::sum);
+            }
+        }
+        return stacks;
+    }
+
+    private static int getInt(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < Integer.BYTES) {
+            throw corrupt("truncated at offset %d", buffer.position());
+        }
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads the number of entries in a table, list, or string, and checks that that many entries
+     * of at least {@code minEntryBytes} each could fit in the rest of the buffer.
+     */
+    private static int getCount(ByteBuffer buffer, int minEntryBytes, String description)
+            throws IOException {
+        int position = buffer.position();
+        int count = getInt(buffer);
+        if (count < 0 || count > buffer.remaining() / minEntryBytes) {
+            throw corrupt("bad %s count %d at offset %d", description, count, position);
+        }
+        return count;
+    }
+
+    private static String getString(ByteBuffer buffer) throws IOException {
+        byte[] bytes = new byte[getCount(buffer, 1, "string byte")];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Advances {@code buffer} past the recipe record at its current position, checking that each
+     * of its stack lists refers to valid components, in increasing order.
+     */
+    private void checkRecipe(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < MIN_RECIPE_BYTES) {
+            throw corrupt("truncated recipe at offset %d", buffer.position());
+        }
+        buffer.position(buffer.position() + 3 * Integer.BYTES);
+
+        for (int i = 0; i < STACK_LIST_COUNT; i++) {
+            int stackCount = getCount(buffer, STACK_BYTES, "stack");
+            int previousId = -1;
+            for (int j = 0; j < stackCount; j++) {
+                int position = buffer.position();
+                int id = buffer.getInt();
+                buffer.getInt();
+                if (id <= previousId || id >= componentNames.size()) {
+                    throw corrupt("bad stack at offset %d", position);
+                }
+                previousId = id;
+            }
+        }
+    }
+
+    private static IOException corrupt(String format, Object... args) {
+        return new IOException("Corrupt recipe snapshot: " + String.format(format, args));
+    }
+
+    private static IOException mismatch(String format, Object... args) {
+        return new IOException(
+                "Recipe snapshot doesn't match recipe maps: " + String.format(format, args));
+    }
+
+    /** View of the recipes in a single recipe map. */
+    public final class RecipeMapView {
+        private final String name;
+        private final int[] recipeOffsets;
+
+        private RecipeMapView(String name, int[] recipeOffsets) {
+            this.name = name;
+            this.recipeOffsets = recipeOffsets;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int size() {
+            return recipeOffsets.length;
+        }
+
+        /** Decodes the recipe with the given index. */
+        public RecipeRecord recipe(int index) {
+            return new RecipeRecord(recipeOffsets[index]);
+        }
+    }
+
+    /** A single recipe record, read directly from the snapshot. */
+    public final class RecipeRecord {
+        private final int offset;
+
+        private RecipeRecord(int offset) {
+            this.offset = offset;
+        }
+
+        public int euPerTick() {
+            return buffer.getInt(offset);
+        }
+
+        public int duration() {
+            return buffer.getInt(offset + Integer.BYTES);
+        }
+
+        public int specialValue() {
+            return buffer.getInt(offset + 2 * Integer.BYTES);
+        }
+
+        public StackList inputs() {
+            return new StackList(offset + 3 * Integer.BYTES);
+        }
+
+        public StackList outputs() {
+            StackList inputs = inputs();
+            return new StackList(inputs.offset + Integer.BYTES + inputs.size() * STACK_BYTES);
+        }
+    }
+
+    /**
+     * A list of stacks in a recipe record, in increasing order of component ID. Component IDs refer
+     * to this snapshot's component table; see {@link #component(int)}.
+     */
+    public final class StackList {
+        private final int offset;
+
+        private StackList(int offset) {
+            this.offset = offset;
+        }
+
+        public int size() {
+            return buffer.getInt(offset);
+        }
+
+        public int id(int index) {
+            return buffer.getInt(stackOffset(index));
+        }
+
+        public int amount(int index) {
+            return buffer.getInt(stackOffset(index) + Integer.BYTES);
+        }
+
+        public ComponentStacks toComponentStacks() {
+            ComponentStacks.Builder builder = ComponentStacks.builder();
+            for (int i = 0; i < size(); i++) {
+                builder.add(id(i), amount(i));
+            }
+            return builder.build();
+        }
+
+        private int stackOffset(int index) {
+            Preconditions.checkElementIndex(index, size());
+            return offset + Integer.BYTES + index * STACK_BYTES;
+        }
+    }
+
+    /** Builds the interned tables while encoding recipe records, then writes everything out. */
+    private static final class Writer {
+        private final ToIntFunction<Component> componentFlags;
+
+        private final Map<Component, Integer> componentIds = new HashMap<>();
+
+        /** The encoded component table entries, in order of component ID. */
+        private final ByteArrayOutputStream componentBytes = new ByteArrayOutputStream();
+        private final DataOutputStream componentOut = new DataOutputStream(componentBytes);
+
+        /** Keyed by the serialized bytes, wrapped so that they can be compared. */
+        private final Map<ByteBuffer, Integer> nbtIds = new HashMap<>();
+        private final List<byte[]> nbts = new ArrayList<>();
+
+        private Writer(ToIntFunction<Component> componentFlags) {
+            this.componentFlags = componentFlags;
+        }
+
+        private void write(File file, Map<String, GT_Recipe.GT_Recipe_Map> recipeMaps)
+                throws IOException {
+            // Recipe records must come after the tables, but we don't know the tables until we've
+            // encoded all the records. So encode the records into memory first.
+            ByteArrayOutputStream recipeBytes = new ByteArrayOutputStream();
+            DataOutputStream recipeOut = new DataOutputStream(recipeBytes);
+            for (Map.Entry<String, GT_Recipe.GT_Recipe_Map> entry : recipeMaps.entrySet()) {
+                putString(recipeOut, entry.getKey());
+                recipeOut.writeInt(entry.getValue().mRecipeList.size());
+                for (GT_Recipe recipe : entry.getValue().mRecipeList) {
+                    writeRecipe(recipeOut, recipe);
+                }
+            }
+            recipeOut.flush();
+            componentOut.flush();
+
+            try (DataOutputStream out =
+                         new DataOutputStream(
+                                 new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+
+                out.writeInt(nbts.size());
+                for (byte[] nbt : nbts) {
+                    out.writeInt(nbt.length);
+                    out.write(nbt);
+                }
+
+                out.writeInt(componentIds.size());
+                componentBytes.writeTo(out);
+
+                out.writeInt(recipeMaps.size());
+                recipeBytes.writeTo(out);
+            }
+        }
+
+        private void writeRecipe(DataOutputStream out, GT_Recipe recipe) throws IOException {
+            out.writeInt(recipe.mEUt);
+            out.writeInt(recipe.mDuration);
+            out.writeInt(recipe.mSpecialValue);
+            writeStacks(out, unifiedStacks(recipe.mInputs, recipe.mFluidInputs));
+            writeStacks(out, unifiedStacks(recipe.mOutputs, recipe.mFluidOutputs));
+        }
+
+        private void writeStacks(DataOutputStream out, Map<Component, Integer> stacks)
+                throws IOException {
+            // The builder sorts by component ID for us.
+            ComponentStacks.Builder builder = ComponentStacks.builder();
+            for (Map.Entry<Component, Integer> entry : stacks.entrySet()) {
+                builder.add(internComponent(entry.getKey()), entry.getValue());
+            }
+            ComponentStacks componentStacks = builder.build();
+
+            out.writeInt(componentStacks.size());
+            for (int i = 0; i < componentStacks.size(); i++) {
+                out.writeInt(componentStacks.id(i));
+                out.writeInt(componentStacks.amount(i));
+            }
+        }
+
+        private int internComponent(Component component) throws IOException {
+            Integer id = componentIds.get(component);
+            if (id != null) {
+                return id;
+            }
+
+            switch (component.type()) {
+                case ITEM:
+                    ItemComponent itemComponent = (ItemComponent) component;
+                    componentOut.writeInt(ITEM_TYPE);
+                    putString(
+                            componentOut,
+                            Item.itemRegistry.getNameForObject(itemComponent.item()));
+                    componentOut.writeInt(itemComponent.damage());
+                    break;
+
+                case FLUID:
+                    componentOut.writeInt(FLUID_TYPE);
+                    putString(componentOut, ((FluidComponent) component).fluid().getName());
+                    componentOut.writeInt(0);
+                    break;
+
+                default:
+                    throw new IllegalArgumentException(
+                            "Unrecognized component type: " + component.type());
+            }
+            componentOut.writeInt(internNbt(component.nbt().orElse(null)));
+            componentOut.writeInt(componentFlags.applyAsInt(component));
+
+            id = componentIds.size();
+            componentIds.put(component, id);
+            return id;
+        }
+
+        private int internNbt(@Nullable NBTTagCompound nbt) throws IOException {
+            if (nbt == null) {
+                return NO_NBT;
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                CompressedStreamTools.write(nbt, out);
+            }
+            byte[] nbtBytes = bytes.toByteArray();
+            return nbtIds.computeIfAbsent(
+                    ByteBuffer.wrap(nbtBytes),
+                    k -> {
+                        nbts.add(nbtBytes);
+                        return nbts.size() - 1;
+                    });
+        }
+
+        private static void putString(DataOutputStream out, String string) throws IOException {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+}
@@ -8,15 +8,11 @@ import com.github.dcysteine.neicustomdiagram.api.diagram.component.ItemComponent
 import com.github.dcysteine.neicustomdiagram.api.diagram.tooltip.Tooltip;
 import com.github.dcysteine.neicustomdiagram.main.Lang;
 import com.google.common.base.Joiner;
-import com.google.common.collect.ImmutableList;
-import gregtech.api.util.GT_OreDictUnificator;
 import gregtech.api.util.GT_Recipe;
 import net.minecraft.item.ItemStack;
 import net.minecraftforge.fluids.FluidStack;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,89 +22,6 @@ public final class GregTechRecipeUtil {
     // Static class.
     private GregTechRecipeUtil() {}
 
-    // TODO these findRecipe* methods are slow and inefficient, and also unused. Maybe delete them?
-    /** Compares ignoring stack size. */
-    public static List<GT_Recipe> findRecipeByInput(
-            GT_Recipe.GT_Recipe_Map recipes, Component... inputs) {
-        return findRecipe(recipes, Arrays.asList(inputs), ImmutableList.of());
-    }
-
-    /** Compares ignoring stack size. */
-    public static List<GT_Recipe> findRecipeByOutput(
-            GT_Recipe.GT_Recipe_Map recipes, Component... outputs) {
-        return findRecipe(recipes, ImmutableList.of(), Arrays.asList(outputs));
-    }
-
-    public static List<GT_Recipe> findRecipe(
-            GT_Recipe.GT_Recipe_Map recipes, Component input, Component output) {
-        return findRecipe(recipes, ImmutableList.of(input), ImmutableList.of(output));
-    }
-
-    public static List<GT_Recipe> findRecipe(
-            GT_Recipe.GT_Recipe_Map recipes,
-            Collection<? extends Component> inputs, Collection<? extends Component> outputs) {
-        List<FluidStack> inputFluids = new ArrayList<>();
-        List<ItemStack> inputItems = new ArrayList<>();
-        for (Component component : inputs) {
-            switch (component.type()) {
-                case ITEM:
-                    inputItems.add(GT_OreDictUnificator.get_nocopy((ItemStack) component.stack()));
-                    break;
-
-                case FLUID:
-                    inputFluids.add((FluidStack) component.stack());
-                    break;
-            }
-        }
-
-        List<FluidStack> outputFluids = new ArrayList<>();
-        List<ItemStack> outputItems = new ArrayList<>();
-        for (Component component : outputs) {
-            switch (component.type()) {
-                case ITEM:
-                    outputItems.add(GT_OreDictUnificator.get_nocopy((ItemStack) component.stack()));
-                    break;
-
-                case FLUID:
-                    outputFluids.add((FluidStack) component.stack());
-                    break;
-            }
-        }
-
-        List<GT_Recipe> foundRecipes = new ArrayList<>();
-        for (GT_Recipe recipe : recipes.mRecipeList) {
-            if (recipeContainsItems(recipe.mInputs, inputItems)
-                    && recipeContainsFluids(recipe.mFluidInputs, inputFluids)
-                    && recipeContainsItems(recipe.mOutputs, outputItems)
-                    && recipeContainsFluids(recipe.mFluidOutputs, outputFluids)) {
-                foundRecipes.add(recipe);
-            }
-        }
-
-        return foundRecipes;
-    }
-
-    private static boolean recipeContainsFluids(
-            FluidStack[] recipeFluidStacks, Collection<FluidStack> fluidStacks) {
-        for (FluidStack fluidStack : fluidStacks) {
-            if (Arrays.stream(recipeFluidStacks).noneMatch(fluidStack::isFluidEqual)) {
-                return false;
-            }
-        }
-        return true;
-    }
-
-    private static boolean recipeContainsItems(
-            ItemStack[] recipeItemStacks, Collection<ItemStack> itemStacks) {
-        for (ItemStack itemStack : itemStacks) {
-            if (Arrays.stream(recipeItemStacks)
-                    .noneMatch(s -> GT_OreDictUnificator.isInputStackEqual(s, itemStack))) {
-                return false;
-            }
-        }
-        return true;
-    }
-
     public static List<DisplayComponent> buildComponentsFromInputs(GT_Recipe recipe) {
         List<DisplayComponent> components = new ArrayList<>();
         components.addAll(buildComponentsFromItemInputs(recipe));
@@ -0,0 +1,220 @@
+package com.github.dcysteine.neicustomdiagram.util.gregtech5;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted index from interned component ID to the sorted IDs of the recipes which contain it.
+ *
+ * <p>Each recipe is identified by its index in the list that this was built from. Finding all
+ * recipes which contain a given set of components is then just an intersection of sorted posting
+ * lists. Unlike a bloom filter, this is exact, so results don't need to be re-checked.
+ *
+ * <p>This only deals in IDs, and doesn't depend on GregTech, so that it can also be used on recipes
+ * read from a {@link GregTechRecipeSnapshot}. It is immutable once built, and so may be read from
+ * any thread.
+ */
+public final class PostingLists {
+    public static final int[] EMPTY = new int[0];
+
+    /**
+     * Sorted array of the component IDs which have posting lists. Component tables are shared by
+     * all recipe maps, so we map their IDs to indices in this array rather than allocating a
+     * posting list slot for every component in the table.
+     */
+    private final int[] componentIds;
+
+    /** Parallel to {@link #componentIds}. */
+    private final int[][] postingLists;
+
+    /** @param recipeComponents the components of each recipe, indexed by recipe ID. */
+    public PostingLists(List<ComponentStacks> recipeComponents) {
+        componentIds =
+                recipeComponents.stream()
+                        .flatMapToInt(stacks -> IntStream.range(0, stacks.size()).map(stacks::id))
+                        .sorted()
+                        .distinct()
+                        .toArray();
+
+        int[] counts = new int[componentIds.length];
+        for (ComponentStacks stacks : recipeComponents) {
+            for (int i = 0; i < stacks.size(); i++) {
+                counts[Arrays.binarySearch(componentIds, stacks.id(i))]++;
+            }
+        }
+
+        // Recipes are visited in increasing order of ID, so each posting list comes out sorted.
+        postingLists = new int[componentIds.length][];
+        for (int index = 0; index < postingLists.length; index++) {
+            postingLists[index] = new int[counts[index]];
+        }
+        int[] sizes = new int[postingLists.length];
+        for (int recipeId = 0; recipeId < recipeComponents.size(); recipeId++) {
+            ComponentStacks stacks = recipeComponents.get(recipeId);
+            for (int i = 0; i < stacks.size(); i++) {
+                int index = Arrays.binarySearch(componentIds, stacks.id(i));
+                postingLists[index][sizes[index]++] = recipeId;
+            }
+        }
+    }
+
+    /** Returns the number of distinct components. */
+    public int size() {
+        return componentIds.length;
+    }
+
+    /** Returns the component ID at {@code index}. Component IDs are in increasing order. */
+    public int componentId(int index) {
+        return componentIds[index];
+    }
+
+    /**
+     * Returns the IDs of all recipes containing component {@code componentId}, in increasing order.
+     * The returned array must not be modified.
+     */
+    public int[] get(int componentId) {
+        if (componentId == ComponentTable.NOT_FOUND) {
+            return EMPTY;
+        }
+
+        int index = Arrays.binarySearch(componentIds, componentId);
+        return index >= 0 ? postingLists[index] : EMPTY;
+    }
+
+    /**
+     * Returns the IDs of all recipes containing every component in {@code componentIds}, in
+     * increasing order. The returned array may be one of our posting lists, so it must not be
+     * modified.
+     *
+     * @param componentIds distinct component IDs. Must not be empty, since every recipe would
+     *     match.
+     */
+    public int[] lookup(int[] componentIds) {
+        Preconditions.checkArgument(componentIds.length > 0, "Empty lookup");
+
+        int[][] lists = new int[componentIds.length][];
+        for (int i = 0; i < componentIds.length; i++) {
+            lists[i] = get(componentIds[i]);
+        }
+        return intersect(Arrays.asList(lists));
+    }
+
+    /**
+     * Returns the intersection of sorted posting lists {@code lists}, in increasing order. The
+     * returned array may be one of {@code lists}, so it must not be modified.
+     *
+     * @param lists must not be empty. Will be sorted in place, if it is mutable.
+     */
+    public static int[] intersect(List<int[]> lists) {
+        Preconditions.checkArgument(!lists.isEmpty(), "Empty intersection");
+
+        // Intersecting smallest-first keeps the intermediate result as small as possible.
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        int resultSize = result.length;
+        for (int j = 1; j < lists.size() && resultSize > 0; j++) {
+            int[] intersection = result == lists.get(0) ? new int[resultSize] : result;
+            resultSize = intersect(result, resultSize, lists.get(j), intersection);
+            result = intersection;
+        }
+
+        if (resultSize == 0) {
+            return EMPTY;
+        }
+        return result.length == resultSize ? result : Arrays.copyOf(result, resultSize);
+    }
+
+    /**
+     * Returns the union of sorted posting lists {@code lists}, in increasing order and without
+     * duplicates. The returned array may be one of {@code lists}, so it must not be modified.
+     */
+    public static int[] union(List<int[]> lists) {
+        int[] result = EMPTY;
+        for (int[] list : lists) {
+            if (list.length == 0) {
+                continue;
+            } else if (result.length == 0) {
+                result = list;
+                continue;
+            }
+
+            int[] merged = new int[result.length + list.length];
+            int size = 0;
+            int aIndex = 0;
+            int bIndex = 0;
+            while (aIndex < result.length || bIndex < list.length) {
+                if (bIndex == list.length
+                        || (aIndex < result.length && result[aIndex] < list[bIndex])) {
+                    merged[size++] = result[aIndex++];
+                } else if (aIndex == result.length || result[aIndex] > list[bIndex]) {
+                    merged[size++] = list[bIndex++];
+                } else {
+                    merged[size++] = result[aIndex++];
+                    bIndex++;
+                }
+            }
+            result = size == merged.length ? merged : Arrays.copyOf(merged, size);
+        }
+        return result;
+    }
+
+    /**
+     * Intersects the first {@code aSize} elements of sorted array {@code a} with sorted array
+     * {@code b}, writing the result into {@code out}, which may be the same array as {@code a}.
+     *
+     * <p>Large recipe maps can have posting lists that are orders of magnitude apart in size (for
+     * example, a mold that is used in thousands of recipes versus a fluid that is used in a few),
+     * so we gallop through {@code b} rather than stepping through it one element at a time. This
+     * takes {@code O(aSize log(b.length / aSize))} comparisons, so it is never asymptotically worse
+     * than a merge, and when the lists are close in size it mostly takes single steps anyway.
+     *
+     * @return the size of the intersection.
+     */
+    private static int intersect(int[] a, int aSize, int[] b, int[] out) {
+        int size = 0;
+        int bIndex = 0;
+        for (int aIndex = 0; aIndex < aSize && bIndex < b.length; aIndex++) {
+            int value = a[aIndex];
+            bIndex = gallop(b, bIndex, value);
+            if (bIndex < b.length && b[bIndex] == value) {
+                out[size++] = value;
+                bIndex++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the index of the first element of sorted array {@code array}, at or after
+     * {@code from}, which is not less than {@code value}; or {@code array.length} if there is none.
+     */
+    private static int gallop(int[] array, int from, int value) {
+        if (from >= array.length || array[from] >= value) {
+            return from;
+        }
+
+        // Exponential search for an upper bound, then binary search within it.
+        int low = from;
+        int step = 1;
+        while (low + step < array.length && array[low + step] < value) {
+            low += step;
+            step <<= 1;
+        }
+        int high = Math.min(low + step, array.length);
+
+        // Invariant: array[low] < value, and array[high] >= value (or high == array.length).
+        while (high - low > 1) {
+            int mid = (low + high) >>> 1;
+            if (array[mid] < value) {
+                low = mid;
+            } else {
+                high = mid;
+            }
+        }
+        return high;
+    }
+}